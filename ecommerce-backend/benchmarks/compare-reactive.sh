@@ -0,0 +1,67 @@
+#!/usr/bin/env bash
+# Runs the same product-read load against the servlet v2 API and the reactive v2 API of
+# one backend (reactive profile, fixed heap) with a rising number of concurrent clients,
+# and prints a comparison.
+#
+# Needs a seeded MongoDB (see README) and both jars:
+#   (cd .. && mvn package -DskipTests) && mvn package
+set -euo pipefail
+
+cd "$(dirname "$0")"
+
+APP_JAR=../target/ecommerce-backend.jar
+DRIVER_JAR=target/benchmarks.jar
+HEAP=${HEAP:-512m}
+PORT=${PORT:-8080}
+CLIENTS=${CLIENTS:-"50 200 800 2000"}
+DURATION=${DURATION:-60}
+WARMUP=${WARMUP:-15}
+MIX=${MIX:-"search:30,browse:20,detail:30,batch:5,trending:5,featured:5,suggest:5"}
+RESULTS=${RESULTS:-results/reactive-$(date +%Y%m%d-%H%M%S)}
+
+mkdir -p "$RESULTS"
+URL="http://localhost:$PORT"
+
+metric() {
+    curl -fs "$URL/actuator/metrics/$1${2:+?tag=$2}" | jq '.measurements[] | select(.statistic == "VALUE") | .value'
+}
+
+echo "== backend (reactive profile, heap $HEAP)"
+java -Xms"$HEAP" -Xmx"$HEAP" -jar "$APP_JAR" --server.port="$PORT" --spring.profiles.active=reactive \
+    > "$RESULTS/app.log" 2>&1 &
+APP=$!
+trap "kill $APP 2>/dev/null || true" EXIT
+
+until curl -fs "$URL/actuator/health" > /dev/null; do
+    kill -0 "$APP" 2>/dev/null || { echo "backend exited, see $RESULTS/app.log"; exit 1; }
+    sleep 1
+done
+
+for clients in $CLIENTS; do
+    for stack in servlet reactive; do
+        api=/api/v2/products
+        [ "$stack" = reactive ] && api=/api/v2/reactive/products
+        echo "   $stack, $clients clients"
+        java -Xss256k -cp "$DRIVER_JAR" com.school.ecommerce.benchmark.LoadDriver --url="$URL" --api="$api" \
+            --threads="$clients" --warmup="$WARMUP" --duration="$DURATION" --mix="$MIX" \
+            --out="$RESULTS/$stack-$clients.json" > /dev/null
+        # Sampled right after the run, while the server still holds its peak threads
+        jq --argjson threads "$(metric jvm.threads.live)" \
+           --argjson heap "$(metric jvm.memory.used area:heap)" \
+           '. + {serverThreads: $threads, serverHeapMb: ($heap / 1048576 | floor)}' \
+           "$RESULTS/$stack-$clients.json" > "$RESULTS/$stack-$clients.tmp" \
+           && mv "$RESULTS/$stack-$clients.tmp" "$RESULTS/$stack-$clients.json"
+    done
+done
+
+echo
+printf '%-9s %8s %10s %9s %9s %8s %8s %8s\n' stack clients req/s p50-ms p99-ms errors threads heap-mb
+for stack in servlet reactive; do
+    for clients in $CLIENTS; do
+        jq -r --arg stack "$stack" --arg clients "$clients" \
+            '[$stack, $clients, .total.throughput, .total.latencyMs.p50, .total.latencyMs.p99, .total.errors,
+              .serverThreads, .serverHeapMb] | @tsv' "$RESULTS/$stack-$clients.json"
+    done
+done | xargs printf '%-9s %8s %10s %9s %9s %8s %8s %8s\n'
+echo
+echo "Raw results: $RESULTS"
@@ -0,0 +1,72 @@
+#!/usr/bin/env bash
+# Runs the same load against the backend on platform threads and on virtual threads,
+# at a fixed heap, with a rising number of concurrent clients, and prints a comparison.
+#
+# Needs Java 21, a seeded MongoDB (see README) and both jars:
+#   (cd .. && mvn -Pjava21 package -DskipTests) && mvn package
+set -euo pipefail
+
+cd "$(dirname "$0")"
+
+APP_JAR=../target/ecommerce-backend.jar
+DRIVER_JAR=target/benchmarks.jar
+HEAP=${HEAP:-512m}
+PORT=${PORT:-8080}
+CLIENTS=${CLIENTS:-"50 200 800 2000"}
+DURATION=${DURATION:-60}
+WARMUP=${WARMUP:-15}
+MIX=${MIX:-}
+RESULTS=${RESULTS:-results/threading-$(date +%Y%m%d-%H%M%S)}
+
+mkdir -p "$RESULTS"
+URL="http://localhost:$PORT"
+
+metric() {
+    curl -fs "$URL/actuator/metrics/$1${2:+?tag=$2}" | jq '.measurements[] | select(.statistic == "VALUE") | .value'
+}
+
+run_mode() {
+    local mode=$1 profiles=$2
+    echo "== $mode (heap $HEAP)"
+    java -Xms"$HEAP" -Xmx"$HEAP" -jar "$APP_JAR" --server.port="$PORT" \
+        ${profiles:+--spring.profiles.active=$profiles} > "$RESULTS/$mode-app.log" 2>&1 &
+    local app=$!
+    trap "kill $app 2>/dev/null || true" EXIT
+
+    until curl -fs "$URL/actuator/health" > /dev/null; do
+        kill -0 "$app" 2>/dev/null || { echo "backend exited, see $RESULTS/$mode-app.log"; exit 1; }
+        sleep 1
+    done
+
+    for clients in $CLIENTS; do
+        echo "   $clients clients"
+        java -Xss256k -cp "$DRIVER_JAR" com.school.ecommerce.benchmark.LoadDriver --url="$URL" \
+            --threads="$clients" --warmup="$WARMUP" --duration="$DURATION" ${MIX:+--mix=$MIX} \
+            --out="$RESULTS/$mode-$clients.json" > /dev/null
+        # Sampled right after the run, while the server still holds its peak threads
+        jq --argjson threads "$(metric jvm.threads.live)" \
+           --argjson heap "$(metric jvm.memory.used area:heap)" \
+           '. + {serverThreads: $threads, serverHeapMb: ($heap / 1048576 | floor)}' \
+           "$RESULTS/$mode-$clients.json" > "$RESULTS/$mode-$clients.tmp" \
+           && mv "$RESULTS/$mode-$clients.tmp" "$RESULTS/$mode-$clients.json"
+    done
+
+    kill "$app"
+    wait "$app" 2>/dev/null || true
+    trap - EXIT
+}
+
+run_mode platform ""
+run_mode virtual vthreads
+
+echo
+printf '%-9s %8s %10s %9s %9s %8s %8s %8s\n' mode clients req/s p50-ms p99-ms errors threads heap-mb
+for mode in platform virtual; do
+    for clients in $CLIENTS; do
+        jq -r --arg mode "$mode" --arg clients "$clients" \
+            '[$mode, $clients, .total.throughput, .total.latencyMs.p50, .total.latencyMs.p99, .total.errors,
+              .serverThreads, .serverHeapMb] | @tsv' "$RESULTS/$mode-$clients.json"
+    done
+done | xargs printf '%-9s %8s %10s %9s %9s %8s %8s %8s\n'
+echo
+echo "Raw results: $RESULTS"
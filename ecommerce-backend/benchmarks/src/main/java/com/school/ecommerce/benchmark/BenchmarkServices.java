@@ -0,0 +1,88 @@
+package com.school.ecommerce.benchmark;
+
+import com.mongodb.client.MongoClients;
+import com.school.ecommerce.search.ProductSearchEngine;
+import com.school.ecommerce.search.SearchQueryLog;
+import com.school.ecommerce.search.SuggestionEngine;
+import com.school.ecommerce.service.EntityCache;
+import com.school.ecommerce.service.ImageUploadService;
+import com.school.ecommerce.service.ImageVariantService;
+import com.school.ecommerce.service.ProductCollectionCache;
+import com.school.ecommerce.service.ProductHitCounter;
+import com.school.ecommerce.service.ProductServiceV2;
+import com.school.ecommerce.service.QueryCountCache;
+import com.school.ecommerce.storage.BlobStore;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Wires the production services by hand, without a Spring context, using the
+ * same defaults as application.properties.
+ */
+public final class BenchmarkServices {
+
+    private BenchmarkServices() {
+    }
+
+    public static ProductServiceV2 productService(MongoTemplate mongoTemplate, ProductSearchEngine searchEngine) {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ProductServiceV2 service = new ProductServiceV2();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "searchEngine", searchEngine);
+        SearchQueryLog queryLog = new SearchQueryLog(mongoTemplate, registry, 10_000, 2, 64, 3, 30);
+        ReflectionTestUtils.setField(service, "queryLog", queryLog);
+        ReflectionTestUtils.setField(service, "suggestionEngine",
+                new SuggestionEngine(mongoTemplate, queryLog, registry, 4, 50_000));
+        ReflectionTestUtils.setField(service, "entityCache", new EntityCache(mongoTemplate, registry, 10_000, 1000, 60));
+        ReflectionTestUtils.setField(service, "hitCounter", hitCounter(mongoTemplate, 50_000));
+        ReflectionTestUtils.setField(service, "countCache", new QueryCountCache(mongoTemplate, 60, 1000));
+        ReflectionTestUtils.setField(service, "collectionCache", new ProductCollectionCache(registry, 50));
+        ReflectionTestUtils.setField(service, "imageVariantService", imageVariantService(tempDir("uploads")));
+        return service;
+    }
+
+    public static ProductHitCounter hitCounter(MongoTemplate mongoTemplate, int maxPendingProducts) {
+        return new ProductHitCounter(mongoTemplate, new SimpleMeterRegistry(), maxPendingProducts);
+    }
+
+    public static ImageVariantService imageVariantService(Path uploadDir) {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ImageUploadService uploads = new ImageUploadService(registry, new StandardEnvironment(), uploadDir.toString(), 10_485_760, 4);
+        BlobStore blobs = new BlobStore(uploadDir.resolve("blobs").toString());
+        return new ImageVariantService(uploads, blobs, registry, 0.8f, 40_000_000, 2, 1000, 100_000, 30);
+    }
+
+    /**
+     * A template on the MongoDB at {@code uri}, or on an in-process
+     * mongo-java-server when {@code uri} is null. The in-process server speaks
+     * the wire protocol, so writes take the same driver path as in production,
+     * but it is no substitute for a real server when measuring throughput.
+     */
+    public static MongoTemplate mongoTemplate(String uri, String database) {
+        if (uri == null) {
+            MongoServer server = new MongoServer(new MemoryBackend());
+            InetSocketAddress address = server.bind();
+            uri = "mongodb://" + address.getHostString() + ":" + address.getPort();
+        }
+        return new MongoTemplate(MongoClients.create(uri), database);
+    }
+
+    public static Path tempDir(String prefix) {
+        try {
+            return Files.createTempDirectory("benchmark-" + prefix);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.school.ecommerce.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.school.ecommerce.dto.CheckoutRequestDTO;
+import com.school.ecommerce.model.Inventory;
+import com.school.ecommerce.model.Order;
+import com.school.ecommerce.model.Product;
+import com.school.ecommerce.model.Reservation;
+import com.school.ecommerce.repository.OrderRepository;
+import com.school.ecommerce.seed.SyntheticCatalog;
+import com.school.ecommerce.service.OrderService;
+import com.school.ecommerce.service.QueryCountCache;
+import com.school.ecommerce.service.StockReservations;
+import com.school.ecommerce.service.impl.OrderServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Orders per second through {@link OrderService#checkout} for carts of 1 to 50
+ * items, with concurrent buyers drawing products from a shared catalog. Stock
+ * never runs out, so every checkout does the full work: product lookup, the
+ * bulk stock update and hold cleanup, the reservation and order inserts. Prints orders/s,
+ * lines/s and latency percentiles per cart size as JSON.
+ *
+ * <p>Runs on an in-process mongo-java-server unless {@code --mongo} names a
+ * real server; only a real server gives numbers worth comparing.
+ *
+ * <pre>java -cp target/benchmarks.jar com.school.ecommerce.benchmark.CheckoutThroughput --mongo=mongodb://localhost:27017 --threads=16 --duration=20</pre>
+ */
+public final class CheckoutThroughput {
+
+    private static final int[] CART_SIZES = { 1, 5, 10, 25, 50 };
+
+    private CheckoutThroughput() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadDriver.options(args);
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "10"));
+        int catalogSize = Integer.parseInt(options.getOrDefault("products", "10000"));
+
+        MongoTemplate mongoTemplate = BenchmarkServices.mongoTemplate(options.get("mongo"), "checkout_throughput");
+        List<String> productIds = seed(mongoTemplate, catalogSize);
+        OrderRepository orders = new MongoRepositoryFactory(mongoTemplate).getRepository(OrderRepository.class);
+        StockReservations reservations = new StockReservations(mongoTemplate, new SimpleMeterRegistry(), 900, 500, 256);
+        OrderService orderService = new OrderServiceImpl(orders, reservations, mongoTemplate,
+                new QueryCountCache(mongoTemplate, 60, 1000), event -> { }, 100, 100);
+
+        // One warmup pass so the first cart size does not pay for JIT compilation
+        run(orderService, productIds, 10, threads, Math.min(durationSeconds, 5));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("threads", threads);
+        report.put("products", catalogSize);
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int cartSize : CART_SIZES) {
+            results.add(run(orderService, productIds, cartSize, threads, durationSeconds));
+        }
+        report.put("results", results);
+
+        System.out.println(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report));
+        System.exit(0);
+    }
+
+    private static List<String> seed(MongoTemplate mongoTemplate, int catalogSize) {
+        for (Class<?> collection : List.of(Product.class, Inventory.class, Reservation.class, Order.class)) {
+            if (mongoTemplate.collectionExists(collection)) {
+                mongoTemplate.dropCollection(collection);
+            }
+        }
+        List<Product> products = new ArrayList<>(mongoTemplate.insertAll(SyntheticCatalog.products(catalogSize)));
+        List<Inventory> stock = new ArrayList<>(products.size());
+        List<String> productIds = new ArrayList<>(products.size());
+        for (Product product : products) {
+            Inventory inventory = new Inventory();
+            inventory.setProductId(product.getId());
+            inventory.setStock(Integer.MAX_VALUE);
+            stock.add(inventory);
+            productIds.add(product.getId());
+        }
+        mongoTemplate.insertAll(stock);
+        return productIds;
+    }
+
+    private static Map<String, Object> run(OrderService orderService, List<String> productIds, int cartSize,
+            int threads, int durationSeconds) throws InterruptedException {
+        Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+        LongAdder orders = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        List<Thread> buyers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(SyntheticCatalog.DEFAULT_SEED + t);
+            Thread buyer = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    CheckoutRequestDTO cart = cart(productIds, cartSize, random);
+                    long started = System.nanoTime();
+                    try {
+                        orderService.checkout(cart);
+                        latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+                        orders.increment();
+                    } catch (RuntimeException e) {
+                        errors.increment();
+                    }
+                }
+            });
+            buyer.start();
+            buyers.add(buyer);
+        }
+        for (Thread buyer : buyers) {
+            buyer.join();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("cartSize", cartSize);
+        result.put("orders", orders.sum());
+        result.put("errors", errors.sum());
+        result.put("ordersPerSecond", orders.sum() / (double) durationSeconds);
+        result.put("linesPerSecond", orders.sum() * cartSize / (double) durationSeconds);
+        result.put("p50Micros", latency.getValueAtPercentile(50));
+        result.put("p99Micros", latency.getValueAtPercentile(99));
+        return result;
+    }
+
+    private static CheckoutRequestDTO cart(List<String> productIds, int cartSize, Random random) {
+        List<CheckoutRequestDTO.ItemDTO> items = new ArrayList<>(cartSize);
+        for (int i = 0; i < cartSize; i++) {
+            CheckoutRequestDTO.ItemDTO item = new CheckoutRequestDTO.ItemDTO();
+            item.setProductId(productIds.get(random.nextInt(productIds.size())));
+            item.setQuantity(1 + random.nextInt(3));
+            items.add(item);
+        }
+        CheckoutRequestDTO cart = new CheckoutRequestDTO();
+        cart.setUserId("buyer-" + random.nextInt(1000));
+        cart.setItems(items);
+        return cart;
+    }
+}
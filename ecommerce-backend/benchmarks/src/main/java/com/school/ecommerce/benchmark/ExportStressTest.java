@@ -0,0 +1,234 @@
+package com.school.ecommerce.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.school.ecommerce.model.Product;
+import com.school.ecommerce.seed.SyntheticCatalog;
+import com.school.ecommerce.service.ProductExportService;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Streams a catalog of {@code --products} products (a million by default)
+ * through {@link ProductExportService#export} into an output stream that only
+ * counts, checking that every product comes out as one NDJSON line. Run it
+ * with a heap far smaller than the catalog, so a buffering export fails with
+ * an OutOfMemoryError instead of passing. Two rounds, each printed as JSON:
+ * {@code full} writes whole products, {@code projected} only name and price.
+ *
+ * <p>Without {@code --mongo}, the in-process mongo-java-server runs in a child
+ * JVM with {@code --server-heap} of heap, so that only the export side is
+ * held to the small heap. Exits 1 when any check fails.
+ *
+ * <pre>java -Xmx64m -cp target/benchmarks.jar com.school.ecommerce.benchmark.ExportStressTest --products=1000000</pre>
+ */
+public final class ExportStressTest {
+
+    private static final int SEED_BATCH = 1000;
+    private static final String PORT_PREFIX = "listening on port ";
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductExportService exportService;
+    private final int products;
+    private final AtomicLong peakHeapUsed = new AtomicLong();
+    private boolean failed;
+
+    private ExportStressTest(MongoTemplate mongoTemplate, int products) {
+        this.mongoTemplate = mongoTemplate;
+        this.exportService = new ProductExportService(mongoTemplate, new ObjectMapper().findAndRegisterModules(), 1000);
+        this.products = products;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadDriver.options(args);
+        int products = Integer.parseInt(options.getOrDefault("products", "1000000"));
+
+        Process server = null;
+        String uri = options.get("mongo");
+        if (uri == null) {
+            server = startServer(options.getOrDefault("server-heap", "3g"));
+            uri = "mongodb://127.0.0.1:" + serverPort(server);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        boolean failed;
+        try {
+            MongoTemplate mongoTemplate = new MongoTemplate(MongoClients.create(uri), "export_stress");
+            if (mongoTemplate.collectionExists(Product.class)) {
+                mongoTemplate.dropCollection(Product.class);
+            }
+            ExportStressTest test = new ExportStressTest(mongoTemplate, products);
+            report.put("products", products);
+            report.put("maxHeapMb", Runtime.getRuntime().maxMemory() >> 20);
+            report.put("seedMs", test.seed());
+            report.put("full", test.export(null));
+            report.put("projected", test.export(List.of("name", "price")));
+            report.put("passed", !test.failed);
+            failed = test.failed;
+        } finally {
+            if (server != null) {
+                server.destroy();
+            }
+        }
+
+        System.out.println(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report));
+        System.exit(failed ? 1 : 0);
+    }
+
+    private long seed() {
+        long started = System.nanoTime();
+        try (Stream<Product> catalog = SyntheticCatalog.stream(products, SyntheticCatalog.DEFAULT_SEED)) {
+            List<Product> batch = new ArrayList<>(SEED_BATCH);
+            Iterator<Product> iterator = catalog.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == SEED_BATCH || !iterator.hasNext()) {
+                    mongoTemplate.insert(batch, Product.class);
+                    batch.clear();
+                }
+            }
+        }
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    private Map<String, Object> export(List<String> fields) throws Exception {
+        Map<String, Object> round = new LinkedHashMap<>();
+        CountingOutputStream out = new CountingOutputStream();
+
+        System.gc();
+        peakHeapUsed.set(0);
+        Thread sampler = new Thread(this::sampleHeap, "heap-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        long started = System.nanoTime();
+        try {
+            exportService.export(out, ProductExportService.Format.NDJSON, fields, Function.identity());
+        } catch (OutOfMemoryError e) {
+            round.put("error", e.toString());
+            failed = true;
+        } finally {
+            sampler.interrupt();
+            sampler.join();
+        }
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        check(round, "lines", out.lines(), products);
+        round.put("megabytes", out.bytes >> 20);
+        round.put("elapsedMs", elapsedMs);
+        round.put("productsPerSecond", elapsedMs == 0 ? 0 : products * 1000L / elapsedMs);
+        round.put("peakHeapUsedMb", peakHeapUsed.get() >> 20);
+        return round;
+    }
+
+    private void sampleHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        while (!Thread.currentThread().isInterrupted()) {
+            peakHeapUsed.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void check(Map<String, Object> round, String name, long actual, long expected) {
+        round.put(name, actual);
+        if (actual != expected) {
+            round.put(name + "Expected", expected);
+            failed = true;
+        }
+    }
+
+    /** Starts {@link Server} in a child JVM on this class path; it prints its port first. */
+    private static Process startServer(String heap) throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-Xmx" + heap, "-cp", System.getProperty("java.class.path"),
+                Server.class.getName())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    /** Skips whatever the server logs before it prints its port. */
+    private static String serverPort(Process server) throws Exception {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(server.getInputStream(), StandardCharsets.US_ASCII));
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            if (line.startsWith(PORT_PREFIX)) {
+                // Keep draining so a chatty server never blocks on a full pipe
+                Thread drain = new Thread(() -> reader.lines().forEach(ignored -> { }), "mongo-server-output");
+                drain.setDaemon(true);
+                drain.start();
+                return line.substring(PORT_PREFIX.length());
+            }
+        }
+        throw new IllegalStateException("The Mongo server exited before it was listening");
+    }
+
+    /** An in-memory Mongo server that runs until its parent closes stdin. */
+    static final class Server {
+
+        private Server() {
+        }
+
+        public static void main(String[] args) throws Exception {
+            MongoServer server = new MongoServer(new MemoryBackend());
+            InetSocketAddress address = server.bind();
+            System.out.println(PORT_PREFIX + address.getPort());
+            System.out.flush();
+            while (System.in.read() != -1) {
+                // Only end of input matters
+            }
+            server.shutdownNow();
+        }
+    }
+
+    /** Discards everything written, counting bytes and lines. */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long bytes;
+        private long newlines;
+        private int last = '\n';
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                newlines++;
+            }
+            last = b;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                write(buffer[i]);
+            }
+        }
+
+        /** The separator goes between values, so the last line has no newline of its own. */
+        long lines() {
+            return last == '\n' ? newlines : newlines + 1;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.school.ecommerce.benchmark;
+
+import com.school.ecommerce.service.ProductHitCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent ProductHitCounter.record calls. With more distinct products than
+ * the pending limit, recording threads take turns running the flush, which is
+ * the backpressure path. Bulk writes go to the in-memory template and are
+ * discarded, so this measures the in-memory side only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class HitCounterBenchmark {
+
+    private static final int MAX_PENDING_PRODUCTS = 50_000;
+
+    @Param({ "1000", "200000" })
+    public int distinctProducts;
+
+    private ProductHitCounter hitCounter;
+    private String[] productIds;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup
+    public void setUp() {
+        hitCounter = BenchmarkServices.hitCounter(new InMemoryMongoTemplate(Collections.emptyList()),
+                MAX_PENDING_PRODUCTS);
+        productIds = new String[distinctProducts];
+        for (int i = 0; i < distinctProducts; i++) {
+            productIds[i] = String.format("%024x", i);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void flush() {
+        hitCounter.flush();
+    }
+
+    @Benchmark
+    public void record(ThreadState state) {
+        hitCounter.record(productIds[state.random.nextInt(productIds.length)]);
+    }
+}
@@ -0,0 +1,92 @@
+package com.school.ecommerce.benchmark;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * MongoTemplate stand-in that serves one in-memory list of entities. Criteria
+ * are not evaluated; only skip and limit are applied. Benchmarks therefore
+ * measure query building and mapping on the Java side, with no I/O.
+ * Bulk writes are accepted and discarded.
+ */
+public class InMemoryMongoTemplate extends MongoTemplate {
+
+    private final List<?> entities;
+
+    public InMemoryMongoTemplate(List<?> entities) {
+        super(offlineFactory());
+        this.entities = entities;
+    }
+
+    @Override
+    public <T> List<T> find(Query query, Class<T> entityClass) {
+        return find(query, entityClass, getCollectionName(entityClass));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> find(Query query, Class<T> entityClass, String collectionName) {
+        int skip = (int) Math.min(query.getSkip(), entities.size());
+        int limit = query.getLimit() > 0 ? query.getLimit() : entities.size();
+        List<?> page = entities.subList(skip, Math.min(entities.size(), skip + limit));
+
+        if (entityClass == Document.class) {
+            return (List<T>) page.stream().map(this::toDocument).collect(Collectors.toList());
+        }
+        return (List<T>) page;
+    }
+
+    @Override
+    public <T> Stream<T> stream(Query query, Class<T> entityType) {
+        return find(query, entityType).stream();
+    }
+
+    @Override
+    public long count(Query query, Class<?> entityClass) {
+        return entities.size();
+    }
+
+    @Override
+    public long estimatedCount(Class<?> entityClass) {
+        return entities.size();
+    }
+
+    @Override
+    public BulkOperations bulkOps(BulkOperations.BulkMode mode, Class<?> entityClass) {
+        return (BulkOperations) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { BulkOperations.class },
+                (proxy, method, args) -> "execute".equals(method.getName())
+                        ? BulkWriteResult.unacknowledged()
+                        : proxy);
+    }
+
+    private Document toDocument(Object entity) {
+        Document document = new Document();
+        getConverter().write(entity, document);
+        return document;
+    }
+
+    // Just enough of a factory for MongoTemplate to build its converter; nothing connects
+    private static MongoDatabaseFactory offlineFactory() {
+        return (MongoDatabaseFactory) Proxy.newProxyInstance(InMemoryMongoTemplate.class.getClassLoader(),
+                new Class<?>[] { MongoDatabaseFactory.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getExceptionTranslator" -> new MongoExceptionTranslator();
+                    case "getCodecRegistry" -> MongoClientSettings.getDefaultCodecRegistry();
+                    case "isTransactionActive" -> false;
+                    default -> throw new UnsupportedOperationException(
+                            "No database behind the benchmark template: " + method.getName());
+                });
+    }
+}
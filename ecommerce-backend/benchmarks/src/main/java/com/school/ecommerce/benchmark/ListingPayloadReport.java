@@ -0,0 +1,157 @@
+package com.school.ecommerce.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.school.ecommerce.seed.SyntheticCatalog;
+import com.school.ecommerce.service.ImageUploadService;
+import com.school.ecommerce.service.ImageVariantService;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Bytes a client downloads for one listing page, printed as JSON: the search
+ * response in the full and summary views, raw and gzipped in each negotiable
+ * format, and the card images as originals against thumbnails. Sizes are deterministic, so this is a plain program
+ * rather than a JMH benchmark.
+ *
+ * <pre>java -cp target/benchmarks.jar com.school.ecommerce.benchmark.ListingPayloadReport [pageSize]</pre>
+ */
+public final class ListingPayloadReport {
+
+    private ListingPayloadReport() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int pageSize = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("pageSize", pageSize);
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        long full = objectMapper.writeValueAsBytes(SerializationBenchmark.searchPage(pageSize, "full")).length;
+        long summary = objectMapper.writeValueAsBytes(SerializationBenchmark.searchPage(pageSize, "summary")).length;
+        json.put("full", full);
+        json.put("summary", summary);
+        json.put("saved", full - summary);
+        report.put("responseBytes", json);
+
+        Map<String, Object> formats = new LinkedHashMap<>();
+        for (String view : new String[] { "summary", "full" }) {
+            Map<String, Object> byFormat = new LinkedHashMap<>();
+            Object page = SerializationBenchmark.searchPage(pageSize, view);
+            for (String format : new String[] { "json", "smile", "cbor" }) {
+                byte[] body = SerializationBenchmark.mapper(format).writeValueAsBytes(page);
+                Map<String, Object> sizes = new LinkedHashMap<>();
+                sizes.put("raw", body.length);
+                sizes.put("gzip", SerializationBenchmark.gzip(body).length);
+                byFormat.put(format, sizes);
+            }
+            formats.put(view, byFormat);
+        }
+        report.put("wireBytes", formats);
+
+        report.put("cardImageBytes", imageBytes(pageSize));
+
+        System.out.println(objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report));
+        System.exit(0);
+    }
+
+    // One 1600x1200 product photo per card, shown either as the original or as its thumbnail
+    private static Map<String, Object> imageBytes(int pageSize) throws IOException, InterruptedException {
+        Path uploadDir = BenchmarkServices.tempDir("variants");
+        ImageVariantService variants = BenchmarkServices.imageVariantService(uploadDir);
+        Random random = new Random(SyntheticCatalog.DEFAULT_SEED);
+
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            String filename = "product-" + i + ".jpg";
+            writePhoto(syntheticPhoto(random), uploadDir.resolve(filename));
+            urls.add(ImageUploadService.URL_PREFIX + filename);
+        }
+        variants.generateAsync(urls);
+
+        long originals = 0;
+        long thumbnails = 0;
+        for (String url : urls) {
+            String thumbnail = awaitVariant(variants, url);
+            originals += Files.size(uploadDir.resolve(url.substring(url.lastIndexOf('/') + 1)));
+            thumbnails += Files.size(uploadDir.resolve(thumbnail.substring(thumbnail.lastIndexOf('/') + 1)));
+        }
+
+        Map<String, Object> images = new LinkedHashMap<>();
+        images.put("originals", originals);
+        images.put("thumbnails", thumbnails);
+        images.put("saved", originals - thumbnails);
+        return images;
+    }
+
+    private static String awaitVariant(ImageVariantService variants, String url) throws InterruptedException {
+        for (int attempt = 0; attempt < 600; attempt++) {
+            String thumbnail = variants.variantUrl(url, ImageVariantService.Variant.THUMB);
+            if (!thumbnail.equals(url)) {
+                return thumbnail;
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("No thumbnail generated for " + url);
+    }
+
+    // Gradients, shapes and mild noise, so JPEG sizes land near those of real photos
+    private static BufferedImage syntheticPhoto(Random random) {
+        BufferedImage image = new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(random.nextInt()), 1600, 1200, new Color(random.nextInt())));
+        g.fillRect(0, 0, 1600, 1200);
+        for (int shape = 0; shape < 40; shape++) {
+            g.setColor(new Color(random.nextInt(), true));
+            g.fillOval(random.nextInt(1600), random.nextInt(1200), 50 + random.nextInt(400), 50 + random.nextInt(400));
+        }
+        g.dispose();
+        for (int y = 0; y < 1200; y++) {
+            for (int x = 0; x < 1600; x++) {
+                int noise = random.nextInt(9) - 4;
+                int rgb = image.getRGB(x, y);
+                int r = clamp(((rgb >> 16) & 0xff) + noise);
+                int gr = clamp(((rgb >> 8) & 0xff) + noise);
+                int b = clamp((rgb & 0xff) + noise);
+                image.setRGB(x, y, (r << 16) | (gr << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    private static void writePhoto(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.92f);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.school.ecommerce.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.school.ecommerce.seed.ZipfDistribution;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays a weighted mix of storefront requests against a running backend
+ * (normally one started with the {@code seed} profile) and reports throughput
+ * and latency percentiles per operation.
+ *
+ * <p>Products and users are picked with the same Zipf skew the seeder uses, so
+ * popular products stay hot in caches the way they would in production. With
+ * {@code --rate} the driver runs open-loop: requests are scheduled at a fixed
+ * rate and latency is measured from the scheduled start, so a stalled server
+ * shows up in the percentiles instead of silently lowering the load.
+ *
+ * <pre>java -cp target/benchmarks.jar com.school.ecommerce.benchmark.LoadDriver --url=http://localhost:8080 --threads=32 --duration=60</pre>
+ */
+public final class LoadDriver {
+
+    enum Operation {
+        SEARCH, BROWSE, DETAIL, BATCH, TRENDING, FEATURED, SUGGEST, PLACE_ORDER, ORDER_HISTORY, LOGIN, PROFILE
+    }
+
+    private static final String DEFAULT_MIX = "search:20,browse:15,detail:25,batch:5,trending:5,featured:5,suggest:5,"
+            + "place_order:5,order_history:5,login:5,profile:5";
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final String productApi;
+    private final String password;
+    private final Map<Operation, Integer> mix;
+    private final int totalWeight;
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    private final List<String> productIds = new ArrayList<>();
+    private final List<String> categoryIds = new ArrayList<>();
+    private final List<String> searchTerms = new ArrayList<>();
+    private final List<String> userIds = new ArrayList<>();
+    private final List<String> userEmails = new ArrayList<>();
+    private ZipfDistribution productPopularity;
+    private ZipfDistribution userActivity;
+
+    private LoadDriver(String baseUrl, String productApi, String password, Map<Operation, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.productApi = productApi;
+        this.password = password;
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        resetHistograms();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        LoadDriver driver = new LoadDriver(
+                options.getOrDefault("url", "http://localhost:8080"),
+                options.getOrDefault("api", "/api/v2/products"),
+                options.getOrDefault("password", "password123"),
+                mix(options.getOrDefault("mix", DEFAULT_MIX)));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        driver.discover(Integer.parseInt(options.getOrDefault("products", "2000")),
+                Double.parseDouble(options.getOrDefault("popularity-exponent", "1.0")),
+                Double.parseDouble(options.getOrDefault("user-activity-exponent", "0.8")));
+
+        if (warmupSeconds > 0) {
+            driver.run(threads, warmupSeconds, rate, seed);
+            driver.resetHistograms();
+        }
+        long elapsedNanos = driver.run(threads, durationSeconds, rate, seed + 1);
+
+        Map<String, Object> report = driver.report(threads, rate, elapsedNanos);
+        String json = driver.objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report);
+        if (options.containsKey("out")) {
+            Files.writeString(Path.of(options.get("out")), json);
+        }
+        System.out.println(json);
+        System.exit(0);
+    }
+
+    // ==================== Discovery ====================
+
+    /**
+     * Reads the most viewed products, their categories and name words, and the
+     * users, so requests only reference data that exists.
+     */
+    private void discover(int productSample, double popularityExponent, double userActivityExponent)
+            throws IOException, InterruptedException {
+        Set<String> categories = new LinkedHashSet<>();
+        Set<String> terms = new LinkedHashSet<>();
+        int pageSize = 100;
+        for (int page = 1; productIds.size() < productSample; page++) {
+            JsonNode response = getJson(productApi + "/search?sortBy=popular&limit=" + pageSize + "&page=" + page);
+            JsonNode data = response.path("data");
+            for (JsonNode product : data) {
+                productIds.add(product.path("id").asText());
+                categories.add(product.path("categoryId").asText());
+                for (String word : product.path("name").asText().toLowerCase().split("\\s+")) {
+                    if (word.length() > 3 && word.chars().allMatch(Character::isLetter)) {
+                        terms.add(word);
+                    }
+                }
+            }
+            if (data.size() < pageSize) {
+                break;
+            }
+        }
+        for (JsonNode user : getJson("/api/users")) {
+            userIds.add(user.path("id").asText());
+            userEmails.add(user.path("email").asText());
+        }
+        if (productIds.isEmpty() || userIds.isEmpty()) {
+            throw new IllegalStateException("No products or users found at " + baseUrl
+                    + "; start the backend with the seed profile first");
+        }
+        categoryIds.addAll(categories);
+        searchTerms.addAll(terms);
+        productPopularity = new ZipfDistribution(productIds.size(), popularityExponent);
+        userActivity = new ZipfDistribution(userIds.size(), userActivityExponent);
+    }
+
+    // ==================== Load ====================
+
+    /** Runs the mix for the given time and returns the elapsed nanoseconds. */
+    private long run(int threads, int seconds, double rate, long seed) throws InterruptedException {
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.SECONDS.toNanos(seconds);
+        // Open loop: worker t sends slots t, t + threads, ... of a fixed schedule
+        long intervalNanos = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+        AtomicLong nextSlot = new AtomicLong();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(seed * 1_000 + t);
+            Thread worker = new Thread(() -> {
+                while (true) {
+                    long scheduled = intervalNanos > 0 ? started + nextSlot.getAndIncrement() * intervalNanos : System.nanoTime();
+                    if (scheduled >= deadline) {
+                        return;
+                    }
+                    long wait = scheduled - System.nanoTime();
+                    if (wait > 0) {
+                        try {
+                            TimeUnit.NANOSECONDS.sleep(wait);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    execute(pick(random), random, scheduled);
+                }
+            }, "load-driver-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - started;
+    }
+
+    private void execute(Operation operation, Random random, long scheduled) {
+        boolean failed;
+        try {
+            failed = send(request(operation, random)) >= 400;
+        } catch (IOException e) {
+            failed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled);
+        latencies.get(operation).recordValue(Math.min(micros, MAX_LATENCY_MICROS));
+        if (failed) {
+            errors.get(operation).increment();
+        }
+    }
+
+    private HttpRequest request(Operation operation, Random random) {
+        switch (operation) {
+            case SEARCH:
+                return get(productApi + "/search?search=" + encode(pick(random, searchTerms))
+                        + "&page=" + (1 + random.nextInt(3)));
+            case BROWSE:
+                String[] sorts = { "newest", "popular", "price_asc", "price_desc", "rating" };
+                return get(productApi + "/search?category=" + pick(random, categoryIds)
+                        + "&sortBy=" + sorts[random.nextInt(sorts.length)] + "&page=" + (1 + random.nextInt(5)));
+            case DETAIL:
+                return get(productApi + "/" + product(random) + "?track=true");
+            case BATCH:
+                List<String> ids = new ArrayList<>();
+                for (int i = 0; i < 12; i++) {
+                    ids.add(product(random));
+                }
+                return post(productApi + "/batch", ids);
+            case TRENDING:
+                return get(productApi + "/trending");
+            case FEATURED:
+                return get(productApi + "/featured");
+            case SUGGEST:
+                String term = pick(random, searchTerms);
+                return get(productApi + "/search/suggestions?q=" + encode(term.substring(0, 2 + random.nextInt(term.length() - 2))));
+            case PLACE_ORDER:
+                return post("/api/orders", Map.of("userId", user(random), "productId", product(random),
+                        "status", "PENDING"));
+            case ORDER_HISTORY:
+                return get("/api/orders/user/" + user(random));
+            case LOGIN:
+                return post("/api/auth/login", Map.of("email",
+                        userEmails.get(userActivity.sample(random)), "password", password));
+            case PROFILE:
+                return get("/api/users/" + user(random));
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    private Operation pick(Random random) {
+        int roll = random.nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty mix");
+    }
+
+    private String product(Random random) {
+        return productIds.get(productPopularity.sample(random));
+    }
+
+    private String user(Random random) {
+        return userIds.get(userActivity.sample(random));
+    }
+
+    // ==================== HTTP ====================
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private HttpRequest post(String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not serialize request body", e);
+        }
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        // Bodies are drained but not parsed, so client-side JSON work does not skew the numbers
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private JsonNode getJson(String path) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(get(path), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() >= 400) {
+            throw new IOException("GET " + path + " returned " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String pick(Random random, List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    // ==================== Report ====================
+
+    private void resetHistograms() {
+        for (Operation operation : mix.keySet()) {
+            latencies.put(operation, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    private Map<String, Object> report(int threads, double rate, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        Histogram all = new Histogram(MAX_LATENCY_MICROS, 3);
+        long allErrors = 0;
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Operation operation : mix.keySet()) {
+            Histogram histogram = latencies.get(operation);
+            long operationErrors = errors.get(operation).sum();
+            all.add(histogram);
+            allErrors += operationErrors;
+            operations.put(operation.name().toLowerCase(), summary(histogram, operationErrors, seconds));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("baseUrl", baseUrl);
+        report.put("productApi", productApi);
+        report.put("threads", threads);
+        report.put("mode", rate > 0 ? "open-loop @ " + rate + " req/s" : "closed-loop");
+        report.put("seconds", Math.round(seconds * 10) / 10.0);
+        report.put("total", summary(all, allErrors, seconds));
+        report.put("operations", operations);
+        return report;
+    }
+
+    private static Map<String, Object> summary(Histogram histogram, long errors, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", histogram.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("throughput", Math.round(histogram.getTotalCount() / seconds * 10) / 10.0);
+        Map<String, Object> millis = new LinkedHashMap<>();
+        for (double percentile : new double[] { 50, 90, 99, 99.9 }) {
+            millis.put("p" + (percentile % 1 == 0 ? String.valueOf((int) percentile) : String.valueOf(percentile)),
+                    histogram.getValueAtPercentile(percentile) / 1000.0);
+        }
+        millis.put("max", histogram.getMaxValue() / 1000.0);
+        summary.put("latencyMs", millis);
+        return summary;
+    }
+
+    // ==================== Options ====================
+
+    static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int equals = arg.indexOf('=');
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    /** Parses {@code operation:weight,...}; operations left out are not sent. */
+    private static Map<Operation, Integer> mix(String spec) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            int weight = Integer.parseInt(parts[1]);
+            if (weight > 0) {
+                mix.put(Operation.valueOf(parts[0].toUpperCase()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one operation with a positive weight");
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,298 @@
+package com.school.ecommerce.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.school.ecommerce.dto.CheckoutRequestDTO;
+import com.school.ecommerce.event.OrderStatusChangedEvent;
+import com.school.ecommerce.exception.ConflictException;
+import com.school.ecommerce.model.Inventory;
+import com.school.ecommerce.model.Order;
+import com.school.ecommerce.model.Product;
+import com.school.ecommerce.model.Reservation;
+import com.school.ecommerce.repository.OrderRepository;
+import com.school.ecommerce.service.OrderService;
+import com.school.ecommerce.service.QueryCountCache;
+import com.school.ecommerce.service.StockReservations;
+import com.school.ecommerce.service.impl.OrderServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.HdrHistogram.Histogram;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent status changes on the same orders, checking that no history entry
+ * is lost, no order takes two paths out of one status and every status change
+ * publishes exactly one event. Three rounds, printed as JSON:
+ * <ul>
+ * <li>{@code race}: {@code --orders} pending orders, each hit at the same
+ *     instant by a ship, a cancel, a deliver and a note. Every successful call
+ *     must leave exactly one history entry, shipping and cancelling must never
+ *     both succeed, cancelled orders must hand their stock back once and
+ *     only pending orders may still count as reserved;</li>
+ * <li>{@code sameTarget}: {@code --orders} pending orders, each shipped by
+ *     four calls at the same instant. All succeed and leave their note, but
+ *     only one status event per order is published;</li>
+ * <li>{@code history}: note latency on an order with one history entry against
+ *     one with {@code --history} entries, which should be about the same.</li>
+ * </ul>
+ * Runs on an in-process mongo-java-server unless {@code --mongo} names a real
+ * server; only a real server gives meaningful {@code history} timings. Exits 1
+ * when any check of the {@code race} or {@code sameTarget} round fails.
+ *
+ * <pre>java -cp target/benchmarks.jar com.school.ecommerce.benchmark.OrderTransitionStressTest --orders=200 --history=10000</pre>
+ */
+public final class OrderTransitionStressTest {
+
+    private static final String SKU = "transition-sku";
+    private static final Order.Status[] CONTENDERS = {
+            Order.Status.SHIPPED, Order.Status.CANCELLED, Order.Status.DELIVERED, Order.Status.PENDING };
+    private static final int SAME_TARGET_CALLS = 4;
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderService orderService;
+    private final int orders;
+    // Status events published per order
+    private final Map<String, AtomicInteger> statusEvents = new ConcurrentHashMap<>();
+    private boolean failed;
+
+    private OrderTransitionStressTest(MongoTemplate mongoTemplate, int orders) {
+        this.mongoTemplate = mongoTemplate;
+        OrderRepository repository = new MongoRepositoryFactory(mongoTemplate).getRepository(OrderRepository.class);
+        StockReservations reservations = new StockReservations(mongoTemplate, new SimpleMeterRegistry(), 900, 500, 256);
+        this.orderService = new OrderServiceImpl(repository, reservations, mongoTemplate,
+                new QueryCountCache(mongoTemplate, 60, 1000), event -> statusEvents.computeIfAbsent(
+                        ((OrderStatusChangedEvent) event).getOrderId(), id -> new AtomicInteger()).incrementAndGet(),
+                100, 100);
+        this.orders = orders;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadDriver.options(args);
+        MongoTemplate mongoTemplate = BenchmarkServices.mongoTemplate(options.get("mongo"), "order_transition_stress");
+        for (Class<?> collection : List.of(Product.class, Inventory.class, Reservation.class, Order.class)) {
+            if (mongoTemplate.collectionExists(collection)) {
+                mongoTemplate.dropCollection(collection);
+            }
+        }
+
+        OrderTransitionStressTest test = new OrderTransitionStressTest(mongoTemplate,
+                Integer.parseInt(options.getOrDefault("orders", "200")));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("orders", test.orders);
+        report.put("race", test.race());
+        report.put("sameTarget", test.sameTarget());
+        report.put("history", test.history(Integer.parseInt(options.getOrDefault("history", "10000"))));
+        report.put("passed", !test.failed);
+
+        System.out.println(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report));
+        System.exit(test.failed ? 1 : 0);
+    }
+
+    private Map<String, Object> race() throws InterruptedException {
+        mongoTemplate.upsert(new Query(Criteria.where("productId").is(SKU)), new Update().set("stock", orders),
+                Inventory.class);
+        Product product = new Product();
+        product.setId(SKU);
+        product.setName("Transition stress product");
+        product.setPrice(9.99);
+        mongoTemplate.save(product);
+        List<String> orderIds = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            orderIds.add(orderService.checkout(cart("buyer-" + i)).getId());
+        }
+
+        // One thread per (order, contender), all released together
+        int[][] succeeded = new int[orders][CONTENDERS.length];
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>(orders * CONTENDERS.length);
+        for (int o = 0; o < orders; o++) {
+            for (int c = 0; c < CONTENDERS.length; c++) {
+                int order = o;
+                int contender = c;
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                        orderService.updateStatus(orderIds.get(order), CONTENDERS[contender].name(), "stress");
+                        succeeded[order][contender] = 1;
+                    } catch (ConflictException e) {
+                        rejected.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Map<String, Object> round = new LinkedHashMap<>();
+        round.put("updates", orders * CONTENDERS.length);
+        round.put("rejected", rejected.get());
+        round.put("elapsedMillis", (System.nanoTime() - started) / 1_000_000);
+        check(round, "errors", errors.get(), 0);
+
+        int lostEntries = 0;
+        int shippedAndCancelled = 0;
+        int wrongStatus = 0;
+        int cancelled = 0;
+        int pending = 0;
+        int statusChanges = 0;
+        int events = 0;
+        for (int o = 0; o < orders; o++) {
+            Order order = mongoTemplate.findById(orderIds.get(o), Order.class);
+            int[] wins = succeeded[o];
+            int expectedHistory = 1 + wins[0] + wins[1] + wins[2] + wins[3];
+            lostEntries += Math.abs(order.getHistoryUpdates().size() - expectedHistory);
+            shippedAndCancelled += wins[0] & wins[1];
+            Order.Status expected = wins[1] == 1 ? Order.Status.CANCELLED
+                    : wins[2] == 1 ? Order.Status.DELIVERED
+                    : wins[0] == 1 ? Order.Status.SHIPPED
+                    : Order.Status.PENDING;
+            wrongStatus += order.getStatus() == expected ? 0 : 1;
+            cancelled += wins[1];
+            pending += expected == Order.Status.PENDING ? 1 : 0;
+            // The PENDING contender only adds a note
+            statusChanges += wins[0] + wins[1] + wins[2];
+            events += events(orderIds.get(o));
+        }
+        check(round, "lostHistoryEntries", lostEntries, 0);
+        check(round, "shippedAndCancelled", shippedAndCancelled, 0);
+        check(round, "wrongFinalStatus", wrongStatus, 0);
+        check(round, "statusEvents", events, statusChanges);
+        round.put("cancelled", cancelled);
+        Inventory inventory = inventory();
+        check(round, "stockAfterCancels", inventory.getStock(), cancelled);
+        // Shipping fulfils an order's reservations, so only pending orders still hold units
+        check(round, "reservedByPending", inventory.getReserved(), pending);
+        return round;
+    }
+
+    private Map<String, Object> sameTarget() throws InterruptedException {
+        mongoTemplate.updateFirst(new Query(Criteria.where("productId").is(SKU)), new Update().inc("stock", orders),
+                Inventory.class);
+        int reservedBefore = inventory().getReserved();
+        List<String> orderIds = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            orderIds.add(orderService.checkout(cart("same-target-" + i)).getId());
+        }
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>(orders * SAME_TARGET_CALLS);
+        for (String orderId : orderIds) {
+            for (int c = 0; c < SAME_TARGET_CALLS; c++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                        orderService.updateStatus(orderId, Order.Status.SHIPPED.name(), "ship");
+                        succeeded.incrementAndGet();
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Map<String, Object> round = new LinkedHashMap<>();
+        round.put("updates", orders * SAME_TARGET_CALLS);
+        round.put("elapsedMillis", (System.nanoTime() - started) / 1_000_000);
+        check(round, "failed", failures.get(), 0);
+        check(round, "succeeded", succeeded.get(), orders * SAME_TARGET_CALLS);
+        int lostEntries = 0;
+        int events = 0;
+        for (String orderId : orderIds) {
+            Order order = mongoTemplate.findById(orderId, Order.class);
+            lostEntries += Math.abs(order.getHistoryUpdates().size() - (1 + SAME_TARGET_CALLS));
+            events += events(orderId);
+        }
+        check(round, "lostHistoryEntries", lostEntries, 0);
+        check(round, "statusEvents", events, orders);
+        // Each order's reservation is fulfilled once, by the call that shipped it
+        check(round, "reservedAfterShips", inventory().getReserved(), reservedBefore);
+        return round;
+    }
+
+    private Map<String, Object> history(int entries) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("productId").is(SKU)), new Update().inc("stock", 2),
+                Inventory.class);
+        String shortId = orderService.checkout(cart("short-history")).getId();
+        String longId = orderService.checkout(cart("long-history")).getId();
+        List<Order.UpdateHistory> history = new ArrayList<>(Collections.nCopies(entries,
+                new Order.UpdateHistory("Padding", Instant.now())));
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(longId)),
+                new Update().push("historyUpdates").each(history.toArray()), Order.class);
+
+        Map<String, Object> round = new LinkedHashMap<>();
+        round.put("entries", entries);
+        round.put("shortHistoryP50Micros", noteLatency(shortId).getValueAtPercentile(50));
+        round.put("longHistoryP50Micros", noteLatency(longId).getValueAtPercentile(50));
+        return round;
+    }
+
+    private Histogram noteLatency(String orderId) {
+        Histogram latency = new Histogram(TimeUnit.SECONDS.toMicros(10), 3);
+        for (int i = 0; i < 200; i++) {
+            long started = System.nanoTime();
+            orderService.updateStatus(orderId, Order.Status.PENDING.name(), "note " + i);
+            latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+        }
+        return latency;
+    }
+
+    private int events(String orderId) {
+        AtomicInteger count = statusEvents.get(orderId);
+        return count == null ? 0 : count.get();
+    }
+
+    private Inventory inventory() {
+        return mongoTemplate.findOne(new Query(Criteria.where("productId").is(SKU)), Inventory.class);
+    }
+
+    private static CheckoutRequestDTO cart(String userId) {
+        CheckoutRequestDTO.ItemDTO item = new CheckoutRequestDTO.ItemDTO();
+        item.setProductId(SKU);
+        item.setQuantity(1);
+        CheckoutRequestDTO cart = new CheckoutRequestDTO();
+        cart.setUserId(userId);
+        cart.setItems(List.of(item));
+        return cart;
+    }
+
+    private void check(Map<String, Object> round, String name, long actual, long expected) {
+        round.put(name, actual);
+        if (actual != expected) {
+            round.put(name + "Expected", expected);
+            failed = true;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.school.ecommerce.benchmark;
+
+import com.school.ecommerce.dto.ProductFilterDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductFilterDTO.Builder as used by ProductControllerV2.search, against
+ * plain setters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductFilterBuilderBenchmark {
+
+    public String search = "wireless";
+    public List<String> platforms = List.of("Amazon", "Flipkart");
+
+    @Benchmark
+    public ProductFilterDTO builder() {
+        return ProductFilterDTO.builder()
+                .search(search)
+                .category("category-3")
+                .minPrice(10.0)
+                .maxPrice(500.0)
+                .platforms(platforms)
+                .hasExternalLinks(true)
+                .sortBy("price_asc")
+                .page(2)
+                .limit(24)
+                .pagination("cursor")
+                .view("summary")
+                .build();
+    }
+
+    @Benchmark
+    public ProductFilterDTO setters() {
+        ProductFilterDTO filter = new ProductFilterDTO();
+        filter.setSearch(search);
+        filter.setCategory("category-3");
+        filter.setMinPrice(10.0);
+        filter.setMaxPrice(500.0);
+        filter.setPlatforms(platforms);
+        filter.setHasExternalLinks(true);
+        filter.setSortBy("price_asc");
+        filter.setPage(2);
+        filter.setLimit(24);
+        filter.setPagination("cursor");
+        filter.setView("summary");
+        return filter;
+    }
+}
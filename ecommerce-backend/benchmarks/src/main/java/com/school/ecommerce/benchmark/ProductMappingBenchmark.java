@@ -0,0 +1,58 @@
+package com.school.ecommerce.benchmark;
+
+import com.school.ecommerce.dto.ProductSummaryDTO;
+import com.school.ecommerce.model.Product;
+import com.school.ecommerce.search.RegexSearchEngine;
+import com.school.ecommerce.seed.SyntheticCatalog;
+import com.school.ecommerce.service.ProductServiceV2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Product to DTO mapping (ProductServiceV2.convertToDTO and the summary
+ * mapping), measured through the batch lookup so it runs the production code
+ * path unchanged.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductMappingBenchmark {
+
+    @Param({ "12", "100" })
+    public int batchSize;
+
+    @Param({ "summary", "full" })
+    public String view;
+
+    private ProductServiceV2 productService;
+    private List<String> ids;
+
+    @Setup
+    public void setUp() {
+        List<Product> products = SyntheticCatalog.products(batchSize);
+        productService = BenchmarkServices.productService(new InMemoryMongoTemplate(products),
+                new RegexSearchEngine());
+        ids = products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ProductSummaryDTO> convertBatch() {
+        return productService.getProductsByIds(ids, view);
+    }
+}
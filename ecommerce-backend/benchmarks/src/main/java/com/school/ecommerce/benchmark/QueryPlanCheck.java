@@ -0,0 +1,230 @@
+package com.school.ecommerce.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.school.ecommerce.dto.ProductFilterDTO;
+import com.school.ecommerce.index.MongoIndexInitializer;
+import com.school.ecommerce.model.Inventory;
+import com.school.ecommerce.model.Order;
+import com.school.ecommerce.model.Product;
+import com.school.ecommerce.model.ProductAnalytics;
+import com.school.ecommerce.model.Reservation;
+import com.school.ecommerce.model.Review;
+import com.school.ecommerce.model.Shipping;
+import com.school.ecommerce.model.User;
+import com.school.ecommerce.search.SearchQueryLog;
+import com.school.ecommerce.service.ProductCollectionCache.ProductCollection;
+import com.school.ecommerce.service.ProductSearchCursor;
+import com.school.ecommerce.service.ProductServiceV2;
+import com.school.ecommerce.service.StockReservations;
+import com.school.ecommerce.service.impl.InventoryServiceImpl;
+import com.school.ecommerce.service.impl.OrderServiceImpl;
+import com.school.ecommerce.service.impl.ReviewServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs {@code explain} on the queries the application issues and fails when a
+ * winning plan still scans a whole collection. The queries come from the
+ * services' own builders, sort, limit and projection included, so a change to
+ * a query shape is checked without touching this class; only lookups done by
+ * derived repository finders are written out here. The values are
+ * placeholders, since only the shape matters to the planner.
+ * <p>
+ * Needs a real MongoDB ({@code --mongo}): the in-process server has no
+ * {@code explain}. With {@code --build} (the default) the indexes of
+ * IndexCatalog are created first, as the application does on startup.
+ * Prints one JSON entry per query and exits 1 on any collection scan.
+ *
+ * <pre>java -cp target/benchmarks.jar com.school.ecommerce.benchmark.QueryPlanCheck --mongo=mongodb://localhost:27017 --database=ecommerce</pre>
+ */
+public final class QueryPlanCheck {
+
+    private final MongoTemplate mongoTemplate;
+    private final QueryMapper queryMapper;
+    private final Map<String, Object> plans = new LinkedHashMap<>();
+    private boolean failed;
+
+    private QueryPlanCheck(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        this.queryMapper = new QueryMapper(mongoTemplate.getConverter());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadDriver.options(args);
+        if (options.get("mongo") == null) {
+            System.err.println("--mongo=<uri> is required: explain is not available in-process");
+            System.exit(2);
+        }
+        MongoTemplate mongoTemplate = BenchmarkServices.mongoTemplate(options.get("mongo"),
+                options.getOrDefault("database", "ecommerce"));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        if (Boolean.parseBoolean(options.getOrDefault("build", "true"))) {
+            report.put("indexesFailed", new MongoIndexInitializer(mongoTemplate, false).buildAll());
+        }
+
+        QueryPlanCheck check = new QueryPlanCheck(mongoTemplate);
+        check.products(BenchmarkServices.productService(mongoTemplate, null));
+        check.orders();
+        check.inventory();
+        check.reservations();
+        check.reviews();
+        check.searchQueries(new SearchQueryLog(mongoTemplate, new SimpleMeterRegistry(), 10_000, 2, 64, 3, 30));
+        check.finders();
+
+        report.put("plans", check.plans);
+        report.put("passed", !check.failed);
+        System.out.println(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report));
+        System.exit(check.failed ? 1 : 0);
+    }
+
+    private void products(ProductServiceV2 products) {
+        for (String sortBy : List.of("newest", "price_asc", "price_desc", "rating", "popular", "name_asc",
+                "name_desc")) {
+            ProductFilterDTO filter = new ProductFilterDTO();
+            filter.setSortBy(sortBy);
+            explain("products sorted by " + sortBy, products.listingQuery(filter), Product.class);
+        }
+
+        // Listed with the default sort, as the endpoint does when sortBy is not given
+        ProductFilterDTO categoryAndPrice = new ProductFilterDTO();
+        categoryAndPrice.setCategory("c");
+        categoryAndPrice.setMinPrice(0.0);
+        categoryAndPrice.setMaxPrice(100.0);
+        explain("products by category and price", products.listingQuery(categoryAndPrice), Product.class);
+
+        ProductFilterDTO platforms = new ProductFilterDTO();
+        platforms.setPlatforms(List.of("p"));
+        explain("products by platform", products.listingQuery(platforms), Product.class);
+
+        ProductFilterDTO nextPage = new ProductFilterDTO();
+        nextPage.setPagination("cursor");
+        nextPage.setCursor(new ProductSearchCursor("newest", new Date(), new ObjectId(), 0).encode());
+        explain("products next cursor page", products.listingQuery(nextPage), Product.class);
+
+        for (ProductCollection collection : ProductCollection.values()) {
+            explain("collection " + collection, products.collectionQuery(collection, 20), Product.class);
+        }
+    }
+
+    private void orders() {
+        explain("orders by user", OrderServiceImpl.pageQuery("u", null, null, null, 20), Order.class);
+        explain("orders by user and date", OrderServiceImpl.pageQuery("u", null,
+                new ObjectId(Date.from(Instant.now().minus(30, ChronoUnit.DAYS))), new ObjectId(), 20), Order.class);
+        explain("orders by status", OrderServiceImpl.pageQuery(null, Order.Status.PENDING, null, null, 20),
+                Order.class);
+    }
+
+    private void inventory() {
+        explain("inventory batch", InventoryServiceImpl.batchQuery(List.of("p1", "p2")), Inventory.class);
+    }
+
+    private void reservations() {
+        explain("stale reservations", StockReservations.staleQuery(Instant.now(), 500), Reservation.class);
+        explain("reservations by order",
+                StockReservations.byOrder("o", List.of(Reservation.Status.ACTIVE, Reservation.Status.COMMITTED)),
+                Reservation.class);
+    }
+
+    private void reviews() {
+        explain("reviews by product", ReviewServiceImpl.pageQuery("p", null, 20), Review.class);
+        explain("reviews next page", ReviewServiceImpl.pageQuery("p", new ObjectId(), 20), Review.class);
+    }
+
+    private void searchQueries(SearchQueryLog queryLog) {
+        explain("popular search queries", queryLog.popularQuery(null, 20), null, "search_queries");
+    }
+
+    // Derived repository finders build their query from the method name, so these are written out
+    private void finders() {
+        explain("inventory by product", new Query(Criteria.where("productId").is("p")), Inventory.class);
+        explain("analytics by product", new Query(Criteria.where("productId").is("p")), ProductAnalytics.class);
+        explain("orders by product", new Query(Criteria.where("productId").is("p")), Order.class);
+        explain("reviews all by product", new Query(Criteria.where("productId").is("p")), Review.class);
+        explain("shipping by order", new Query(Criteria.where("orderId").is("o")), Shipping.class);
+        explain("user by email", new Query(Criteria.where("email").is("e")), User.class);
+    }
+
+    private void explain(String name, Query query, Class<?> type) {
+        explain(name, query, type, mongoTemplate.getCollectionName(type));
+    }
+
+    // Maps the query as MongoTemplate.find would (field names, enum and id conversion) before explaining it
+    private void explain(String name, Query query, Class<?> type, String collection) {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntity<?> entity = type != null ? mappingContext.getPersistentEntity(type) : null;
+
+        Document find = new Document("find", collection)
+                .append("filter", queryMapper.getMappedObject(query.getQueryObject(), entity));
+        if (query.isSorted()) {
+            find.append("sort", queryMapper.getMappedSort(query.getSortObject(), entity));
+        }
+        if (!query.getFieldsObject().isEmpty()) {
+            find.append("projection", queryMapper.getMappedFields(query.getFieldsObject(), entity));
+        }
+        if (query.getSkip() > 0) {
+            find.append("skip", query.getSkip());
+        }
+        if (query.isLimited()) {
+            find.append("limit", query.getLimit());
+        }
+
+        Document result = mongoTemplate.getDb()
+                .runCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+        Document winningPlan = result.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+
+        List<String> stages = new ArrayList<>();
+        List<String> indexes = new ArrayList<>();
+        collect(winningPlan, stages, indexes);
+        boolean collectionScan = stages.contains("COLLSCAN");
+
+        Map<String, Object> plan = new LinkedHashMap<>();
+        plan.put("collection", collection);
+        plan.put("filter", find.get("filter", Document.class).toJson());
+        plan.put("sort", find.containsKey("sort") ? find.get("sort", Document.class).toJson() : null);
+        plan.put("stages", stages);
+        plan.put("indexes", indexes);
+        plan.put("collectionScan", collectionScan);
+        plans.put(name, plan);
+        if (collectionScan) {
+            failed = true;
+        }
+    }
+
+    // Walks inputStage/inputStages, and the queryPlan wrapper used by the slot-based engine
+    private static void collect(Object node, List<String> stages, List<String> indexes) {
+        if (node instanceof Map<?, ?> stage) {
+            if (stage.get("stage") instanceof String name) {
+                stages.add(name);
+            }
+            if (stage.get("indexName") instanceof String indexName) {
+                indexes.add(indexName);
+            }
+            for (Object child : stage.values()) {
+                if (child instanceof Map || child instanceof List) {
+                    collect(child, stages, indexes);
+                }
+            }
+        } else if (node instanceof List<?> children) {
+            children.forEach(child -> collect(child, stages, indexes));
+        }
+    }
+}
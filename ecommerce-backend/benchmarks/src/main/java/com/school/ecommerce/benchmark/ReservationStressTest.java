@@ -0,0 +1,255 @@
+package com.school.ecommerce.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.school.ecommerce.exception.ConflictException;
+import com.school.ecommerce.model.Inventory;
+import com.school.ecommerce.model.Reservation;
+import com.school.ecommerce.service.StockReservations;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Many buyers reserving one SKU at the same instant, checking that exactly the
+ * stock on hand is sold and never more. Four rounds, each printed as JSON:
+ * <ul>
+ * <li>{@code rush}: {@code --buyers} buyers race for {@code --stock} units;</li>
+ * <li>{@code cancel}: half the winners release while a second crowd buys, so
+ *     only the released units can be sold again;</li>
+ * <li>{@code expiry}: reservations left past their TTL are swept back into
+ *     stock and can no longer be committed;</li>
+ * <li>{@code carts}: {@code --buyers} whole-cart checkouts of three of five
+ *     SKUs each; every SKU must end with its units either sold (and counted as
+ *     reserved) or in stock, and a short cart must take nothing.</li>
+ * </ul>
+ * Runs on an in-process mongo-java-server unless {@code --mongo} names a real
+ * server; use a real one for timings. Exits 1 when any check fails.
+ *
+ * <pre>java -cp target/benchmarks.jar com.school.ecommerce.benchmark.ReservationStressTest --buyers=1000 --stock=100</pre>
+ */
+public final class ReservationStressTest {
+
+    private static final String SKU = "stress-sku";
+
+    private final MongoTemplate mongoTemplate;
+    private final StockReservations reservations;
+    private final int buyers;
+    private final int stock;
+    private boolean failed;
+
+    private ReservationStressTest(MongoTemplate mongoTemplate, int buyers, int stock, int stripes) {
+        this.mongoTemplate = mongoTemplate;
+        this.reservations = new StockReservations(mongoTemplate, new SimpleMeterRegistry(), 900, 500, stripes);
+        this.buyers = buyers;
+        this.stock = stock;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadDriver.options(args);
+        MongoTemplate mongoTemplate = BenchmarkServices.mongoTemplate(options.get("mongo"), "reservation_stress");
+        for (Class<?> collection : List.of(Inventory.class, Reservation.class)) {
+            if (mongoTemplate.collectionExists(collection)) {
+                mongoTemplate.dropCollection(collection);
+            }
+        }
+
+        ReservationStressTest test = new ReservationStressTest(mongoTemplate,
+                Integer.parseInt(options.getOrDefault("buyers", "1000")),
+                Integer.parseInt(options.getOrDefault("stock", "100")),
+                Integer.parseInt(options.getOrDefault("stripes", "256")));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("buyers", test.buyers);
+        report.put("stock", test.stock);
+        report.put("rush", test.rush());
+        report.put("cancel", test.cancel());
+        report.put("expiry", test.expiry());
+        report.put("carts", test.carts());
+        report.put("passed", !test.failed);
+
+        System.out.println(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report));
+        System.exit(test.failed ? 1 : 0);
+    }
+
+    private Map<String, Object> rush() throws InterruptedException {
+        setStock(SKU, stock);
+        Outcome outcome = new Outcome();
+        race(outcome, buyers, i -> outcome.reserved.add(reservations.reserve(SKU, 1, null)));
+        Map<String, Object> round = outcome.report();
+        check(round, "errors", outcome.errors.get(), 0);
+        check(round, "reserved", outcome.reserved.size(), stock);
+        check(round, "finalStock", stock(SKU), 0);
+        return round;
+    }
+
+    private Map<String, Object> cancel() throws InterruptedException {
+        List<Reservation> held = reservations();
+        Collections.shuffle(held);
+        List<Reservation> cancelled = held.subList(0, held.size() / 2);
+        cancelled.forEach(r -> reservations.commit(r.getId()));
+
+        // Releases and new buyers interleave; buyers only ever see released units
+        Outcome outcome = new Outcome();
+        race(outcome, cancelled.size() + buyers, i -> {
+            if (i < cancelled.size()) {
+                reservations.release(cancelled.get(i).getId());
+            } else {
+                outcome.reserved.add(reservations.reserve(SKU, 1, null));
+            }
+        });
+        Map<String, Object> round = outcome.report();
+        check(round, "errors", outcome.errors.get(), 0);
+        round.put("released", cancelled.size());
+        // A late release may land after every buyer gave up, leaving units in stock
+        int inStock = stock(SKU);
+        check(round, "soldPlusInStock", outcome.reserved.size() + inStock, cancelled.size());
+        check(round, "openPlusInStock", reservations().size() + inStock, stock);
+        check(round, "reservedIsOpen", inventory(SKU).getReserved(), reservations().size());
+        return round;
+    }
+
+    private Map<String, Object> expiry() throws InterruptedException {
+        String sku = SKU + "-expiry";
+        setStock(sku, stock);
+        StockReservations shortLived = new StockReservations(mongoTemplate, new SimpleMeterRegistry(), 1, 500, 16);
+        Outcome outcome = new Outcome();
+        race(outcome, stock, i -> outcome.reserved.add(shortLived.reserve(sku, 1, null)));
+
+        Thread.sleep(1500);
+        shortLived.expireStale();
+
+        Map<String, Object> round = outcome.report();
+        check(round, "errors", outcome.errors.get(), 0);
+        check(round, "stockAfterSweep", stock(sku), stock);
+        check(round, "reservedAfterSweep", inventory(sku).getReserved(), 0);
+        int committed = 0;
+        for (Reservation reservation : outcome.reserved) {
+            try {
+                shortLived.commit(reservation.getId());
+                committed++;
+            } catch (ConflictException expected) {
+                // expired
+            }
+        }
+        check(round, "committedAfterExpiry", committed, 0);
+        return round;
+    }
+
+    private Map<String, Object> carts() throws InterruptedException {
+        List<String> skus = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            skus.add(SKU + "-cart-" + i);
+            setStock(skus.get(i), stock);
+        }
+        Outcome outcome = new Outcome();
+        race(outcome, buyers, i -> {
+            List<String> cart = new ArrayList<>(skus);
+            Collections.shuffle(cart, new Random(i));
+            Map<String, Integer> quantities = new HashMap<>();
+            cart.subList(0, 3).forEach(sku -> quantities.put(sku, 1 + i % 2));
+            outcome.reserved.addAll(reservations.reserveAll(quantities, "order-" + i));
+        });
+
+        Map<String, Object> round = outcome.report();
+        check(round, "errors", outcome.errors.get(), 0);
+        long unaccounted = 0;
+        for (String sku : skus) {
+            int sold = outcome.reserved.stream()
+                    .filter(r -> r.getProductId().equals(sku))
+                    .mapToInt(Reservation::getQuantity)
+                    .sum();
+            Inventory inventory = inventory(sku);
+            unaccounted += Math.abs(stock - sold - inventory.getStock()) + Math.abs(sold - inventory.getReserved());
+        }
+        check(round, "unaccountedUnits", unaccounted, 0);
+        check(round, "leftoverHolds", mongoTemplate.count(
+                new Query(Criteria.where("holds.0").exists(true)), Inventory.class), 0);
+        return round;
+    }
+
+    // ==================== HARNESS ====================
+
+    private static final class Outcome {
+        final List<Reservation> reserved = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger rejected = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        long elapsedMillis;
+
+        Map<String, Object> report() {
+            Map<String, Object> round = new LinkedHashMap<>();
+            round.put("reserved", reserved.size());
+            round.put("rejected", rejected.get());
+            round.put("errors", errors.get());
+            round.put("elapsedMillis", elapsedMillis);
+            return round;
+        }
+    }
+
+    // Starts one thread per task and releases them together
+    private static void race(Outcome outcome, int tasks, IntConsumer task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    task.accept(index);
+                } catch (ConflictException e) {
+                    outcome.rejected.incrementAndGet();
+                } catch (Exception e) {
+                    outcome.errors.incrementAndGet();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        outcome.elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+    }
+
+    private void check(Map<String, Object> round, String name, long actual, long expected) {
+        round.put(name, actual);
+        if (actual != expected) {
+            round.put(name + "Expected", expected);
+            failed = true;
+        }
+    }
+
+    private void setStock(String sku, int units) {
+        mongoTemplate.upsert(new Query(Criteria.where("productId").is(sku)), new Update().set("stock", units),
+                Inventory.class);
+    }
+
+    private int stock(String sku) {
+        return inventory(sku).getStock();
+    }
+
+    private Inventory inventory(String sku) {
+        return mongoTemplate.findOne(new Query(Criteria.where("productId").is(sku)), Inventory.class);
+    }
+
+    private List<Reservation> reservations() {
+        return new ArrayList<>(mongoTemplate.find(new Query(Criteria.where("productId").is(SKU)
+                .and("status").in(Reservation.Status.ACTIVE, Reservation.Status.COMMITTED)), Reservation.class));
+    }
+}
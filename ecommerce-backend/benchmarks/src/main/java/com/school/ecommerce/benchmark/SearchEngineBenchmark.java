@@ -0,0 +1,83 @@
+package com.school.ecommerce.benchmark;
+
+import com.school.ecommerce.model.Product;
+import com.school.ecommerce.search.InvertedIndex;
+import com.school.ecommerce.seed.SyntheticCatalog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Candidate lookup for a search term: the {@link InvertedIndex} against a
+ * case-insensitive regex over every name and description, which is the work
+ * a Mongo collection scan does for the regex engine, minus the I/O. The regex
+ * numbers are therefore a lower bound for the regex path. The regex engine
+ * matches a multi-word query as one phrase and the index matches every word,
+ * so the two match sets differ for those queries. Sample mode reports
+ * p50/p99. The 1M catalog needs a large heap, e.g. -jvmArgsAppend -Xmx8g.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchEngineBenchmark {
+
+    private static final int MAX_CANDIDATES = 10_000;
+
+    @Param({ "10000", "100000", "1000000" })
+    public int catalogSize;
+
+    @Param({ "kettle", "wireless head", "acme portable speaker" })
+    public String query;
+
+    private InvertedIndex index;
+    private String[] names;
+    private String[] descriptions;
+    private Pattern pattern;
+
+    @Setup
+    public void setUp() {
+        index = new InvertedIndex();
+        names = new String[catalogSize];
+        descriptions = new String[catalogSize];
+
+        int[] position = { 0 };
+        SyntheticCatalog.stream(catalogSize, SyntheticCatalog.DEFAULT_SEED).forEach((Product product) -> {
+            index.put(product.getId(), product.getName(), product.getDescription());
+            names[position[0]] = product.getName();
+            descriptions[position[0]] = product.getDescription();
+            position[0]++;
+        });
+        pattern = Pattern.compile(Pattern.quote(query), Pattern.CASE_INSENSITIVE);
+    }
+
+    @Benchmark
+    public Map<String, Double> invertedIndex() {
+        return index.search(query, MAX_CANDIDATES);
+    }
+
+    @Benchmark
+    public int regexScan() {
+        int matches = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (pattern.matcher(names[i]).find() || pattern.matcher(descriptions[i]).find()) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,75 @@
+package com.school.ecommerce.benchmark;
+
+import com.school.ecommerce.dto.PaginatedResponseDTO;
+import com.school.ecommerce.dto.ProductFilterDTO;
+import com.school.ecommerce.dto.ProductSummaryDTO;
+import com.school.ecommerce.model.Product;
+import com.school.ecommerce.search.InvertedIndexSearchEngine;
+import com.school.ecommerce.seed.SyntheticCatalog;
+import com.school.ecommerce.service.ProductServiceV2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductServiceV2.searchProducts end to end on the Java side: filter
+ * parsing, search-engine lookup, Mongo query building, cursor encoding and
+ * DTO mapping. The in-memory template returns a page of the catalog for any
+ * query, so database time is excluded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchQueryBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    @Param({ "", "wireless headphones" })
+    public String search;
+
+    @Param({ "newest", "price_asc", "relevance" })
+    public String sortBy;
+
+    @Param({ "page", "cursor" })
+    public String pagination;
+
+    private ProductServiceV2 productService;
+
+    @Setup
+    public void setUp() {
+        List<Product> products = SyntheticCatalog.products(CATALOG_SIZE);
+        InMemoryMongoTemplate mongoTemplate = new InMemoryMongoTemplate(products);
+        InvertedIndexSearchEngine searchEngine = new InvertedIndexSearchEngine(mongoTemplate, 10_000, 100_000);
+        searchEngine.rebuild();
+        productService = BenchmarkServices.productService(mongoTemplate, searchEngine);
+    }
+
+    @Benchmark
+    public PaginatedResponseDTO<ProductSummaryDTO> searchProducts() {
+        ProductFilterDTO filter = ProductFilterDTO.builder()
+                .search(search.isEmpty() ? null : search)
+                .category("category-3")
+                .minPrice(10.0)
+                .maxPrice(500.0)
+                .sortBy(sortBy)
+                .page(3)
+                .limit(12)
+                .pagination(pagination)
+                .build();
+        return productService.searchProducts(filter);
+    }
+}
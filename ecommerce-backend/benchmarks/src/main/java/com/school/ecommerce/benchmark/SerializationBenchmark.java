@@ -0,0 +1,114 @@
+package com.school.ecommerce.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.school.ecommerce.dto.PaginatedResponseDTO;
+import com.school.ecommerce.dto.ProductDTO;
+import com.school.ecommerce.dto.ProductFilterDTO;
+import com.school.ecommerce.dto.ProductSummaryDTO;
+import com.school.ecommerce.search.RegexSearchEngine;
+import com.school.ecommerce.seed.SyntheticCatalog;
+import com.school.ecommerce.service.ProductServiceV2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Jackson serialization of a search response page, and deserialization of the
+ * same bytes as a client would do, for the full and summary views in each
+ * negotiable format. {@code serializeGzip} adds the gzip pass Tomcat runs on
+ * bodies over {@code server.compression.min-response-size}. The mappers are
+ * configured the way Spring Boot configures its own. Payload sizes are
+ * printed by {@link ListingPayloadReport}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final TypeReference<PaginatedResponseDTO<ProductDTO>> FULL_PAGE = new TypeReference<>() {
+    };
+    private static final TypeReference<PaginatedResponseDTO<ProductSummaryDTO>> SUMMARY_PAGE =
+            new TypeReference<>() {
+            };
+
+    @Param({ "12", "48" })
+    public int pageSize;
+
+    @Param({ "summary", "full" })
+    public String view;
+
+    @Param({ "json", "smile", "cbor" })
+    public String format;
+
+    private ObjectMapper objectMapper;
+    private PaginatedResponseDTO<ProductSummaryDTO> page;
+    private byte[] json;
+    private TypeReference<? extends PaginatedResponseDTO<?>> pageType;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = mapper(format);
+        page = searchPage(pageSize, view);
+        json = objectMapper.writeValueAsBytes(page);
+        pageType = "full".equals(view) ? FULL_PAGE : SUMMARY_PAGE;
+    }
+
+    static ObjectMapper mapper(String format) {
+        switch (format) {
+            case "smile":
+                return Jackson2ObjectMapperBuilder.smile().build();
+            case "cbor":
+                return Jackson2ObjectMapperBuilder.cbor().build();
+            default:
+                return Jackson2ObjectMapperBuilder.json().build();
+        }
+    }
+
+    // Tomcat's gzip filter uses the default Deflater level, as GZIPOutputStream does
+    static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    static PaginatedResponseDTO<ProductSummaryDTO> searchPage(int pageSize, String view) {
+        ProductServiceV2 productService = BenchmarkServices.productService(
+                new InMemoryMongoTemplate(SyntheticCatalog.products(pageSize)), new RegexSearchEngine());
+        return productService.searchProducts(ProductFilterDTO.builder().limit(pageSize).view(view).build());
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializeGzip() throws IOException {
+        return gzip(objectMapper.writeValueAsBytes(page));
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException {
+        return objectMapper.readValue(json, pageType);
+    }
+}
@@ -0,0 +1,82 @@
+package com.school.ecommerce.benchmark;
+
+import com.school.ecommerce.model.Product;
+import com.school.ecommerce.search.CompletionTrie;
+import com.school.ecommerce.search.CompletionTrie.Completion;
+import com.school.ecommerce.seed.SyntheticCatalog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Top-10 product name completion for a typed prefix: the {@link CompletionTrie}
+ * against the unanchored case-insensitive regex scan the suggestion endpoint
+ * used to run, minus the I/O. Short prefixes are the trie's worst case, since
+ * they match the most names. The estimated trie size is printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuggestionBenchmark {
+
+    private static final int LIMIT = 10;
+
+    @Param({ "10000", "100000", "1000000" })
+    public int catalogSize;
+
+    @Param({ "k", "wire", "acme port" })
+    public String prefix;
+
+    private CompletionTrie trie;
+    private String[] names;
+    private Pattern pattern;
+
+    @Setup
+    public void setUp() {
+        trie = new CompletionTrie(4);
+        names = new String[catalogSize];
+
+        Random random = new Random(SyntheticCatalog.DEFAULT_SEED);
+        int[] position = { 0 };
+        SyntheticCatalog.stream(catalogSize, SyntheticCatalog.DEFAULT_SEED).forEach((Product product) -> {
+            trie.put(product.getId(), product.getName(), product.getImage(),
+                    Math.log1p(random.nextInt(10_000)) + random.nextInt(6));
+            names[position[0]++] = product.getName();
+        });
+        pattern = Pattern.compile(Pattern.quote(prefix), Pattern.CASE_INSENSITIVE);
+        System.out.printf("%ntrie: %d entries, ~%d MB%n", trie.size(), trie.estimatedBytes() >> 20);
+    }
+
+    @Benchmark
+    public List<Completion> completionTrie() {
+        return trie.complete(prefix, LIMIT);
+    }
+
+    @Benchmark
+    public List<String> regexScan() {
+        List<String> matches = new ArrayList<>(LIMIT);
+        for (int i = 0; i < names.length && matches.size() < LIMIT; i++) {
+            if (pattern.matcher(names[i]).find()) {
+                matches.add(names[i]);
+            }
+        }
+        return matches;
+    }
+}
@@ -1,8 +1,15 @@
 package com.school.ecommerce.controller;
 
+import com.school.ecommerce.dto.ImageUploadResultDTO;
+import com.school.ecommerce.dto.ProductUploadResponseDTO;
+import com.school.ecommerce.event.ProductChangedEvent;
 import com.school.ecommerce.model.Product;
-import com.school.ecommerce.model.Category;
 import com.school.ecommerce.model.ExternalLink;
+import com.school.ecommerce.service.EntityCache;
+import com.school.ecommerce.service.ImageUploadService;
+import com.school.ecommerce.service.ImageVariantService;
+import com.school.ecommerce.service.ProductExportService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -10,12 +17,10 @@ import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
-import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -25,17 +30,26 @@ import java.util.UUID;
 public class AmanProductController {
 
     private final MongoTemplate mongoTemplate;
-    private final String IMAGE_UPLOAD_DIR = "uploads/products/";
-
-    public AmanProductController(MongoTemplate mongoTemplate) {
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductExportService productExportService;
+    private final ImageUploadService imageUploadService;
+    private final ImageVariantService imageVariantService;
+    private final EntityCache entityCache;
+
+    public AmanProductController(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+            ProductExportService productExportService, ImageUploadService imageUploadService,
+            ImageVariantService imageVariantService, EntityCache entityCache) {
         this.mongoTemplate = mongoTemplate;
-        // Create upload directory if it doesn't exist
-        new File(IMAGE_UPLOAD_DIR).mkdirs();
+        this.eventPublisher = eventPublisher;
+        this.productExportService = productExportService;
+        this.imageUploadService = imageUploadService;
+        this.imageVariantService = imageVariantService;
+        this.entityCache = entityCache;
     }
 
     // AMAN API: Create Product with all details (POST)
     @PostMapping("/aman-create-product")
-    public ResponseEntity<Product> amanCreateProduct(
+    public ResponseEntity<ProductUploadResponseDTO> amanCreateProduct(
             @RequestParam String name,
             @RequestParam String description,
             @RequestParam double price,
@@ -48,8 +62,7 @@ public class AmanProductController {
 
         try {
             // Validate category exists
-            Category category = mongoTemplate.findById(categoryId, Category.class);
-            if (category == null) {
+            if (entityCache.category(categoryId).isEmpty()) {
                 return ResponseEntity.badRequest().build();
             }
 
@@ -60,27 +73,16 @@ public class AmanProductController {
             product.setPrice(price);
             product.setCategoryId(categoryId);
 
-            // Handle single image
+            // Store the single image first, then the rest, all in parallel
+            List<ImageUploadResultDTO> uploads = imageUploadService.storeAll(collectImages(image, images));
             List<String> imageUrls = new ArrayList<>();
-            if (image != null && !image.isEmpty()) {
-                String imageUrl = saveImageToFile(image);
-                if (imageUrl != null) {
-                    imageUrls.add(imageUrl);
-                }
-            }
-
-            // Handle multiple images
-            if (images != null && !images.isEmpty()) {
-                for (MultipartFile img : images) {
-                    if (!img.isEmpty()) {
-                        String imageUrl = saveImageToFile(img);
-                        if (imageUrl != null) {
-                            imageUrls.add(imageUrl);
-                        }
-                    }
+            for (ImageUploadResultDTO upload : uploads) {
+                if (upload.getStatus() == ImageUploadResultDTO.Status.STORED) {
+                    imageUrls.add(upload.getUrl());
                 }
             }
             product.setImages(imageUrls);
+            imageVariantService.generateAsync(imageUrls);
 
             // Handle external links
             if (websiteNames != null && websiteUrls != null &&
@@ -102,7 +104,7 @@ public class AmanProductController {
 
             // Save to MongoDB
             Product savedProduct = mongoTemplate.save(product);
-            return ResponseEntity.ok(savedProduct);
+            return ResponseEntity.ok(new ProductUploadResponseDTO(savedProduct, uploads));
 
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
@@ -120,15 +122,23 @@ public class AmanProductController {
         }
     }
 
+    // AMAN API: Stream All Products as NDJSON or a chunked JSON array (GET)
+    @GetMapping(value = "/aman-get-all", params = "stream")
+    public ResponseEntity<StreamingResponseBody> amanStreamAllProducts(
+            @RequestParam String stream,
+            @RequestParam(required = false) List<String> fields) {
+        ProductExportService.Format format = ProductExportService.Format.from(stream);
+        StreamingResponseBody body = out -> productExportService.export(out, format, fields, product -> product);
+        return ResponseEntity.ok().contentType(format.getMediaType()).body(body);
+    }
+
     // AMAN API: Get Product by ID (GET)
     @GetMapping("/aman-get-by-id/{id}")
     public ResponseEntity<Product> amanGetProductById(@PathVariable String id) {
         try {
-            Product product = mongoTemplate.findById(id, Product.class);
-            if (product == null) {
-                return ResponseEntity.notFound().build();
-            }
-            return ResponseEntity.ok(product);
+            return entityCache.product(id)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -148,7 +158,7 @@ public class AmanProductController {
 
     // AMAN API: Update Product (PUT)
     @PutMapping("/aman-update/{id}")
-    public ResponseEntity<Product> amanUpdateProduct(
+    public ResponseEntity<ProductUploadResponseDTO> amanUpdateProduct(
             @PathVariable String id,
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String description,
@@ -191,33 +201,25 @@ public class AmanProductController {
                 imageUrls = new ArrayList<>();
             }
 
-            if (image != null && !image.isEmpty()) {
-                String imageUrl = saveImageToFile(image);
-                if (imageUrl != null) {
-                    // If there are existing images, replace the first one
-                    if (!imageUrls.isEmpty()) {
-                        imageUrls.set(0, imageUrl);
-                    } else {
-                        imageUrls.add(imageUrl);
-                    }
+            List<ImageUploadResultDTO> uploads = imageUploadService.storeAll(collectImages(image, images));
+            boolean replacesFirst = image != null && !image.isEmpty();
+            for (int i = 0; i < uploads.size(); i++) {
+                ImageUploadResultDTO upload = uploads.get(i);
+                if (upload.getStatus() != ImageUploadResultDTO.Status.STORED) {
+                    continue;
                 }
-            }
-
-            // Handle multiple images addition
-            if (images != null && !images.isEmpty()) {
-                for (MultipartFile img : images) {
-                    if (!img.isEmpty()) {
-                        String imageUrl = saveImageToFile(img);
-                        if (imageUrl != null) {
-                            imageUrls.add(imageUrl);
-                        }
-                    }
+                // If there are existing images, the single image replaces the first one
+                if (i == 0 && replacesFirst && !imageUrls.isEmpty()) {
+                    imageUrls.set(0, upload.getUrl());
+                } else {
+                    imageUrls.add(upload.getUrl());
                 }
             }
 
             if (!imageUrls.isEmpty()) {
                 update.set("images", imageUrls);
                 existingProduct.setImages(imageUrls);
+                imageVariantService.generateAsync(imageUrls);
             }
 
             // Handle external links update
@@ -240,13 +242,19 @@ public class AmanProductController {
                 existingProduct.setAvailablePlatforms(platforms);
             }
 
-            // Update in MongoDB
+            // Update in MongoDB; a partial update skips ProductEventBridge, so stamp the revision here
+            update.inc("revision", 1).set("updatedAt", LocalDateTime.now());
             Query query = new Query(Criteria.where("_id").is(id));
             mongoTemplate.updateFirst(query, update, Product.class);
 
             // Get updated product
             Product updatedProduct = mongoTemplate.findById(id, Product.class);
-            return ResponseEntity.ok(updatedProduct);
+
+            // updateFirst does not raise mapping events, so announce the change ourselves
+            if (updatedProduct != null) {
+                eventPublisher.publishEvent(ProductChangedEvent.saved(updatedProduct));
+            }
+            return ResponseEntity.ok(new ProductUploadResponseDTO(updatedProduct, uploads));
 
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
@@ -265,9 +273,8 @@ public class AmanProductController {
             // Delete associated images from filesystem
             if (product.getImages() != null) {
                 for (String imageUrl : product.getImages()) {
-                    String filename = imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
-                    Path imagePath = Paths.get(IMAGE_UPLOAD_DIR + filename);
-                    Files.deleteIfExists(imagePath);
+                    Files.deleteIfExists(imageUploadService.resolve(imageUrl));
+                    imageVariantService.deleteVariants(imageUrl);
                 }
             }
 
@@ -293,32 +300,15 @@ public class AmanProductController {
         }
     }
 
-    // Helper method to save image to file system
-    private String saveImageToFile(MultipartFile image) {
-        try {
-            if (image.isEmpty()) {
-                return null;
-            }
-
-            // Generate unique filename
-            String originalFilename = image.getOriginalFilename();
-            String fileExtension = "";
-            if (originalFilename != null && originalFilename.contains(".")) {
-                fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            }
-
-            String filename = UUID.randomUUID().toString() + fileExtension;
-            Path filePath = Paths.get(IMAGE_UPLOAD_DIR + filename);
-
-            // Save file
-            Files.copy(image.getInputStream(), filePath);
-
-            // Return accessible URL
-            return "/uploads/products/" + filename;
-
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
+    // Helper method to put the single image ahead of the additional ones
+    private List<MultipartFile> collectImages(MultipartFile image, List<MultipartFile> images) {
+        List<MultipartFile> all = new ArrayList<>();
+        if (image != null && !image.isEmpty()) {
+            all.add(image);
+        }
+        if (images != null) {
+            all.addAll(images);
         }
+        return all;
     }
-}
\ No newline at end of file
+}
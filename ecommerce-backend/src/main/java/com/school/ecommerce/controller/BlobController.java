@@ -0,0 +1,52 @@
+package com.school.ecommerce.controller;
+
+import com.school.ecommerce.dto.BlobMigrationResultDTO;
+import com.school.ecommerce.exception.ResourceNotFoundException;
+import com.school.ecommerce.storage.BlobMigrationJob;
+import com.school.ecommerce.storage.BlobStore;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/blobs")
+public class BlobController {
+
+    private final BlobStore blobStore;
+    private final BlobMigrationJob migrationJob;
+
+    public BlobController(BlobStore blobStore, BlobMigrationJob migrationJob) {
+        this.blobStore = blobStore;
+        this.migrationJob = migrationJob;
+    }
+
+    // Blobs never change, so the hash is a strong ETag and the response is immutable.
+    // Range requests are answered by Spring's Resource region support.
+    @GetMapping("/{name}")
+    public ResponseEntity<Resource> get(@PathVariable String name, WebRequest request) throws IOException {
+        if (!blobStore.exists(name)) {
+            throw new ResourceNotFoundException("Blob not found");
+        }
+        if (request.checkNotModified("\"" + name + "\"")) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .eTag(name)
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .contentType(MediaType.parseMediaType(blobStore.contentType(name)))
+                .body(new FileSystemResource(blobStore.resolve(name)));
+    }
+
+    @PostMapping("/migrate")
+    public ResponseEntity<BlobMigrationResultDTO> migrate() {
+        return ResponseEntity.ok(migrationJob.run());
+    }
+}
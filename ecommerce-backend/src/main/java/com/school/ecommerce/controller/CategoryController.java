@@ -4,6 +4,7 @@ import com.school.ecommerce.dto.CategoryDTO;
 import com.school.ecommerce.service.CategoryService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -20,13 +21,13 @@ public class CategoryController {
     }
 
     @GetMapping
-    public ResponseEntity<List<CategoryDTO>> getAll() {
-        return ResponseEntity.ok(categoryService.getAll());
+    public ResponseEntity<List<CategoryDTO>> getAll(WebRequest request) {
+        return ConditionalRequests.respond(request, categoryService.getAllVersion(), categoryService::getAll);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryDTO> getById(@PathVariable String id) {
-        return ResponseEntity.ok(categoryService.getById(id));
+    public ResponseEntity<CategoryDTO> getById(@PathVariable String id, WebRequest request) {
+        return ConditionalRequests.respond(request, categoryService.getVersion(id), () -> categoryService.getById(id));
     }
 
     @PutMapping("/{id}")
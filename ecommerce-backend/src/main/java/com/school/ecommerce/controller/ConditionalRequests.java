@@ -0,0 +1,41 @@
+package com.school.ecommerce.controller;
+
+import com.school.ecommerce.service.EntityVersion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET handling shared by the read endpoints. The validators are
+ * checked before the body supplier runs, so a 304 costs no DTO mapping or
+ * serialization. {@code checkNotModified} writes the ETag and Last-Modified
+ * headers on both outcomes. The same version is served as JSON, Smile or CBOR,
+ * so responses vary by {@code Accept}, and the ETag is weak, which also lets
+ * Tomcat gzip the body. {@code checkNotModified} compares tags weakly.
+ */
+final class ConditionalRequests {
+
+    // Clients and CDNs may store the response but must revalidate it before reuse
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+
+    private ConditionalRequests() {
+    }
+
+    static <T> ResponseEntity<T> respond(WebRequest request, EntityVersion version, Supplier<T> body) {
+        return respond(request, version, body, () -> { });
+    }
+
+    static <T> ResponseEntity<T> respond(WebRequest request, EntityVersion version, Supplier<T> body,
+            Runnable onNotModified) {
+        if (request.checkNotModified(version.getEtag(), version.getLastModified())) {
+            onNotModified.run();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE)
+                    .varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(body.get());
+    }
+}
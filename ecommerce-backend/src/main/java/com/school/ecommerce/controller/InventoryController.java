@@ -1,7 +1,11 @@
 package com.school.ecommerce.controller;
 
+import com.school.ecommerce.dto.BulkStockUpdateResultDTO;
+import com.school.ecommerce.dto.StockUpdateDTO;
 import com.school.ecommerce.model.Inventory;
+import com.school.ecommerce.model.Reservation;
 import com.school.ecommerce.service.InventoryService;
+import com.school.ecommerce.service.StockReservations;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -11,13 +15,34 @@ import java.util.List;
 @RequestMapping("/api/inventory")
 public class InventoryController {
     private final InventoryService inventoryService;
-    public InventoryController(InventoryService inventoryService) { this.inventoryService = inventoryService; }
+    private final StockReservations stockReservations;
 
+    public InventoryController(InventoryService inventoryService, StockReservations stockReservations) {
+        this.inventoryService = inventoryService;
+        this.stockReservations = stockReservations;
+    }
+
+    /**
+     * {@code quantity} is the count of units on hand, including those held by
+     * open reservations; the sellable stock becomes that count minus the
+     * inventory's {@code reserved} units.
+     */
     @PutMapping("/{productId}")
     public ResponseEntity<Inventory> updateStock(@PathVariable String productId, @RequestParam int quantity) {
         return ResponseEntity.ok(inventoryService.updateStock(productId, quantity));
     }
 
+    // Each item's stock is an on-hand count, applied like the single update above
+    @PutMapping("/bulk")
+    public ResponseEntity<BulkStockUpdateResultDTO> bulkUpdateStock(@RequestBody List<StockUpdateDTO> updates) {
+        return ResponseEntity.ok(inventoryService.bulkUpdateStock(updates));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<Inventory>> getByProducts(@RequestBody List<String> productIds) {
+        return ResponseEntity.ok(inventoryService.getByProducts(productIds));
+    }
+
     @GetMapping("/{productId}")
     public ResponseEntity<Inventory> getByProduct(@PathVariable String productId) {
         return ResponseEntity.ok(inventoryService.getByProduct(productId));
@@ -27,5 +52,29 @@ public class InventoryController {
     public ResponseEntity<List<Inventory>> getAll() {
         return ResponseEntity.ok(inventoryService.getAll());
     }
+
+    // ==================== RESERVATIONS ====================
+
+    @PostMapping("/{productId}/reservations")
+    public ResponseEntity<Reservation> reserve(@PathVariable String productId,
+                                               @RequestParam(defaultValue = "1") int quantity,
+                                               @RequestParam(required = false) String orderId) {
+        return ResponseEntity.ok(stockReservations.reserve(productId, quantity, orderId));
+    }
+
+    @GetMapping("/reservations/{id}")
+    public ResponseEntity<Reservation> getReservation(@PathVariable String id) {
+        return ResponseEntity.ok(stockReservations.get(id));
+    }
+
+    @PostMapping("/reservations/{id}/commit")
+    public ResponseEntity<Reservation> commitReservation(@PathVariable String id) {
+        return ResponseEntity.ok(stockReservations.commit(id));
+    }
+
+    @DeleteMapping("/reservations/{id}")
+    public ResponseEntity<Reservation> releaseReservation(@PathVariable String id) {
+        return ResponseEntity.ok(stockReservations.release(id));
+    }
 }
 
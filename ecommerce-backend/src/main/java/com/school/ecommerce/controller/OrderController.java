@@ -1,27 +1,61 @@
 package com.school.ecommerce.controller;
 
+import com.school.ecommerce.dto.CheckoutRequestDTO;
 import com.school.ecommerce.dto.OrderDTO;
+import com.school.ecommerce.dto.OrderFilterDTO;
+import com.school.ecommerce.dto.OrderSummaryDTO;
+import com.school.ecommerce.dto.PaginatedResponseDTO;
 import com.school.ecommerce.service.OrderService;
+import com.school.ecommerce.service.OrderStatusBroadcaster;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.List;
+import java.time.Instant;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
     private final OrderService orderService;
-    public OrderController(OrderService orderService) { this.orderService = orderService; }
+    private final OrderStatusBroadcaster statusBroadcaster;
+    public OrderController(OrderService orderService, OrderStatusBroadcaster statusBroadcaster) {
+        this.orderService = orderService;
+        this.statusBroadcaster = statusBroadcaster;
+    }
 
     @PostMapping
     public ResponseEntity<OrderDTO> create(@RequestBody OrderDTO dto) {
         return ResponseEntity.ok(orderService.create(dto));
     }
 
+    @PostMapping("/checkout")
+    public ResponseEntity<OrderDTO> checkout(@RequestBody CheckoutRequestDTO request) {
+        return ResponseEntity.ok(orderService.checkout(request));
+    }
+
     @GetMapping
-    public ResponseEntity<List<OrderDTO>> getAll() {
-        return ResponseEntity.ok(orderService.getAll());
+    public ResponseEntity<PaginatedResponseDTO<OrderSummaryDTO>> getAll(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(orderService.search(filter(null, status, from, to, cursor, limit)));
+    }
+
+    // Status changes of every order, or of one user's orders, as they happen
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAll(@RequestParam(required = false) String userId) {
+        return statusBroadcaster.subscribe(null, userId, null);
+    }
+
+    // The current status of one order, then each change to it
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable String id) {
+        return statusBroadcaster.subscribe(id, null, () -> orderService.currentStatus(id));
     }
 
     @GetMapping("/{id}")
@@ -30,8 +64,26 @@ public class OrderController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<OrderDTO>> getByUser(@PathVariable String userId) {
-        return ResponseEntity.ok(orderService.getByUser(userId));
+    public ResponseEntity<PaginatedResponseDTO<OrderSummaryDTO>> getByUser(
+            @PathVariable String userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(orderService.search(filter(userId, status, from, to, cursor, limit)));
+    }
+
+    private static OrderFilterDTO filter(String userId, String status, Instant from, Instant to, String cursor,
+                                         int limit) {
+        OrderFilterDTO filter = new OrderFilterDTO();
+        filter.setUserId(userId);
+        filter.setStatus(status);
+        filter.setFrom(from);
+        filter.setTo(to);
+        filter.setCursor(cursor);
+        filter.setLimit(limit);
+        return filter;
     }
 
     @PatchMapping("/{id}/status")
@@ -2,10 +2,13 @@ package com.school.ecommerce.controller;
 
 import com.school.ecommerce.dto.ProductDTO;
 import com.school.ecommerce.model.ExternalLink;
+import com.school.ecommerce.service.ProductExportService;
 import com.school.ecommerce.service.ProductService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -41,13 +44,22 @@ public class ProductController {
     }
 
     @GetMapping
-    public ResponseEntity<List<ProductDTO>> getAll() {
-        return ResponseEntity.ok(productService.getAll());
+    public ResponseEntity<List<ProductDTO>> getAll(WebRequest request) {
+        return ConditionalRequests.respond(request, productService.getAllVersion(), productService::getAll);
+    }
+
+    @GetMapping(params = "stream")
+    public ResponseEntity<StreamingResponseBody> streamAll(
+            @RequestParam String stream,
+            @RequestParam(required = false) List<String> fields) {
+        ProductExportService.Format format = ProductExportService.Format.from(stream);
+        StreamingResponseBody body = out -> productService.exportAll(out, format, fields);
+        return ResponseEntity.ok().contentType(format.getMediaType()).body(body);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDTO> getById(@PathVariable String id) {
-        return ResponseEntity.ok(productService.getById(id));
+    public ResponseEntity<ProductDTO> getById(@PathVariable String id, WebRequest request) {
+        return ConditionalRequests.respond(request, productService.getVersion(id), () -> productService.getById(id));
     }
 
     @GetMapping("/category/{categoryId}")
@@ -3,10 +3,12 @@ package com.school.ecommerce.controller;
 import com.school.ecommerce.dto.ProductDTO;
 import com.school.ecommerce.dto.ProductFilterDTO;
 import com.school.ecommerce.dto.PaginatedResponseDTO;
+import com.school.ecommerce.dto.ProductSummaryDTO;
 import com.school.ecommerce.model.ExternalLink;
 import com.school.ecommerce.service.ProductServiceV2;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -25,7 +27,7 @@ public class ProductControllerV2 {
     // ==================== SEARCH & FILTER ENDPOINTS ====================
 
     @GetMapping("/search")
-    public ResponseEntity<PaginatedResponseDTO<ProductDTO>> searchProducts(
+    public ResponseEntity<PaginatedResponseDTO<ProductSummaryDTO>> searchProducts(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) Double minPrice,
@@ -37,7 +39,10 @@ public class ProductControllerV2 {
             @RequestParam(defaultValue = "newest") String sortBy,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "12") int limit,
-            @RequestParam(defaultValue = "false") boolean includeHits) {
+            @RequestParam(defaultValue = "false") boolean includeHits,
+            @RequestParam(defaultValue = "page") String pagination,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "summary") String view) {
 
         // Use builder pattern instead
         ProductFilterDTO filter = ProductFilterDTO.builder()
@@ -53,9 +58,12 @@ public class ProductControllerV2 {
                 .page(page)
                 .limit(limit)
                 .includeHits(includeHits)
+                .pagination(pagination)
+                .cursor(cursor)
+                .view(view)
                 .build();
 
-        PaginatedResponseDTO<ProductDTO> response = productService.searchProducts(filter);
+        PaginatedResponseDTO<ProductSummaryDTO> response = productService.searchProducts(filter);
         return ResponseEntity.ok(response);
     }
 
@@ -69,27 +77,31 @@ public class ProductControllerV2 {
     // ==================== SPECIAL COLLECTION ENDPOINTS ====================
 
     @GetMapping("/featured")
-    public ResponseEntity<List<ProductDTO>> getFeaturedProducts(
-            @RequestParam(defaultValue = "8") int limit) {
-        return ResponseEntity.ok(productService.getFeaturedProducts(limit));
+    public ResponseEntity<List<ProductSummaryDTO>> getFeaturedProducts(
+            @RequestParam(defaultValue = "8") int limit,
+            @RequestParam(defaultValue = "summary") String view) {
+        return ResponseEntity.ok(productService.getFeaturedProducts(limit, view));
     }
 
     @GetMapping("/trending")
-    public ResponseEntity<List<ProductDTO>> getTrendingProducts(
-            @RequestParam(defaultValue = "8") int limit) {
-        return ResponseEntity.ok(productService.getTrendingProducts(limit));
+    public ResponseEntity<List<ProductSummaryDTO>> getTrendingProducts(
+            @RequestParam(defaultValue = "8") int limit,
+            @RequestParam(defaultValue = "summary") String view) {
+        return ResponseEntity.ok(productService.getTrendingProducts(limit, view));
     }
 
     @GetMapping("/new")
-    public ResponseEntity<List<ProductDTO>> getNewArrivals(
-            @RequestParam(defaultValue = "8") int limit) {
-        return ResponseEntity.ok(productService.getNewArrivals(limit));
+    public ResponseEntity<List<ProductSummaryDTO>> getNewArrivals(
+            @RequestParam(defaultValue = "8") int limit,
+            @RequestParam(defaultValue = "summary") String view) {
+        return ResponseEntity.ok(productService.getNewArrivals(limit, view));
     }
 
     @GetMapping("/sale")
-    public ResponseEntity<List<ProductDTO>> getProductsOnSale(
-            @RequestParam(defaultValue = "8") int limit) {
-        return ResponseEntity.ok(productService.getProductsOnSale(limit));
+    public ResponseEntity<List<ProductSummaryDTO>> getProductsOnSale(
+            @RequestParam(defaultValue = "8") int limit,
+            @RequestParam(defaultValue = "summary") String view) {
+        return ResponseEntity.ok(productService.getProductsOnSale(limit, view));
     }
 
     // ==================== PRODUCT DETAILS ENDPOINTS ====================
@@ -97,21 +109,24 @@ public class ProductControllerV2 {
     @GetMapping("/{id}")
     public ResponseEntity<ProductDTO> getProductById(
             @PathVariable String id,
-            @RequestParam(defaultValue = "false") boolean track) {
+            @RequestParam(defaultValue = "false") boolean track,
+            WebRequest request) {
 
         if (track) {
             productService.incrementProductHits(id);
         }
 
-        ProductDTO product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+        // A revalidated page view is still a view; getProductById counts it on a full response
+        return ConditionalRequests.respond(request, productService.getProductVersion(id),
+                () -> productService.getProductById(id), () -> productService.incrementProductHits(id));
     }
 
     @GetMapping("/{id}/similar")
-    public ResponseEntity<List<ProductDTO>> getSimilarProducts(
+    public ResponseEntity<List<ProductSummaryDTO>> getSimilarProducts(
             @PathVariable String id,
-            @RequestParam(defaultValue = "4") int limit) {
-        return ResponseEntity.ok(productService.getSimilarProducts(id, limit));
+            @RequestParam(defaultValue = "4") int limit,
+            @RequestParam(defaultValue = "summary") String view) {
+        return ResponseEntity.ok(productService.getSimilarProducts(id, limit, view));
     }
 
     @GetMapping("/{id}/analytics")
@@ -128,8 +143,10 @@ public class ProductControllerV2 {
     // ==================== BATCH OPERATIONS ====================
 
     @PostMapping("/batch")
-    public ResponseEntity<List<ProductDTO>> getProductsByIds(@RequestBody List<String> ids) {
-        return ResponseEntity.ok(productService.getProductsByIds(ids));
+    public ResponseEntity<List<ProductSummaryDTO>> getProductsByIds(
+            @RequestBody List<String> ids,
+            @RequestParam(defaultValue = "summary") String view) {
+        return ResponseEntity.ok(productService.getProductsByIds(ids, view));
     }
 
     // ==================== CRUD ENDPOINTS ====================
@@ -0,0 +1,141 @@
+package com.school.ecommerce.controller;
+
+import com.school.ecommerce.dto.PaginatedResponseDTO;
+import com.school.ecommerce.dto.ProductDTO;
+import com.school.ecommerce.dto.ProductFilterDTO;
+import com.school.ecommerce.dto.ProductSummaryDTO;
+import com.school.ecommerce.dto.SearchSuggestionsDTO;
+import com.school.ecommerce.service.ReactiveProductServiceV2;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Read-only v2 product endpoints on reactive Mongo, served next to
+ * {@link ProductControllerV2} when the {@code reactive} profile is active.
+ * Request threads are released while Mongo works. List endpoints answer with a
+ * JSON array, or stream one product per line for {@code Accept: application/x-ndjson}.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v2/reactive/products")
+@CrossOrigin(origins = "*")
+public class ReactiveProductControllerV2 {
+
+    private final ReactiveProductServiceV2 productService;
+
+    public ReactiveProductControllerV2(ReactiveProductServiceV2 productService) {
+        this.productService = productService;
+    }
+
+    // ==================== SEARCH & FILTER ENDPOINTS ====================
+
+    @GetMapping("/search")
+    public Mono<PaginatedResponseDTO<ProductSummaryDTO>> searchProducts(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) List<String> platforms,
+            @RequestParam(required = false) Boolean hasExternalLinks,
+            @RequestParam(required = false) Boolean isNew,
+            @RequestParam(defaultValue = "newest") String sortBy,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "12") int limit,
+            @RequestParam(defaultValue = "page") String pagination,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "summary") String view) {
+
+        ProductFilterDTO filter = ProductFilterDTO.builder()
+                .search(search)
+                .category(category)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .platforms(platforms)
+                .hasExternalLinks(hasExternalLinks)
+                .isNew(isNew)
+                .sortBy(sortBy)
+                .page(page)
+                .limit(limit)
+                .pagination(pagination)
+                .cursor(cursor)
+                .view(view)
+                .build();
+
+        return productService.searchProducts(filter);
+    }
+
+    @GetMapping(value = "/search/stream", produces = { MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_JSON_VALUE })
+    public Flux<ProductSummaryDTO> streamProducts(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) List<String> platforms,
+            @RequestParam(defaultValue = "newest") String sortBy,
+            @RequestParam(defaultValue = "1000") int limit,
+            @RequestParam(defaultValue = "summary") String view) {
+
+        ProductFilterDTO filter = ProductFilterDTO.builder()
+                .search(search)
+                .category(category)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .platforms(platforms)
+                .sortBy(sortBy)
+                .view(view)
+                .build();
+
+        return productService.streamProducts(filter, limit);
+    }
+
+    @GetMapping("/search/suggestions")
+    public Mono<SearchSuggestionsDTO> searchSuggestions(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return productService.getSearchSuggestions(q, limit);
+    }
+
+    // ==================== SPECIAL COLLECTION ENDPOINTS ====================
+
+    @GetMapping(value = "/featured", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE })
+    public Flux<ProductSummaryDTO> getFeaturedProducts(
+            @RequestParam(defaultValue = "8") int limit,
+            @RequestParam(defaultValue = "summary") String view) {
+        return productService.getFeaturedProducts(limit, view);
+    }
+
+    @GetMapping(value = "/trending", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE })
+    public Flux<ProductSummaryDTO> getTrendingProducts(
+            @RequestParam(defaultValue = "8") int limit,
+            @RequestParam(defaultValue = "summary") String view) {
+        return productService.getTrendingProducts(limit, view);
+    }
+
+    // ==================== PRODUCT DETAILS ENDPOINTS ====================
+
+    // Every fetch counts as a view; track is accepted so clients can switch stacks unchanged
+    @GetMapping("/{id}")
+    public Mono<ProductDTO> getProductById(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "false") boolean track) {
+        return productService.getProductById(id);
+    }
+
+    // ==================== BATCH OPERATIONS ====================
+
+    @PostMapping(value = "/batch", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE })
+    public Flux<ProductSummaryDTO> getProductsByIds(
+            @RequestBody List<String> ids,
+            @RequestParam(defaultValue = "summary") String view) {
+        return productService.getProductsByIds(ids, view);
+    }
+}
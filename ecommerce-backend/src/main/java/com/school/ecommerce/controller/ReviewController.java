@@ -1,19 +1,22 @@
 package com.school.ecommerce.controller;
 
+import com.school.ecommerce.dto.ProductReviewsDTO;
+import com.school.ecommerce.dto.ReviewSummaryRebuildResultDTO;
 import com.school.ecommerce.model.Review;
 import com.school.ecommerce.service.ReviewService;
+import com.school.ecommerce.service.ReviewSummaryRebuildJob;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/reviews")
 public class ReviewController {
     private final ReviewService reviewService;
+    private final ReviewSummaryRebuildJob summaryRebuildJob;
 
-    public ReviewController(ReviewService reviewService) {
+    public ReviewController(ReviewService reviewService, ReviewSummaryRebuildJob summaryRebuildJob) {
         this.reviewService = reviewService;
+        this.summaryRebuildJob = summaryRebuildJob;
     }
 
     @PostMapping
@@ -22,7 +25,14 @@ public class ReviewController {
     }
 
     @GetMapping("/product/{productId}")
-    public ResponseEntity<Object> getByProduct(@PathVariable String productId) {
-        return ResponseEntity.ok(reviewService.getByProduct(productId));
+    public ResponseEntity<ProductReviewsDTO> getByProduct(@PathVariable String productId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(reviewService.getByProduct(productId, cursor, limit));
+    }
+
+    @PostMapping("/rebuild-summaries")
+    public ResponseEntity<ReviewSummaryRebuildResultDTO> rebuildSummaries() {
+        return ResponseEntity.ok(summaryRebuildJob.run());
     }
 }
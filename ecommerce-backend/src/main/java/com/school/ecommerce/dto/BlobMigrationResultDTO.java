@@ -0,0 +1,14 @@
+package com.school.ecommerce.dto;
+
+import lombok.Data;
+
+@Data
+public class BlobMigrationResultDTO {
+
+    private long productsScanned;
+    private long productsUpdated;
+    private long imagesMigrated;
+    private long imagesFailed;
+    // Neither a path, a URL nor strict Base64 (such as a relative file name); left as stored
+    private long imagesSkipped;
+}
@@ -0,0 +1,29 @@
+package com.school.ecommerce.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkStockUpdateResultDTO {
+
+    public enum Status { CREATED, UPDATED, REJECTED, FAILED }
+
+    @Data
+    public static class ItemResult {
+        private String productId;
+        private Status status;
+        private String error;
+    }
+
+    private int requested;
+    private int created;
+    private int updated;
+    private int rejected;
+    private int failed;
+    private long elapsedMillis;
+    private double itemsPerSecond;
+    // One per submitted item, in request order
+    private List<ItemResult> results = new ArrayList<>();
+}
@@ -0,0 +1,27 @@
+package com.school.ecommerce.dto;
+
+import java.util.List;
+
+/**
+ * A whole cart placed as one order. Only product ids and quantities are read;
+ * prices are looked up at checkout, whatever the client shows.
+ */
+public class CheckoutRequestDTO {
+    private String userId;
+    private List<ItemDTO> items;
+
+    public static class ItemDTO {
+        private String productId;
+        private int quantity;
+
+        public String getProductId() { return productId; }
+        public void setProductId(String productId) { this.productId = productId; }
+        public int getQuantity() { return quantity; }
+        public void setQuantity(int quantity) { this.quantity = quantity; }
+    }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    public List<ItemDTO> getItems() { return items; }
+    public void setItems(List<ItemDTO> items) { this.items = items; }
+}
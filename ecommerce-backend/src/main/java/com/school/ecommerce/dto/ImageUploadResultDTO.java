@@ -0,0 +1,16 @@
+package com.school.ecommerce.dto;
+
+import lombok.Data;
+
+@Data
+public class ImageUploadResultDTO {
+
+    public enum Status { STORED, REJECTED, FAILED }
+
+    private String originalFilename;
+    private Status status;
+    private String url;
+    private long size;
+    private String sha256;
+    private String error;
+}
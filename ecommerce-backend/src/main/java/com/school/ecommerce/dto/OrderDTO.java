@@ -7,9 +7,30 @@ public class OrderDTO {
     private String id;
     private String userId;
     private String productId;
+    private List<LineItemDTO> items;
+    private Double subtotal;
     private String status;
     private List<UpdateDTO> historyUpdates;
 
+    public static class LineItemDTO {
+        private String productId;
+        private String name;
+        private double unitPrice;
+        private int quantity;
+        private double lineTotal;
+
+        public String getProductId() { return productId; }
+        public void setProductId(String productId) { this.productId = productId; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public double getUnitPrice() { return unitPrice; }
+        public void setUnitPrice(double unitPrice) { this.unitPrice = unitPrice; }
+        public int getQuantity() { return quantity; }
+        public void setQuantity(int quantity) { this.quantity = quantity; }
+        public double getLineTotal() { return lineTotal; }
+        public void setLineTotal(double lineTotal) { this.lineTotal = lineTotal; }
+    }
+
     public static class UpdateDTO {
         private String update;
         private Instant timestamp;
@@ -26,6 +47,10 @@ public class OrderDTO {
     public void setUserId(String userId) { this.userId = userId; }
     public String getProductId() { return productId; }
     public void setProductId(String productId) { this.productId = productId; }
+    public List<LineItemDTO> getItems() { return items; }
+    public void setItems(List<LineItemDTO> items) { this.items = items; }
+    public Double getSubtotal() { return subtotal; }
+    public void setSubtotal(Double subtotal) { this.subtotal = subtotal; }
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
     public List<UpdateDTO> getHistoryUpdates() { return historyUpdates; }
@@ -0,0 +1,16 @@
+package com.school.ecommerce.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+// Filters of the order history listings; from is inclusive, to exclusive
+@Data
+public class OrderFilterDTO {
+    private String userId;
+    private String status;
+    private Instant from;
+    private Instant to;
+    private String cursor;
+    private int limit = 20;
+}
@@ -0,0 +1,19 @@
+package com.school.ecommerce.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+// One row of an order history listing; OrderDTO adds the line items and the full history.
+// subtotal is only set for checkout orders.
+@Data
+public class OrderSummaryDTO {
+    private String id;
+    private String userId;
+    private String productId;
+    private String status;
+    private int itemCount;
+    private Double subtotal;
+    private Instant placedAt;
+    private Instant updatedAt;
+}
@@ -11,4 +11,8 @@ public class PaginationInfoDTO {
     private int totalPages;
     private boolean hasNext;
     private boolean hasPrev;
+
+    // Cursor pagination only
+    private String nextCursor;
+    private boolean totalEstimated;
 }
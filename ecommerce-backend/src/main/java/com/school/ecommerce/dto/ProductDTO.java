@@ -1,6 +1,8 @@
 package com.school.ecommerce.dto;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.school.ecommerce.model.ExternalLink;
@@ -9,18 +11,15 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
-public class ProductDTO {
-    private String id;
-    private String name;
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class ProductDTO extends ProductSummaryDTO {
     private String description;
-    private double price;
-    private String categoryId;
     private String categoryName;
-    private List<String> images;
-    private List<String> availablePlatforms;
+    // Same order as images; an entry is the original URL until its variant is generated
+    private List<String> mediumImages;
     private List<ExternalLink> externalLinks;
     private MultipartFile image;
-    private int hits;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
-}
\ No newline at end of file
+}
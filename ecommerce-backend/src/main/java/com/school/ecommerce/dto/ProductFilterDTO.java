@@ -16,6 +16,9 @@ public class ProductFilterDTO {
     private int page = 1;
     private int limit = 12;
     private boolean includeHits = false;
+    private String pagination = "page";
+    private String cursor;
+    private String view = "summary";
 
     // Constructors
     public ProductFilterDTO() {
@@ -24,7 +27,7 @@ public class ProductFilterDTO {
     public ProductFilterDTO(String search, String category, Double minPrice, Double maxPrice,
             Boolean inStock, List<String> platforms,
             Boolean hasExternalLinks, Boolean isNew, String sortBy,
-            int page, int limit, boolean includeHits) {
+            int page, int limit, boolean includeHits, String pagination, String cursor, String view) {
         this.search = search;
         this.category = category;
         this.minPrice = minPrice;
@@ -37,6 +40,9 @@ public class ProductFilterDTO {
         this.page = page;
         this.limit = limit;
         this.includeHits = includeHits;
+        this.pagination = pagination;
+        this.cursor = cursor;
+        this.view = view;
     }
 
     // Builder static method
@@ -58,6 +64,9 @@ public class ProductFilterDTO {
         private int page = 1;
         private int limit = 12;
         private boolean includeHits = false;
+        private String pagination = "page";
+        private String cursor;
+        private String view = "summary";
 
         public Builder search(String search) {
             this.search = search;
@@ -119,10 +128,26 @@ public class ProductFilterDTO {
             return this;
         }
 
+        public Builder pagination(String pagination) {
+            this.pagination = pagination;
+            return this;
+        }
+
+        public Builder cursor(String cursor) {
+            this.cursor = cursor;
+            return this;
+        }
+
+        public Builder view(String view) {
+            this.view = view;
+            return this;
+        }
+
         public ProductFilterDTO build() {
             return new ProductFilterDTO(
                     search, category, minPrice, maxPrice, inStock,
-                    platforms, hasExternalLinks, isNew, sortBy, page, limit, includeHits);
+                    platforms, hasExternalLinks, isNew, sortBy, page, limit, includeHits,
+                    pagination, cursor, view);
         }
     }
 
@@ -222,4 +247,28 @@ public class ProductFilterDTO {
     public void setIncludeHits(boolean includeHits) {
         this.includeHits = includeHits;
     }
+
+    public String getPagination() {
+        return pagination;
+    }
+
+    public void setPagination(String pagination) {
+        this.pagination = pagination;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public String getView() {
+        return view;
+    }
+
+    public void setView(String view) {
+        this.view = view;
+    }
 }
\ No newline at end of file
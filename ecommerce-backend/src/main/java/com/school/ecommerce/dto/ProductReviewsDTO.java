@@ -0,0 +1,19 @@
+package com.school.ecommerce.dto;
+
+import com.school.ecommerce.model.Review;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+// A product's rating summary and one page of its reviews, newest first.
+// ratingHistogram has an entry for each of 1 to 5 stars.
+@Data
+public class ProductReviewsDTO {
+    private String productId;
+    private double rating;
+    private int reviewCount;
+    private Map<Integer, Integer> ratingHistogram;
+    private List<Review> reviews;
+    private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package com.school.ecommerce.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Fields a listing card needs; ProductDTO adds the detail fields.
+// In the summary view images and thumbnails hold only the first image.
+@Data
+public class ProductSummaryDTO {
+    private String id;
+    private String name;
+    private double price;
+    private String categoryId;
+    private List<String> images;
+    private List<String> thumbnails;
+    private List<String> availablePlatforms;
+    private int hits;
+}
@@ -0,0 +1,19 @@
+package com.school.ecommerce.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.school.ecommerce.model.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// Product fields stay at the top level so existing clients keep working
+@Data
+@AllArgsConstructor
+public class ProductUploadResponseDTO {
+
+    @JsonUnwrapped
+    private Product product;
+
+    private List<ImageUploadResultDTO> imageUploads;
+}
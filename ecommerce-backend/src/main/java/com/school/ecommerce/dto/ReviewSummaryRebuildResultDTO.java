@@ -0,0 +1,16 @@
+package com.school.ecommerce.dto;
+
+import lombok.Data;
+
+@Data
+public class ReviewSummaryRebuildResultDTO {
+
+    private long reviewsScanned;
+    private long productsScanned;
+    private long productsUpdated;
+    // Skipped because a review arrived while the job ran; the next run picks them up
+    private long productsChangedMeanwhile;
+    // Products that have reviews but no longer exist
+    private long missingProducts;
+    private long elapsedMillis;
+}
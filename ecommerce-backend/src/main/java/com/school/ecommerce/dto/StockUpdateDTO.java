@@ -0,0 +1,10 @@
+package com.school.ecommerce.dto;
+
+import lombok.Data;
+
+@Data
+public class StockUpdateDTO {
+    private String productId;
+    // Units on hand, including those held by open reservations; sellable stock is this minus reserved
+    private Integer stock;
+}
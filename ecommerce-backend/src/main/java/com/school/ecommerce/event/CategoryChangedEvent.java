@@ -0,0 +1,35 @@
+package com.school.ecommerce.event;
+
+import com.school.ecommerce.model.Category;
+
+/**
+ * Published whenever a category document is written or removed; the category
+ * counterpart of {@link ProductChangedEvent}.
+ */
+public class CategoryChangedEvent {
+
+    public enum Type { SAVED, DELETED }
+
+    private final Type type;
+    private final String categoryId;
+    private final Category category;
+
+    private CategoryChangedEvent(Type type, String categoryId, Category category) {
+        this.type = type;
+        this.categoryId = categoryId;
+        this.category = category;
+    }
+
+    public static CategoryChangedEvent saved(Category category) {
+        return new CategoryChangedEvent(Type.SAVED, category.getId(), category);
+    }
+
+    // categoryId is null when the delete was not a single-id delete
+    public static CategoryChangedEvent deleted(String categoryId) {
+        return new CategoryChangedEvent(Type.DELETED, categoryId, null);
+    }
+
+    public Type getType() { return type; }
+    public String getCategoryId() { return categoryId; }
+    public Category getCategory() { return category; }
+}
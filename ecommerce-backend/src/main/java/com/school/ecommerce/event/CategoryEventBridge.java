@@ -0,0 +1,56 @@
+package com.school.ecommerce.event;
+
+import com.school.ecommerce.model.Category;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Turns Spring Data mapping events for {@link Category} into {@link CategoryChangedEvent}s,
+ * with the same coverage as {@link ProductEventBridge}.
+ */
+@Component
+public class CategoryEventBridge extends AbstractMongoEventListener<Category> {
+
+    private final ApplicationEventPublisher publisher;
+
+    public CategoryEventBridge(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    // Every full-document write is a new revision, including inserts
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<Category> event) {
+        Category category = event.getSource();
+        category.setRevision(category.getRevision() + 1);
+        category.setUpdatedAt(LocalDateTime.now());
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Category> event) {
+        publisher.publishEvent(CategoryChangedEvent.saved(event.getSource()));
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Category> event) {
+        publisher.publishEvent(CategoryChangedEvent.deleted(idOf(event.getSource())));
+    }
+
+    private String idOf(Document query) {
+        Object id = query.get("_id");
+        if (id instanceof ObjectId) {
+            return ((ObjectId) id).toHexString();
+        }
+        if (id instanceof String) {
+            return (String) id;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.school.ecommerce.event;
+
+import com.school.ecommerce.service.OrderStatusBroadcaster;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds the order status streams from the updates made on this node. Enough
+ * for a single node; with several nodes behind a load balancer use
+ * {@link OrderChangeStreamFeed}, so every node sees every update.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.stream.source", havingValue = "local", matchIfMissing = true)
+public class LocalOrderStatusFeed {
+
+    private final OrderStatusBroadcaster broadcaster;
+
+    public LocalOrderStatusFeed(OrderStatusBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    @EventListener
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        broadcaster.publish(event);
+    }
+}
@@ -0,0 +1,173 @@
+package com.school.ecommerce.event;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.school.ecommerce.model.Order;
+import com.school.ecommerce.service.OrderStatusBroadcaster;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Feeds the order status streams from a change stream on orders, so a client
+ * connected to any node hears about updates made on every node. Needs a
+ * replica set (a single-node one is enough). The stream resumes from the last
+ * change it saw after an error.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.stream.source", havingValue = "change-stream")
+public class OrderChangeStreamFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderChangeStreamFeed.class);
+
+    // The resume point has fallen off the oplog
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    // Only what an event needs leaves the server, however long the order history is
+    private static final List<Bson> PIPELINE = List.of(
+            Aggregates.match(Filters.eq("operationType", "update")),
+            Aggregates.project(Projections.include("operationType", "ns", "documentKey",
+                    "updateDescription", "fullDocument.userId", "fullDocument.status")));
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderStatusBroadcaster broadcaster;
+    private final long retryMillis;
+    private volatile boolean running = true;
+    private BsonDocument resumeToken;
+
+    public OrderChangeStreamFeed(MongoTemplate mongoTemplate, OrderStatusBroadcaster broadcaster,
+            @Value("${orders.stream.change-stream.retry-ms:5000}") long retryMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.broadcaster = broadcaster;
+        this.retryMillis = retryMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread watcher = new Thread(this::watch, "order-change-stream");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    private void watch() {
+        while (running) {
+            try {
+                ChangeStreamIterable<Document> changes = mongoTemplate.getCollection(
+                        mongoTemplate.getCollectionName(Order.class)).watch(PIPELINE)
+                        .fullDocument(FullDocument.UPDATE_LOOKUP);
+                if (resumeToken != null) {
+                    changes = changes.resumeAfter(resumeToken);
+                }
+                try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changes.cursor()) {
+                    while (running) {
+                        ChangeStreamDocument<Document> change = cursor.tryNext();
+                        if (change != null) {
+                            resumeToken = change.getResumeToken();
+                            deliver(change);
+                        }
+                    }
+                }
+            } catch (MongoException e) {
+                if (e instanceof MongoCommandException command
+                        && command.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    // Changes in the gap are lost; streams pick up again from now
+                    resumeToken = null;
+                }
+                log.warn("Order change stream failed, retrying in {} ms", retryMillis, e);
+                if (!pause()) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // Anything else must not end the thread, or streams go quiet until a restart
+                log.error("Order change stream failed unexpectedly, retrying in {} ms", retryMillis, e);
+                if (!pause()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // A change that cannot be turned into an event is skipped; the resume token already moved past it
+    private void deliver(ChangeStreamDocument<Document> change) {
+        try {
+            OrderStatusChangedEvent event = toEvent(change);
+            if (event != null) {
+                broadcaster.publish(event);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Skipping order change {} that could not be published", change.getDocumentKey(), e);
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(retryMillis);
+            return true;
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Status changes set status and push one history entry; other updates, notes included, are skipped
+    private static OrderStatusChangedEvent toEvent(ChangeStreamDocument<Document> change) {
+        BsonDocument updated = change.getUpdateDescription() != null
+                ? change.getUpdateDescription().getUpdatedFields() : null;
+        if (updated == null) {
+            return null;
+        }
+        BsonDocument entry = null;
+        for (Map.Entry<String, BsonValue> field : updated.entrySet()) {
+            BsonValue value = field.getValue();
+            if (field.getKey().startsWith("historyUpdates.") && value.isDocument()) {
+                entry = value.asDocument();
+            } else if (field.getKey().equals("historyUpdates") && value.isArray() && !value.asArray().isEmpty()) {
+                BsonArray history = value.asArray();
+                entry = history.get(history.size() - 1).asDocument();
+            }
+        }
+        // A note repeats the current status, which the server leaves out of the updated fields
+        if (!updated.isString("status")) {
+            return null;
+        }
+
+        // The looked-up document may already be past this change, so use the change's own status
+        Document order = change.getFullDocument();
+        String status = updated.getString("status").getValue();
+        BsonValue id = change.getDocumentKey().get("_id");
+        String orderId = id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+        return new OrderStatusChangedEvent(orderId,
+                order != null ? order.getString("userId") : null,
+                Order.Status.valueOf(status),
+                entry != null && entry.isString("update") ? entry.getString("update").getValue() : null,
+                entry != null && entry.isDateTime("timestamp")
+                        ? Instant.ofEpochMilli(entry.getDateTime("timestamp").getValue()) : null);
+    }
+}
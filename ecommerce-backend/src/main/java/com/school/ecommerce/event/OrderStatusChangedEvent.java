@@ -0,0 +1,34 @@
+package com.school.ecommerce.event;
+
+import com.school.ecommerce.model.Order;
+
+import java.time.Instant;
+
+/**
+ * Published after an order status update is written, and sent as is to the
+ * order status streams. A note that keeps the status is published too, since
+ * it adds a history entry.
+ */
+public class OrderStatusChangedEvent {
+
+    private final String orderId;
+    private final String userId;
+    private final Order.Status status;
+    private final String note;
+    private final Instant timestamp;
+
+    public OrderStatusChangedEvent(String orderId, String userId, Order.Status status, String note,
+            Instant timestamp) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.status = status;
+        this.note = note;
+        this.timestamp = timestamp;
+    }
+
+    public String getOrderId() { return orderId; }
+    public String getUserId() { return userId; }
+    public Order.Status getStatus() { return status; }
+    public String getNote() { return note; }
+    public Instant getTimestamp() { return timestamp; }
+}
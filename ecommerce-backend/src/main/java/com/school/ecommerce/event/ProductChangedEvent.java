@@ -0,0 +1,35 @@
+package com.school.ecommerce.event;
+
+import com.school.ecommerce.model.Product;
+
+/**
+ * Published whenever a product document is written or removed, so in-memory
+ * read models (search index, caches) can stay in sync with Mongo.
+ */
+public class ProductChangedEvent {
+
+    public enum Type { SAVED, DELETED }
+
+    private final Type type;
+    private final String productId;
+    private final Product product;
+
+    private ProductChangedEvent(Type type, String productId, Product product) {
+        this.type = type;
+        this.productId = productId;
+        this.product = product;
+    }
+
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(Type.SAVED, product.getId(), product);
+    }
+
+    // productId is null when the delete was not a single-id delete
+    public static ProductChangedEvent deleted(String productId) {
+        return new ProductChangedEvent(Type.DELETED, productId, null);
+    }
+
+    public Type getType() { return type; }
+    public String getProductId() { return productId; }
+    public Product getProduct() { return product; }
+}
@@ -0,0 +1,58 @@
+package com.school.ecommerce.event;
+
+import com.school.ecommerce.model.Product;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Turns Spring Data mapping events for {@link Product} into {@link ProductChangedEvent}s.
+ * Covers repository and MongoTemplate save/remove calls; partial updates
+ * (updateFirst) have to publish the event, and bump revision and updatedAt,
+ * themselves.
+ */
+@Component
+public class ProductEventBridge extends AbstractMongoEventListener<Product> {
+
+    private final ApplicationEventPublisher publisher;
+
+    public ProductEventBridge(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    // Every full-document write is a new revision, including inserts
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<Product> event) {
+        Product product = event.getSource();
+        product.setRevision(product.getRevision() + 1);
+        product.setUpdatedAt(LocalDateTime.now());
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Product> event) {
+        publisher.publishEvent(ProductChangedEvent.saved(event.getSource()));
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Product> event) {
+        publisher.publishEvent(ProductChangedEvent.deleted(idOf(event.getSource())));
+    }
+
+    private String idOf(Document query) {
+        Object id = query.get("_id");
+        if (id instanceof ObjectId) {
+            return ((ObjectId) id).toHexString();
+        }
+        if (id instanceof String) {
+            return (String) id;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,5 @@
+package com.school.ecommerce.exception;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) { super(message); }
+}
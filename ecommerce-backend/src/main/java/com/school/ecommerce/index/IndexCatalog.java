@@ -0,0 +1,94 @@
+package com.school.ecommerce.index;
+
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.index.Index;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Secondary indexes the application relies on, grouped by collection. Each
+ * index is commented with the queries it serves; the QueryPlanCheck benchmark
+ * explains those queries, built by the services themselves, and fails when
+ * one still scans a collection.
+ * Sort indexes end in {@code _id} so cursor pagination can walk them too.
+ */
+public final class IndexCatalog {
+
+    private IndexCatalog() {
+    }
+
+    public static Map<String, List<Index>> indexes() {
+        Map<String, List<Index>> indexes = new LinkedHashMap<>();
+
+        indexes.put("products", List.of(
+                // findByCategoryId, category + price range search, similar products
+                new Index().on("categoryId", Direction.ASC).on("price", Direction.ASC)
+                        .named("categoryId_price"),
+                // sortBy=newest/relevance fallback, new arrivals
+                new Index().on("createdAt", Direction.DESC).on("_id", Direction.DESC)
+                        .named("createdAt_id"),
+                // sortBy=price_asc/price_desc (one index serves both directions)
+                new Index().on("price", Direction.ASC).on("_id", Direction.ASC)
+                        .named("price_id"),
+                // sortBy=name_asc/name_desc
+                new Index().on("name", Direction.ASC).on("_id", Direction.ASC)
+                        .named("name_id"),
+                // sortBy=popular, trending (lastViewed is filtered while walking hits order)
+                new Index().on("hits", Direction.DESC).on("_id", Direction.DESC)
+                        .named("hits_id"),
+                // featured, sortBy=rating, similar products order
+                new Index().on("rating", Direction.DESC).on("reviewCount", Direction.DESC)
+                        .on("hits", Direction.DESC).named("rating_reviewCount_hits"),
+                // products on sale
+                new Index().on("discount", Direction.DESC).named("discount"),
+                // platforms filter (multikey)
+                new Index().on("availablePlatforms", Direction.ASC).named("availablePlatforms")));
+
+        indexes.put("orders", List.of(
+                // order history by user, newest first, with _id cursor and date range
+                new Index().on("userId", Direction.ASC).on("_id", Direction.DESC).named("userId_id"),
+                // admin order listing by status, same paging
+                new Index().on("status", Direction.ASC).on("_id", Direction.DESC).named("status_id"),
+                // findByProductId
+                new Index().on("productId", Direction.ASC).named("productId"),
+                // checkout orders by product (multikey over line items)
+                new Index().on("items.productId", Direction.ASC).named("items_productId")));
+
+        indexes.put("inventory", List.of(
+                // findByProductId, batch lookups, reservations and bulk upserts; one stock record per product
+                new Index().on("productId", Direction.ASC).unique().named("productId")));
+
+        indexes.put("reservations", List.of(
+                // expiry sweeper: active reservations past expiresAt
+                new Index().on("status", Direction.ASC).on("expiresAt", Direction.ASC).named("status_expiresAt"),
+                // release on order cancel
+                new Index().on("orderId", Direction.ASC).named("orderId"),
+                // purge released and expired reservations a week after they close (TTL)
+                new Index().on("closedAt", Direction.ASC).expire(Duration.ofDays(7)).named("closedAt_ttl")));
+
+        indexes.put("product_analytics", List.of(
+                // findByProductId and the hit counter's upserts; unique so concurrent upserts cannot duplicate
+                new Index().on("productId", Direction.ASC).unique().named("productId")));
+
+        indexes.put("reviews", List.of(
+                // findByProductId, newest first
+                new Index().on("productId", Direction.ASC).on("_id", Direction.DESC).named("productId_id")));
+
+        indexes.put("shipping", List.of(
+                // findByOrderId
+                new Index().on("orderId", Direction.ASC).named("orderId")));
+
+        indexes.put("search_queries", List.of(
+                // popular queries for suggestions, most searched first
+                new Index().on("count", Direction.DESC).named("count")));
+
+        indexes.put("users", List.of(
+                // findByEmail, existsByEmail
+                new Index().on("email", Direction.ASC).unique().named("email")));
+
+        return indexes;
+    }
+}
@@ -0,0 +1,75 @@
+package com.school.ecommerce.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the {@link IndexCatalog} indexes once the application is up, on a
+ * background thread so startup and request handling are not held back.
+ * Whether the queries actually use them is checked outside the application,
+ * by the QueryPlanCheck benchmark.
+ */
+@Component
+public class MongoIndexInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean buildOnStartup;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate,
+            @Value("${indexes.build-on-startup:true}") boolean buildOnStartup) {
+        this.mongoTemplate = mongoTemplate;
+        this.buildOnStartup = buildOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildAsync() {
+        if (!buildOnStartup) {
+            return;
+        }
+        Thread builder = new Thread(this::build, "mongo-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Creates missing indexes and returns how many could not be created.
+     * Existing indexes are left alone, so this is cheap to repeat.
+     */
+    public int buildAll() {
+        int failed = 0;
+        for (Map.Entry<String, List<Index>> entry : IndexCatalog.indexes().entrySet()) {
+            for (Index index : entry.getValue()) {
+                try {
+                    mongoTemplate.indexOps(entry.getKey()).ensureIndex(index);
+                } catch (RuntimeException e) {
+                    // Typically duplicate keys under a unique index, or a same-key index with another name
+                    log.warn("Could not create index {} on {}: {}",
+                            index.getIndexOptions().get("name"), entry.getKey(), e.getMessage());
+                    failed++;
+                }
+            }
+        }
+        return failed;
+    }
+
+    private void build() {
+        try {
+            long start = System.currentTimeMillis();
+            int failed = buildAll();
+            log.info("Mongo indexes ensured in {} ms ({} failed)", System.currentTimeMillis() - start, failed);
+        } catch (RuntimeException e) {
+            log.error("Mongo index build failed", e);
+        }
+    }
+}
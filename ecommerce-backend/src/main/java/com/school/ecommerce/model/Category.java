@@ -3,12 +3,17 @@ package com.school.ecommerce.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.LocalDateTime;
+
 @Document(collection = "categories")
 public class Category {
     @Id
     private String id;
     private String name;
     private String description;
+    // Stamped on every write by CategoryEventBridge
+    private long revision;
+    private LocalDateTime updatedAt;
 
     public Category() {}
 
@@ -22,5 +27,9 @@ public class Category {
     public void setName(String name) { this.name = name; }
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
+    public long getRevision() { return revision; }
+    public void setRevision(long revision) { this.revision = revision; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 }
 
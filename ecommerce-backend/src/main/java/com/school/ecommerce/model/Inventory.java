@@ -9,7 +9,11 @@ public class Inventory {
     private String id;
     private String productId;
     private int stock;
+    // Units taken off stock by open reservations that have not shipped yet; still on the shelf
+    private int reserved;
     private int restockThreshold;
+    // The documents also carry "holds", the orders in the middle of a checkout; only
+    // StockReservations reads or writes it, so it is left unmapped here
 
     public String getProductId() {
         return productId;
@@ -27,6 +31,14 @@ public class Inventory {
         this.stock = stock;
     }
 
+    public int getReserved() {
+        return reserved;
+    }
+
+    public void setReserved(int reserved) {
+        this.reserved = reserved;
+    }
+
     public int getRestockThreshold() {
         return restockThreshold;
     }
@@ -34,8 +46,4 @@ public class Inventory {
     public void setRestockThreshold(int restockThreshold) {
         this.restockThreshold = restockThreshold;
     }
-
-    public void setQuantity(int quantity) {
-        throw new UnsupportedOperationException("Unimplemented method 'setQuantity'");
-    }
 }
@@ -12,11 +12,25 @@ public class Order {
     @Id
     private String id;
     private String userId;
+    // Single-product orders; checkout orders list their products in items instead
     private String productId;
+    private List<LineItem> items;
+    private double subtotal;
     private Status status;
     private List<UpdateHistory> historyUpdates = new ArrayList<>();
 
-    public enum Status { PENDING, SHIPPED, DELIVERED, CANCELLED }
+    public enum Status {
+        PENDING, SHIPPED, DELIVERED, CANCELLED;
+
+        // Pending orders ship or are cancelled, shipped ones are delivered; delivered and cancelled are final
+        public boolean canMoveTo(Status next) {
+            return switch (this) {
+                case PENDING -> next == SHIPPED || next == CANCELLED;
+                case SHIPPED -> next == DELIVERED;
+                case DELIVERED, CANCELLED -> false;
+            };
+        }
+    }
 
     public static class UpdateHistory {
         private String update;
@@ -31,6 +45,28 @@ public class Order {
         public void setTimestamp(Instant timestamp) { this.timestamp = timestamp; }
     }
 
+    // Priced when the order is placed, so later price changes do not alter it
+    public static class LineItem {
+        private String productId;
+        private String name;
+        private double unitPrice;
+        private int quantity;
+
+        public LineItem() {}
+        public LineItem(String productId, String name, double unitPrice, int quantity) {
+            this.productId = productId; this.name = name; this.unitPrice = unitPrice; this.quantity = quantity;
+        }
+
+        public String getProductId() { return productId; }
+        public void setProductId(String productId) { this.productId = productId; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public double getUnitPrice() { return unitPrice; }
+        public void setUnitPrice(double unitPrice) { this.unitPrice = unitPrice; }
+        public int getQuantity() { return quantity; }
+        public void setQuantity(int quantity) { this.quantity = quantity; }
+    }
+
     public Order() {}
 
     public Order(String id, String userId, String productId, Status status) {
@@ -43,6 +79,10 @@ public class Order {
     public void setUserId(String userId) { this.userId = userId; }
     public String getProductId() { return productId; }
     public void setProductId(String productId) { this.productId = productId; }
+    public List<LineItem> getItems() { return items; }
+    public void setItems(List<LineItem> items) { this.items = items; }
+    public double getSubtotal() { return subtotal; }
+    public void setSubtotal(double subtotal) { this.subtotal = subtotal; }
     public Status getStatus() { return status; }
     public void setStatus(Status status) { this.status = status; }
     public List<UpdateHistory> getHistoryUpdates() { return historyUpdates; }
@@ -3,7 +3,9 @@ package com.school.ecommerce.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Document(collection = "products")
 public class Product {
@@ -18,6 +20,21 @@ public class Product {
 
     private List<String> availablePlatforms;
 
+    // Maintained by ProductHitCounter; mapped so full-document saves keep them
+    private long hits;
+    private LocalDateTime lastViewed;
+
+    // Review aggregates, maintained by ReviewServiceImpl and rebuilt by ReviewSummaryRebuildJob.
+    // rating is ratingSum / reviewCount to one decimal; ratingHistogram counts reviews by stars ("1".."5")
+    private double rating;
+    private int reviewCount;
+    private long ratingSum;
+    private Map<String, Integer> ratingHistogram;
+
+    // Stamped on every write by ProductEventBridge; the HTTP validators derive from them
+    private long revision;
+    private LocalDateTime updatedAt;
+
     public Product() {
     }
 
@@ -105,4 +122,68 @@ public class Product {
     public void setAvailablePlatforms(List<String> availablePlatforms) {
         this.availablePlatforms = availablePlatforms;
     }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public LocalDateTime getLastViewed() {
+        return lastViewed;
+    }
+
+    public void setLastViewed(LocalDateTime lastViewed) {
+        this.lastViewed = lastViewed;
+    }
+
+    public double getRating() {
+        return rating;
+    }
+
+    public void setRating(double rating) {
+        this.rating = rating;
+    }
+
+    public int getReviewCount() {
+        return reviewCount;
+    }
+
+    public void setReviewCount(int reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public Map<String, Integer> getRatingHistogram() {
+        return ratingHistogram;
+    }
+
+    public void setRatingHistogram(Map<String, Integer> ratingHistogram) {
+        this.ratingHistogram = ratingHistogram;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
@@ -0,0 +1,47 @@
+package com.school.ecommerce.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Stock held for a buyer. The units are taken off {@link Inventory#getStock()}
+ * when the reservation is made and given back when it is released or expires.
+ * Until the order ships they also count in {@link Inventory#getReserved()}.
+ */
+@Document(collection = "reservations")
+public class Reservation {
+    @Id
+    private String id;
+    private String productId;
+    private String orderId;
+    private int quantity;
+    private Status status;
+    private Instant createdAt;
+    private Instant expiresAt;
+    // Set once the reservation is released, expired or fulfilled; a TTL index purges it later
+    private Instant closedAt;
+
+    // FULFILLED: the order shipped, so its units left the warehouse for good
+    public enum Status { ACTIVE, COMMITTED, RELEASED, EXPIRED, FULFILLED }
+
+    public Reservation() {}
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+    public String getOrderId() { return orderId; }
+    public void setOrderId(String orderId) { this.orderId = orderId; }
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+    public Instant getClosedAt() { return closedAt; }
+    public void setClosedAt(Instant closedAt) { this.closedAt = closedAt; }
+}
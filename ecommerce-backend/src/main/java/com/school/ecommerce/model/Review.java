@@ -12,6 +12,15 @@ public class Review {
     private int rating; // 1-5
     private String comment;
 
-    // getters and setters...
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    public int getRating() { return rating; }
+    public void setRating(int rating) { this.rating = rating; }
+    public String getComment() { return comment; }
+    public void setComment(String comment) { this.comment = comment; }
 }
 
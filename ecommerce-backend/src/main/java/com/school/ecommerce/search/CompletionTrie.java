@@ -0,0 +1,388 @@
+package com.school.ecommerce.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed prefix trie (radix tree) for top-k completion. Each entry is keyed
+ * by its normalized text and by every later word of it, so "apple iphone 15"
+ * also completes "iph". Every node keeps the best weight below it, which lets
+ * {@link #complete} walk the trie best-first and stop after k entries instead
+ * of collecting every match of a short prefix.
+ */
+public class CompletionTrie {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Completion[] NO_COMPLETIONS = new Completion[0];
+
+    private static final Comparator<Candidate> BY_WEIGHT =
+            Comparator.comparingDouble((Candidate c) -> c.weight).reversed();
+
+    private final int maxKeysPerEntry;
+    private final Node root = new Node("");
+    private final Map<String, Completion> byId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public CompletionTrie(int maxKeysPerEntry) {
+        this.maxKeysPerEntry = maxKeysPerEntry;
+    }
+
+    /**
+     * One completable entry. {@code detail} is an optional payload returned with
+     * the entry, such as a product image.
+     */
+    public static final class Completion {
+        private final String id;
+        private final String text;
+        private final String detail;
+        private final double weight;
+
+        public Completion(String id, String text, String detail, double weight) {
+            this.id = id;
+            this.text = text;
+            this.detail = detail;
+            this.weight = weight;
+        }
+
+        public String getId() { return id; }
+        public String getText() { return text; }
+        public String getDetail() { return detail; }
+        public double getWeight() { return weight; }
+    }
+
+    private static final class Node {
+        String label;
+        Node[] children = NO_CHILDREN;
+        Completion[] completions = NO_COMPLETIONS;
+        double maxWeight = Double.NEGATIVE_INFINITY;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    // A queued subtree (node set) or a single entry (completion set), ordered by weight
+    private static final class Candidate {
+        final double weight;
+        final Node node;
+        final Completion completion;
+
+        Candidate(Node node) {
+            this.weight = node.maxWeight;
+            this.node = node;
+            this.completion = null;
+        }
+
+        Candidate(Completion completion) {
+            this.weight = completion.weight;
+            this.node = null;
+            this.completion = completion;
+        }
+    }
+
+    public static String normalize(String text) {
+        return String.join(" ", InvertedIndex.tokenize(text));
+    }
+
+    public void put(String id, String text, String detail, double weight) {
+        Completion completion = new Completion(id, text, detail, weight);
+        List<String> keys = keys(text);
+
+        lock.writeLock().lock();
+        try {
+            Completion previous = byId.remove(id);
+            if (previous != null) {
+                removeKeys(previous);
+            }
+            if (keys.isEmpty()) {
+                return;
+            }
+            for (String key : keys) {
+                insert(key, completion);
+            }
+            byId.put(id, completion);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Completion previous = byId.remove(id);
+            if (previous != null) {
+                removeKeys(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Completion get(String id) {
+        lock.readLock().lock();
+        try {
+            return byId.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns at most {@code limit} entries with a key starting with the
+     * normalized {@code prefix}, highest weight first.
+     */
+    public List<Completion> complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node start = find(key);
+            if (start == null) {
+                return List.of();
+            }
+
+            // Several keys of one entry can share the prefix, so results are keyed by id
+            Map<String, Completion> results = new LinkedHashMap<>();
+            PriorityQueue<Candidate> queue = new PriorityQueue<>(BY_WEIGHT);
+            queue.add(new Candidate(start));
+            while (!queue.isEmpty() && results.size() < limit) {
+                Candidate next = queue.poll();
+                if (next.completion != null) {
+                    results.putIfAbsent(next.completion.id, next.completion);
+                    continue;
+                }
+                for (Completion completion : next.node.completions) {
+                    queue.add(new Candidate(completion));
+                }
+                for (Node child : next.node.children) {
+                    queue.add(new Candidate(child));
+                }
+            }
+            return new ArrayList<>(results.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate retained size in bytes, assuming a 64-bit JVM with compressed
+     * oops and compact strings. Walks the whole trie.
+     */
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = estimateNodes(root);
+            Map<Completion, Boolean> counted = new IdentityHashMap<>();
+            for (Completion completion : byId.values()) {
+                if (counted.put(completion, Boolean.TRUE) == null) {
+                    // Object, its strings, and the byId map entry that holds it
+                    bytes += 32 + stringBytes(completion.id) + stringBytes(completion.text)
+                            + stringBytes(completion.detail) + 36;
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== KEYS ====================
+
+    private List<String> keys(String text) {
+        List<String> tokens = InvertedIndex.tokenize(text);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < tokens.size() && keys.size() < maxKeysPerEntry; i++) {
+            String key = String.join(" ", tokens.subList(i, tokens.size()));
+            if (!keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private void removeKeys(Completion completion) {
+        for (String key : keys(completion.text)) {
+            remove(root, key, 0, completion);
+        }
+    }
+
+    // ==================== TREE OPERATIONS ====================
+
+    private Node find(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = child(node, prefix.charAt(i));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefix(child.label, prefix, i);
+            if (i + common == prefix.length()) {
+                // The prefix ends on this edge, so the whole subtree matches
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            node = child;
+            i += common;
+        }
+        return node;
+    }
+
+    private void insert(String key, Completion completion) {
+        Node node = root;
+        node.maxWeight = Math.max(node.maxWeight, completion.weight);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = child(node, key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children = append(node.children, child);
+                node = child;
+                node.maxWeight = completion.weight;
+                i = key.length();
+                break;
+            }
+
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Split the edge where the key leaves it
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children = new Node[] { child };
+                middle.maxWeight = child.maxWeight;
+                replace(node, child, middle);
+                child = middle;
+            }
+            node = child;
+            node.maxWeight = Math.max(node.maxWeight, completion.weight);
+            i += common;
+        }
+        node.completions = append(node.completions, completion);
+    }
+
+    // Returns false once the node holds nothing and can be unlinked by its parent
+    private boolean remove(Node node, String key, int i, Completion completion) {
+        if (i == key.length()) {
+            node.completions = without(node.completions, completion);
+        } else {
+            Node child = child(node, key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return true;
+            }
+            if (!remove(child, key, i + child.label.length(), completion)) {
+                node.children = without(node.children, child);
+            } else if (child.completions.length == 0 && child.children.length == 1) {
+                // Keep the trie compressed: fold a pass-through node into its only child
+                Node only = child.children[0];
+                child.label = child.label + only.label;
+                child.children = only.children;
+                child.completions = only.completions;
+            }
+        }
+
+        node.maxWeight = Double.NEGATIVE_INFINITY;
+        for (Completion c : node.completions) {
+            node.maxWeight = Math.max(node.maxWeight, c.weight);
+        }
+        for (Node child : node.children) {
+            node.maxWeight = Math.max(node.maxWeight, child.maxWeight);
+        }
+        return node == root || node.completions.length > 0 || node.children.length > 0;
+    }
+
+    private static Node child(Node node, char first) {
+        for (Node child : node.children) {
+            if (child.label.charAt(0) == first) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static void replace(Node parent, Node oldChild, Node newChild) {
+        for (int i = 0; i < parent.children.length; i++) {
+            if (parent.children[i] == oldChild) {
+                parent.children[i] = newChild;
+                return;
+            }
+        }
+    }
+
+    private static <T> T[] append(T[] array, T value) {
+        T[] copy = Arrays.copyOf(array, array.length + 1);
+        copy[array.length] = value;
+        return copy;
+    }
+
+    private static <T> T[] without(T[] array, T value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == value) {
+                T[] copy = Arrays.copyOf(array, array.length - 1);
+                System.arraycopy(array, i + 1, copy, i, array.length - i - 1);
+                return copy;
+            }
+        }
+        return array;
+    }
+
+    // ==================== FOOTPRINT ====================
+
+    private long estimateNodes(Node node) {
+        // Node object, its label and its arrays (the shared empty arrays are free)
+        long bytes = 32 + stringBytes(node.label);
+        if (node.children.length > 0) {
+            bytes += align(16 + 4L * node.children.length);
+        }
+        if (node.completions.length > 0) {
+            bytes += align(16 + 4L * node.completions.length);
+        }
+        for (Node child : node.children) {
+            bytes += estimateNodes(child);
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String s) {
+        if (s == null) {
+            return 0;
+        }
+        boolean latin1 = s.chars().allMatch(c -> c < 256);
+        return 24 + align(16 + (long) s.length() * (latin1 ? 1 : 2));
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
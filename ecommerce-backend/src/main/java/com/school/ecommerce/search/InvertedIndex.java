@@ -0,0 +1,168 @@
+package com.school.ecommerce.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product name and description.
+ * Terms are lower-cased word tokens; every query token is matched as a prefix
+ * and all query tokens must match (AND). Name hits outweigh description hits
+ * and exact term hits outweigh prefix hits.
+ */
+public class InvertedIndex {
+
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double PREFIX_FACTOR = 0.5;
+
+    private static final Comparator<Map.Entry<String, Double>> BY_SCORE =
+            Map.Entry.<String, Double>comparingByValue()
+                    .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+
+    private final NavigableMap<String, Map<String, Double>> postings = new TreeMap<>();
+    private final Map<String, Set<String>> termsByProduct = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    public void put(String productId, String name, String description) {
+        Map<String, Double> weights = new HashMap<>();
+        addTerms(weights, name, NAME_WEIGHT);
+        addTerms(weights, description, DESCRIPTION_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            removeTerms(productId);
+            for (Map.Entry<String, Double> term : weights.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), k -> new HashMap<>()).put(productId, term.getValue());
+            }
+            termsByProduct.put(productId, weights.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String productId) {
+        lock.writeLock().lock();
+        try {
+            removeTerms(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns at most {@code limit} matching product ids with their scores,
+     * best match first.
+     */
+    public Map<String, Double> search(String text, int limit) {
+        List<String> tokens = tokenize(text);
+        if (tokens.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Double> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String token : tokens) {
+                Map<String, Double> tokenScores = new HashMap<>();
+                for (Map.Entry<String, Map<String, Double>> term : postings
+                        .subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+                    double factor = term.getKey().length() == token.length() ? 1.0 : PREFIX_FACTOR;
+                    for (Map.Entry<String, Double> posting : term.getValue().entrySet()) {
+                        if (scores == null || scores.containsKey(posting.getKey())) {
+                            tokenScores.merge(posting.getKey(), posting.getValue() * factor, Math::max);
+                        }
+                    }
+                }
+
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return top(scores, limit);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return termsByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addTerms(Map<String, Double> weights, String text, double weight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Double::sum);
+        }
+    }
+
+    private void removeTerms(String productId) {
+        Set<String> terms = termsByProduct.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<String, Double> products = postings.get(term);
+            if (products != null) {
+                products.remove(productId);
+                if (products.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private Map<String, Double> top(Map<String, Double> scores, int limit) {
+        PriorityQueue<Map.Entry<String, Double>> heap = new PriorityQueue<>(BY_SCORE);
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>(heap);
+        ranked.sort(BY_SCORE.reversed());
+
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Double> entry : ranked) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,129 @@
+package com.school.ecommerce.search;
+
+import com.school.ecommerce.event.ProductChangedEvent;
+import com.school.ecommerce.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Serves searches from an {@link InvertedIndex} built from the products
+ * collection at startup and kept in sync through {@link ProductChangedEvent}s.
+ * Falls back to regex matching until the first build has finished.
+ */
+@Component
+@ConditionalOnProperty(name = "search.engine", havingValue = "index", matchIfMissing = true)
+public class InvertedIndexSearchEngine implements ProductSearchEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(InvertedIndexSearchEngine.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final int maxCandidates;
+    private final int maxFilteredCandidates;
+    private final RegexSearchEngine fallback = new RegexSearchEngine();
+
+    private volatile InvertedIndex index = new InvertedIndex();
+    private volatile boolean ready = false;
+
+    // Changes seen while a rebuild is streaming the collection; replayed onto the new index
+    private List<ProductChangedEvent> pendingChanges;
+
+    public InvertedIndexSearchEngine(MongoTemplate mongoTemplate,
+            @Value("${search.index.max-candidates:10000}") int maxCandidates,
+            @Value("${search.index.max-filtered-candidates:100000}") int maxFilteredCandidates) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxCandidates = maxCandidates;
+        this.maxFilteredCandidates = maxFilteredCandidates;
+    }
+
+    @Override
+    public SearchMatch match(String text, boolean bestOnly) {
+        if (!ready) {
+            return fallback.match(text, bestOnly);
+        }
+
+        // Filters and other sorts must see every match, not just the best-ranked ones; the
+        // larger bound only keeps the $in below Mongo's document size limit
+        int limit = bestOnly ? maxCandidates : maxFilteredCandidates;
+        // One extra candidate tells whether anything was cut off
+        Map<String, Double> scores = index.search(text, limit + 1);
+        boolean truncated = scores.size() > limit;
+        if (truncated) {
+            scores = scores.entrySet().stream()
+                    .limit(limit)
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a,
+                            LinkedHashMap::new));
+        }
+        // "_id" rather than "id" so the criteria also map on raw Document queries
+        return new SearchMatch(Criteria.where("_id").in(scores.keySet()), scores, truncated);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAsync() {
+        Thread builder = new Thread(this::rebuild, "search-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    public void rebuild() {
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+
+        InvertedIndex fresh = new InvertedIndex();
+        Query query = new Query();
+        query.fields().include("name").include("description");
+
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            products.forEach(p -> fresh.put(p.getId(), p.getName(), p.getDescription()));
+        } catch (RuntimeException e) {
+            log.error("Search index build failed, staying on regex search", e);
+            synchronized (this) {
+                pendingChanges = null;
+            }
+            return;
+        }
+
+        synchronized (this) {
+            pendingChanges.forEach(change -> apply(fresh, change));
+            pendingChanges = null;
+            index = fresh;
+        }
+        ready = true;
+        log.info("Search index built with {} products", fresh.size());
+    }
+
+    @EventListener
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (pendingChanges != null) {
+            pendingChanges.add(event);
+        }
+        apply(index, event);
+    }
+
+    private void apply(InvertedIndex target, ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.SAVED) {
+            Product product = event.getProduct();
+            target.put(product.getId(), product.getName(), product.getDescription());
+        } else if (event.getProductId() != null) {
+            target.remove(event.getProductId());
+        } else if (pendingChanges == null) {
+            // Multi-document delete: we cannot tell which ids went away
+            rebuildAsync();
+        }
+    }
+}
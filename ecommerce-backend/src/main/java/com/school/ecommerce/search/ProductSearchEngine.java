@@ -0,0 +1,15 @@
+package com.school.ecommerce.search;
+
+/**
+ * Resolves the free-text part of a product search. Selected with the
+ * {@code search.engine} property ({@code index} or {@code regex}).
+ */
+public interface ProductSearchEngine {
+
+    /**
+     * @param bestOnly only the best-ranked matches are wanted, as for a
+     *        relevance-ordered search with no other filter; otherwise other
+     *        filters or sorts still apply and every match is needed
+     */
+    SearchMatch match(String text, boolean bestOnly);
+}
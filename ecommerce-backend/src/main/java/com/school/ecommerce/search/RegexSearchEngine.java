@@ -0,0 +1,22 @@
+package com.school.ecommerce.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+/**
+ * Case-insensitive regex over name and description. Needs a collection scan,
+ * so it is only meant for small catalogs or as a fallback.
+ */
+@Component
+@ConditionalOnProperty(name = "search.engine", havingValue = "regex")
+public class RegexSearchEngine implements ProductSearchEngine {
+
+    @Override
+    public SearchMatch match(String text, boolean bestOnly) {
+        Criteria criteria = new Criteria().orOperator(
+                Criteria.where("name").regex(text, "i"),
+                Criteria.where("description").regex(text, "i"));
+        return new SearchMatch(criteria, null);
+    }
+}
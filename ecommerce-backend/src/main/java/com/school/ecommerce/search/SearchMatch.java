@@ -0,0 +1,51 @@
+package com.school.ecommerce.search;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of matching a search string: the criteria to add to the product query
+ * and, for engines that can rank, the matching ids ordered by relevance.
+ */
+public class SearchMatch {
+
+    private final Criteria criteria;
+    private final Map<String, Double> scores;
+    private final boolean truncated;
+
+    public SearchMatch(Criteria criteria, Map<String, Double> scores) {
+        this(criteria, scores, false);
+    }
+
+    public SearchMatch(Criteria criteria, Map<String, Double> scores, boolean truncated) {
+        this.criteria = criteria;
+        this.scores = scores != null ? scores : Collections.emptyMap();
+        this.truncated = truncated;
+    }
+
+    public Criteria getCriteria() {
+        return criteria;
+    }
+
+    // Ordered best match first
+    public Map<String, Double> getScores() {
+        return scores;
+    }
+
+    // More products matched than the engine handed over, so totals are a lower bound
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public boolean isRanked() {
+        return !scores.isEmpty();
+    }
+
+    public List<String> getRankedIds() {
+        return new ArrayList<>(scores.keySet());
+    }
+}
@@ -0,0 +1,171 @@
+package com.school.ecommerce.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts the search terms users submit and persists them to the
+ * {@code search_queries} collection in batches, one document per normalized
+ * query. {@link SuggestionEngine} drives the flushes and serves the popular
+ * queries as suggestions. Only queries seen {@code min-count} times are ever
+ * read back, so one-off searches are never shown to other users.
+ */
+@Component
+public class SearchQueryLog {
+
+    static final String COLLECTION = "search_queries";
+
+    private static final Logger log = LoggerFactory.getLogger(SearchQueryLog.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final int maxPending;
+    private final int minLength;
+    private final int maxLength;
+    private final long minCount;
+    private final int maxAgeDays;
+    private final ConcurrentHashMap<String, LongAdder> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Counter droppedQueries;
+
+    public SearchQueryLog(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+            @Value("${suggest.queries.max-pending:10000}") int maxPending,
+            @Value("${suggest.queries.min-length:2}") int minLength,
+            @Value("${suggest.queries.max-length:64}") int maxLength,
+            @Value("${suggest.queries.min-count:3}") long minCount,
+            @Value("${suggest.queries.max-age-days:30}") int maxAgeDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxPending = maxPending;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.minCount = minCount;
+        this.maxAgeDays = maxAgeDays;
+
+        Gauge.builder("search.queries.pending", pending, Map::size)
+                .description("Distinct search queries waiting to be flushed")
+                .register(meterRegistry);
+        this.droppedQueries = meterRegistry.counter("search.queries.dropped");
+    }
+
+    public void record(String query) {
+        String normalized = CompletionTrie.normalize(query);
+        if (normalized.length() < minLength || normalized.length() > maxLength) {
+            return;
+        }
+
+        LongAdder count = pending.get(normalized);
+        if (count == null) {
+            if (pending.size() >= maxPending) {
+                // Suggestions are best effort; the next flush frees room
+                droppedQueries.increment();
+                return;
+            }
+            count = pending.computeIfAbsent(normalized, q -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Writes the pending counts and returns the new totals of the flushed queries
+     * that are popular enough to suggest.
+     */
+    public Map<String, Long> flush() {
+        flushLock.lock();
+        try {
+            Map<String, Long> batch = drain();
+            if (batch.isEmpty()) {
+                return Map.of();
+            }
+
+            try {
+                write(batch);
+                return popular(Criteria.where("_id").in(batch.keySet()), batch.size());
+            } catch (RuntimeException e) {
+                droppedQueries.increment(batch.size());
+                log.warn("Dropped {} search queries after a failed flush", batch.size(), e);
+                return Map.of();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * The most searched queries of the last {@code max-age-days}, most searched first.
+     */
+    public Map<String, Long> popular(int limit) {
+        return popular(null, limit);
+    }
+
+    /**
+     * The query behind {@link #popular}, narrowed by {@code criteria} when not null.
+     */
+    public Query popularQuery(Criteria criteria, int limit) {
+        Date since = Date.from(Instant.now().minus(maxAgeDays, ChronoUnit.DAYS));
+        Query query = new Query(Criteria.where("count").gte(minCount))
+                .addCriteria(Criteria.where("lastSearched").gte(since))
+                .with(Sort.by(Sort.Direction.DESC, "count"))
+                .limit(limit);
+        if (criteria != null) {
+            query.addCriteria(criteria);
+        }
+        return query;
+    }
+
+    private Map<String, Long> popular(Criteria criteria, int limit) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Document doc : mongoTemplate.find(popularQuery(criteria, limit), Document.class, COLLECTION)) {
+            counts.put(doc.getString("_id"), ((Number) doc.get("count")).longValue());
+        }
+        return counts;
+    }
+
+    private Map<String, Long> drain() {
+        Map<String, Long> batch = new HashMap<>();
+        for (Map.Entry<String, LongAdder> entry : pending.entrySet()) {
+            LongAdder count = entry.getValue();
+            pending.remove(entry.getKey(), count);
+            long searches = count.sumThenReset();
+            if (searches > 0) {
+                batch.merge(entry.getKey(), searches, Long::sum);
+            }
+        }
+        return batch;
+    }
+
+    private void write(Map<String, Long> batch) {
+        Date now = new Date();
+        BulkOperations queries = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        batch.forEach((query, count) -> queries.upsert(new Query(Criteria.where("_id").is(query)),
+                new Update().inc("count", count).set("lastSearched", now)));
+        queries.execute();
+    }
+}
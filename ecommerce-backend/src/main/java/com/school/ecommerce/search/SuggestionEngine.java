@@ -0,0 +1,270 @@
+package com.school.ecommerce.search;
+
+import com.school.ecommerce.dto.CategorySuggestionDTO;
+import com.school.ecommerce.dto.ProductSuggestionDTO;
+import com.school.ecommerce.dto.SearchSuggestionsDTO;
+import com.school.ecommerce.event.CategoryChangedEvent;
+import com.school.ecommerce.event.ProductChangedEvent;
+import com.school.ecommerce.model.Category;
+import com.school.ecommerce.model.Product;
+import com.school.ecommerce.search.CompletionTrie.Completion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Serves search suggestions from three {@link CompletionTrie}s: product names
+ * weighted by views and rating, category names weighted by product count, and
+ * popular queries from the {@link SearchQueryLog} weighted by search count.
+ * The tries are built at startup and on a schedule (views are counted without
+ * product events), and kept in sync in between through change events.
+ */
+@Component
+public class SuggestionEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestionEngine.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final SearchQueryLog queryLog;
+    private final int maxKeysPerName;
+    private final int maxQueries;
+    private final Timer lookupTimer;
+
+    private volatile Tries tries;
+    private volatile boolean ready = false;
+
+    // Changes seen while a rebuild is streaming the collections; replayed onto the new tries
+    private List<Consumer<Tries>> pendingChanges;
+    private boolean rebuilding = false;
+    private boolean rebuildAgain = false;
+
+    private static final class Tries {
+        final CompletionTrie products;
+        final CompletionTrie categories;
+        final CompletionTrie queries;
+
+        Tries(int maxKeysPerName) {
+            this.products = new CompletionTrie(maxKeysPerName);
+            this.categories = new CompletionTrie(maxKeysPerName);
+            // A query is only completed from its start
+            this.queries = new CompletionTrie(1);
+        }
+    }
+
+    public SuggestionEngine(MongoTemplate mongoTemplate, SearchQueryLog queryLog, MeterRegistry meterRegistry,
+            @Value("${suggest.max-keys-per-name:4}") int maxKeysPerName,
+            @Value("${suggest.queries.max-entries:50000}") int maxQueries) {
+        this.mongoTemplate = mongoTemplate;
+        this.queryLog = queryLog;
+        this.maxKeysPerName = maxKeysPerName;
+        this.maxQueries = maxQueries;
+        this.tries = new Tries(maxKeysPerName);
+
+        registerTrieGauges(meterRegistry, "products", t -> t.products);
+        registerTrieGauges(meterRegistry, "categories", t -> t.categories);
+        registerTrieGauges(meterRegistry, "queries", t -> t.queries);
+        this.lookupTimer = Timer.builder("search.suggestions.lookup")
+                .description("Time spent completing one suggestion prefix")
+                .register(meterRegistry);
+    }
+
+    private void registerTrieGauges(MeterRegistry meterRegistry, String name,
+            Function<Tries, CompletionTrie> trie) {
+        Gauge.builder("search.suggestions.memory", this, e -> trie.apply(e.tries).estimatedBytes())
+                .description("Approximate heap retained by a suggestion trie")
+                .baseUnit("bytes")
+                .tag("trie", name)
+                .register(meterRegistry);
+        Gauge.builder("search.suggestions.entries", this, e -> trie.apply(e.tries).size())
+                .description("Entries in a suggestion trie")
+                .tag("trie", name)
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public SearchSuggestionsDTO suggest(String query, int limit) {
+        return lookupTimer.record(() -> {
+            Tries current = tries;
+            SearchSuggestionsDTO suggestions = new SearchSuggestionsDTO();
+            suggestions.setProducts(current.products.complete(query, limit).stream()
+                    .map(c -> new ProductSuggestionDTO(c.getId(), c.getText(), c.getDetail()))
+                    .collect(Collectors.toList()));
+            suggestions.setCategories(current.categories.complete(query, limit).stream()
+                    .map(c -> new CategorySuggestionDTO(c.getId(), c.getText()))
+                    .collect(Collectors.toList()));
+            suggestions.setSuggestions(popularQueries(query, limit));
+            return suggestions;
+        });
+    }
+
+    public List<String> popularQueries(String query, int limit) {
+        return tries.queries.complete(query, limit).stream()
+                .map(Completion::getText)
+                .collect(Collectors.toList());
+    }
+
+    // ==================== BUILD ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAsync() {
+        synchronized (this) {
+            if (rebuilding) {
+                // Run once more when the current build is done, so it sees every change
+                rebuildAgain = true;
+                return;
+            }
+            rebuilding = true;
+        }
+        Thread builder = new Thread(this::rebuild, "suggestion-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @Scheduled(initialDelayString = "${suggest.rebuild-interval-ms:900000}",
+            fixedDelayString = "${suggest.rebuild-interval-ms:900000}")
+    public void scheduledRebuild() {
+        rebuildAsync();
+    }
+
+    private void rebuild() {
+        boolean again;
+        do {
+            synchronized (this) {
+                pendingChanges = new ArrayList<>();
+                rebuildAgain = false;
+            }
+
+            try {
+                Tries fresh = build();
+                synchronized (this) {
+                    pendingChanges.forEach(change -> change.accept(fresh));
+                    tries = fresh;
+                }
+                ready = true;
+                log.info("Suggestion index built with {} products, {} categories and {} queries",
+                        fresh.products.size(), fresh.categories.size(), fresh.queries.size());
+            } catch (RuntimeException e) {
+                log.error("Suggestion index build failed, keeping the previous one", e);
+            }
+
+            synchronized (this) {
+                pendingChanges = null;
+                again = rebuildAgain;
+                rebuilding = again;
+            }
+        } while (again);
+    }
+
+    private Tries build() {
+        Tries fresh = new Tries(maxKeysPerName);
+        Map<String, Integer> productsPerCategory = new HashMap<>();
+
+        Query products = new Query();
+        products.fields().include("name", "hits", "rating", "categoryId").slice("images", 1);
+        try (Stream<Document> docs = mongoTemplate.stream(products, Document.class, "products")) {
+            docs.forEach(doc -> {
+                List<?> images = doc.getList("images", Object.class);
+                String image = images != null && !images.isEmpty() ? String.valueOf(images.get(0)) : null;
+                fresh.products.put(idOf(doc.get("_id")), doc.getString("name"), image,
+                        productWeight(number(doc.get("hits")), number(doc.get("rating"))));
+                String categoryId = doc.getString("categoryId");
+                if (categoryId != null) {
+                    productsPerCategory.merge(categoryId, 1, Integer::sum);
+                }
+            });
+        }
+
+        try (Stream<Category> categories = mongoTemplate.stream(new Query(), Category.class)) {
+            categories.forEach(c -> fresh.categories.put(c.getId(), c.getName(), null,
+                    Math.log1p(productsPerCategory.getOrDefault(c.getId(), 0))));
+        }
+
+        queryLog.popular(maxQueries).forEach((query, count) -> fresh.queries.put(query, query, null, count));
+        return fresh;
+    }
+
+    // Views dominate through the log; rating (0-5) separates products with similar traffic
+    private static double productWeight(double hits, double rating) {
+        return Math.log1p(hits) + rating;
+    }
+
+    private static String idOf(Object id) {
+        return id instanceof ObjectId ? ((ObjectId) id).toHexString() : String.valueOf(id);
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+
+    // ==================== INCREMENTAL UPDATES ====================
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.SAVED) {
+            Product product = event.getProduct();
+            change(t -> {
+                t.products.put(product.getId(), product.getName(), product.getImage(),
+                        productWeight(product.getHits(), product.getRating()));
+            });
+        } else if (event.getProductId() != null) {
+            change(t -> t.products.remove(event.getProductId()));
+        } else {
+            // Multi-document delete: we cannot tell which ids went away
+            rebuildAsync();
+        }
+    }
+
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.getType() == CategoryChangedEvent.Type.SAVED) {
+            Category category = event.getCategory();
+            change(t -> {
+                Completion previous = t.categories.get(category.getId());
+                t.categories.put(category.getId(), category.getName(), null,
+                        previous != null ? previous.getWeight() : 0);
+            });
+        } else if (event.getCategoryId() != null) {
+            change(t -> t.categories.remove(event.getCategoryId()));
+        } else {
+            rebuildAsync();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${suggest.queries.flush-interval-ms:30000}")
+    public void refreshQueries() {
+        Map<String, Long> counts = queryLog.flush();
+        if (!counts.isEmpty()) {
+            change(t -> counts.forEach((query, count) -> t.queries.put(query, query, null, count)));
+        }
+    }
+
+    private synchronized void change(Consumer<Tries> change) {
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+        change.accept(tries);
+    }
+}
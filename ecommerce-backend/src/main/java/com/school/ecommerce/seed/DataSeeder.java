@@ -0,0 +1,418 @@
+package com.school.ecommerce.seed;
+
+import com.school.ecommerce.model.Category;
+import com.school.ecommerce.model.Inventory;
+import com.school.ecommerce.model.Order;
+import com.school.ecommerce.model.Product;
+import com.school.ecommerce.model.User;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills an empty database with a synthetic but realistically skewed data set
+ * for load testing: product popularity, category sizes and user activity
+ * follow Zipf distributions, prices are log-normal, and orders and reviews
+ * pile up on the popular products. Runs only under the {@code seed} profile
+ * and before the search index and Mongo indexes are built, so inserts do not
+ * pay for index maintenance. The same {@code seed.seed} gives the same data.
+ */
+@Component
+@Profile("seed")
+public class DataSeeder implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSeeder.class);
+
+    private static final String[] COLLECTIONS = { "categories", "users", "products", "inventory", "reviews",
+            "orders" };
+    private static final String[] CATEGORY_NAMES = { "Electronics", "Audio", "Computers", "Phones", "Cameras",
+            "Home", "Kitchen", "Furniture", "Lighting", "Garden", "Fashion", "Shoes", "Bags", "Watches", "Jewellery",
+            "Sports", "Outdoors", "Fitness", "Toys", "Books", "Beauty", "Health", "Grocery", "Automotive", "Pets" };
+    private static final String[] FIRST_NAMES = { "Aarav", "Priya", "Rohan", "Ananya", "Vikram", "Isha", "Arjun",
+            "Meera", "Kabir", "Saanvi", "Dev", "Nisha", "Rahul", "Kavya", "Aditya", "Pooja" };
+    private static final String[] LAST_NAMES = { "Sharma", "Verma", "Gupta", "Iyer", "Reddy", "Nair", "Singh",
+            "Patel", "Mehta", "Das", "Kapoor", "Joshi" };
+    private static final String[] REVIEW_COMMENTS = { "Terrible, stopped working after a week.",
+            "Not worth the price.", "Does the job, nothing special.", "Good value for money.",
+            "Excellent, exactly as described." };
+    // Review ratings lean positive, as they do on most storefronts
+    private static final double[] RATING_WEIGHTS = { 0.05, 0.07, 0.13, 0.30, 0.45 };
+
+    private final MongoTemplate mongoTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final ApplicationContext applicationContext;
+
+    private final long seed;
+    private final int categoryCount;
+    private final int userCount;
+    private final int productCount;
+    private final int orderCount;
+    private final int reviewCount;
+    private final double popularityExponent;
+    private final double categoryExponent;
+    private final double userActivityExponent;
+    private final double medianPrice;
+    private final double priceSpread;
+    private final double maxPrice;
+    private final long totalViews;
+    private final double saleFraction;
+    private final double outOfStockFraction;
+    private final int historyDays;
+    private final int batchSize;
+    private final String userPassword;
+    private final boolean dropExisting;
+    private final boolean exitWhenDone;
+
+    public DataSeeder(MongoTemplate mongoTemplate, PasswordEncoder passwordEncoder,
+            ApplicationContext applicationContext,
+            @Value("${seed.seed:42}") long seed,
+            @Value("${seed.categories:25}") int categoryCount,
+            @Value("${seed.users:10000}") int userCount,
+            @Value("${seed.products:100000}") int productCount,
+            @Value("${seed.orders:200000}") int orderCount,
+            @Value("${seed.reviews:300000}") int reviewCount,
+            @Value("${seed.popularity-exponent:1.0}") double popularityExponent,
+            @Value("${seed.category-exponent:0.7}") double categoryExponent,
+            @Value("${seed.user-activity-exponent:0.8}") double userActivityExponent,
+            @Value("${seed.price.median:40}") double medianPrice,
+            @Value("${seed.price.spread:1.0}") double priceSpread,
+            @Value("${seed.price.max:5000}") double maxPrice,
+            @Value("${seed.views:20000000}") long totalViews,
+            @Value("${seed.sale-fraction:0.15}") double saleFraction,
+            @Value("${seed.out-of-stock-fraction:0.05}") double outOfStockFraction,
+            @Value("${seed.history-days:365}") int historyDays,
+            @Value("${seed.batch-size:1000}") int batchSize,
+            @Value("${seed.user-password:password123}") String userPassword,
+            @Value("${seed.drop-existing:false}") boolean dropExisting,
+            @Value("${seed.exit-when-done:false}") boolean exitWhenDone) {
+        this.mongoTemplate = mongoTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.applicationContext = applicationContext;
+        this.seed = seed;
+        this.categoryCount = categoryCount;
+        this.userCount = userCount;
+        this.productCount = productCount;
+        this.orderCount = orderCount;
+        this.reviewCount = reviewCount;
+        this.popularityExponent = popularityExponent;
+        this.categoryExponent = categoryExponent;
+        this.userActivityExponent = userActivityExponent;
+        this.medianPrice = medianPrice;
+        this.priceSpread = priceSpread;
+        this.maxPrice = maxPrice;
+        this.totalViews = totalViews;
+        this.saleFraction = saleFraction;
+        this.outOfStockFraction = outOfStockFraction;
+        this.historyDays = historyDays;
+        this.batchSize = batchSize;
+        this.userPassword = userPassword;
+        this.dropExisting = dropExisting;
+        this.exitWhenDone = exitWhenDone;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (dropExisting) {
+            for (String collection : COLLECTIONS) {
+                mongoTemplate.dropCollection(collection);
+            }
+        } else if (mongoTemplate.getCollection("products").estimatedDocumentCount() > 0) {
+            log.warn("Not seeding: the products collection is not empty (set seed.drop-existing=true to replace it)");
+            return;
+        }
+
+        long started = System.nanoTime();
+        Instant now = Instant.now();
+        Instant historyStart = now.minus(Duration.ofDays(historyDays));
+
+        List<String> categoryIds = seedCategories();
+        List<String> userIds = seedUsers();
+
+        // Products are created evenly over the history window, oldest first, so _id order
+        // matches createdAt; popularity is a shuffled rank, independent of age
+        ObjectId[] productIds = new ObjectId[productCount];
+        Date[] createdAt = new Date[productCount];
+        long span = Duration.between(historyStart, now).toMillis();
+        for (int i = 0; i < productCount; i++) {
+            createdAt[i] = new Date(historyStart.toEpochMilli() + span * i / productCount);
+            productIds[i] = new ObjectId(createdAt[i]);
+        }
+        int[] byRank = shuffledRanks(productCount, random(3));
+        ZipfDistribution popularity = new ZipfDistribution(productCount, popularityExponent);
+        ZipfDistribution userActivity = new ZipfDistribution(userIds.size(), userActivityExponent);
+
+        int[] reviewCounts = new int[productCount];
+        int[][] ratingHistograms = new int[productCount][5];
+        seedReviews(productIds, createdAt, byRank, popularity, userIds, userActivity, now, reviewCounts,
+                ratingHistograms);
+        seedOrders(productIds, createdAt, byRank, popularity, userIds, userActivity, now);
+        seedProducts(productIds, createdAt, byRank, popularity, categoryIds, now, reviewCounts, ratingHistograms);
+        seedInventory(productIds);
+
+        log.info("Seeded {} categories, {} users, {} products, {} reviews and {} orders in {} ms",
+                categoryIds.size(), userIds.size(), productCount, reviewCount, orderCount,
+                (System.nanoTime() - started) / 1_000_000);
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    // ==================== Collections ====================
+
+    private List<String> seedCategories() {
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < categoryCount; i++) {
+            String name = CATEGORY_NAMES[i % CATEGORY_NAMES.length];
+            if (i >= CATEGORY_NAMES.length) {
+                name += " " + (i / CATEGORY_NAMES.length + 1);
+            }
+            categories.add(new Category(new ObjectId().toHexString(), name, name + " products"));
+        }
+        List<String> ids = categories.stream().map(Category::getId).toList();
+        insert(categories, Category.class);
+        return ids;
+    }
+
+    private List<String> seedUsers() {
+        Random random = random(1);
+        // One hash for everyone: BCrypt is deliberately slow, and the load driver logs in with this password
+        String password = passwordEncoder.encode(userPassword);
+        List<String> ids = new ArrayList<>(userCount);
+        List<User> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < userCount; i++) {
+            User.Role role = i == 0 ? User.Role.ADMIN : random.nextInt(50) == 0 ? User.Role.DEALER : User.Role.CUSTOMER;
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                    + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            User user = new User(new ObjectId().toHexString(), name, "user" + i + "@example.com", password, role);
+            ids.add(user.getId());
+            batch.add(user);
+            if (batch.size() == batchSize) {
+                insert(batch, User.class);
+            }
+        }
+        insert(batch, User.class);
+        return ids;
+    }
+
+    private void seedReviews(ObjectId[] productIds, Date[] createdAt, int[] byRank, ZipfDistribution popularity,
+            List<String> userIds, ZipfDistribution userActivity, Instant now, int[] reviewCounts, int[][] ratingHistograms) {
+        Random random = random(4);
+        List<Document> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < reviewCount; i++) {
+            int product = byRank[popularity.sample(random)];
+            int rating = rating(random);
+            reviewCounts[product]++;
+            ratingHistograms[product][rating - 1]++;
+            // Plain documents, so each review's _id carries the date it was written
+            batch.add(new Document("_id", new ObjectId(after(createdAt[product], now, random)))
+                    .append("productId", productIds[product].toHexString())
+                    .append("userId", userIds.get(userActivity.sample(random)))
+                    .append("rating", rating)
+                    .append("comment", REVIEW_COMMENTS[rating - 1]));
+            if (batch.size() == batchSize) {
+                insertDocuments(batch, "reviews");
+            }
+        }
+        insertDocuments(batch, "reviews");
+    }
+
+    private void seedOrders(ObjectId[] productIds, Date[] createdAt, int[] byRank, ZipfDistribution popularity,
+            List<String> userIds, ZipfDistribution userActivity, Instant now) {
+        Random random = random(5);
+        List<Order> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < orderCount; i++) {
+            int product = byRank[popularity.sample(random)];
+            Date placedAt = after(createdAt[product], now, random);
+            Order order = new Order(new ObjectId(placedAt).toHexString(), userIds.get(userActivity.sample(random)),
+                    productIds[product].toHexString(), null);
+            history(order, placedAt.toInstant(), now, random);
+            batch.add(order);
+            if (batch.size() == batchSize) {
+                insert(batch, Order.class);
+            }
+        }
+        insert(batch, Order.class);
+    }
+
+    private void seedProducts(ObjectId[] productIds, Date[] createdAt, int[] byRank, ZipfDistribution popularity,
+            List<String> categoryIds, Instant now, int[] reviewCounts, int[][] ratingHistograms) {
+        Random random = random(6);
+        int[] rankOf = new int[productCount];
+        for (int rank = 0; rank < productCount; rank++) {
+            rankOf[byRank[rank]] = rank;
+        }
+        ZipfDistribution categorySizes = new ZipfDistribution(categoryIds.size(), categoryExponent);
+        Iterator<Product> names = SyntheticCatalog.stream(productCount, seed).iterator();
+        List<Document> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < productCount; i++) {
+            Product product = names.next();
+            // The catalog numbers its products; image and store links should carry the real id
+            String syntheticId = product.getId();
+            String id = productIds[i].toHexString();
+            product.setId(null);
+            product.setImages(product.getImages().stream().map(url -> url.replace(syntheticId, id)).toList());
+            product.getExternalLinks().forEach(link -> link.setUrl(link.getUrl().replace(syntheticId, id)));
+            product.setCategoryId(categoryIds.get(categorySizes.sample(random)));
+            product.setPrice(price(random));
+            long hits = Math.round(totalViews * popularity.probability(rankOf[i]));
+            product.setHits(hits);
+            product.setLastViewed(null);
+            product.setRevision(1);
+
+            Document document = new Document();
+            mongoTemplate.getConverter().write(product, document);
+            document.put("_id", productIds[i]);
+            document.put("createdAt", createdAt[i]);
+            document.put("updatedAt", createdAt[i]);
+            if (hits > 0) {
+                document.put("lastViewed", after(createdAt[i], now, random));
+            }
+            if (reviewCounts[i] > 0) {
+                // The same summary ReviewServiceImpl keeps up as reviews arrive, rounded as $round does
+                long ratingSum = 0;
+                Document histogram = new Document();
+                for (int stars = 1; stars <= 5; stars++) {
+                    ratingSum += (long) stars * ratingHistograms[i][stars - 1];
+                    histogram.append(String.valueOf(stars), ratingHistograms[i][stars - 1]);
+                }
+                document.put("rating", BigDecimal.valueOf(ratingSum)
+                        .divide(BigDecimal.valueOf(reviewCounts[i]), 1, RoundingMode.HALF_EVEN).doubleValue());
+                document.put("reviewCount", reviewCounts[i]);
+                document.put("ratingSum", ratingSum);
+                document.put("ratingHistogram", histogram);
+            }
+            if (random.nextDouble() < saleFraction) {
+                document.put("discount", 5 * (1 + random.nextInt(10)));
+            }
+            batch.add(document);
+            if (batch.size() == batchSize) {
+                insertDocuments(batch, "products");
+            }
+        }
+        insertDocuments(batch, "products");
+    }
+
+    private void seedInventory(ObjectId[] productIds) {
+        Random random = random(7);
+        List<Inventory> batch = new ArrayList<>(batchSize);
+        for (ObjectId productId : productIds) {
+            Inventory inventory = new Inventory();
+            inventory.setProductId(productId.toHexString());
+            inventory.setStock(random.nextDouble() < outOfStockFraction ? 0 : 1 + (int) (-20 * Math.log(1 - random.nextDouble())));
+            inventory.setRestockThreshold(5 + random.nextInt(16));
+            batch.add(inventory);
+            if (batch.size() == batchSize) {
+                insert(batch, Inventory.class);
+            }
+        }
+        insert(batch, Inventory.class);
+    }
+
+    // ==================== Distributions ====================
+
+    private Random random(int stream) {
+        // One generator per collection, so changing one count does not reshuffle the others
+        return new Random(seed * 31 + stream);
+    }
+
+    private double price(Random random) {
+        double price = medianPrice * Math.exp(priceSpread * random.nextGaussian());
+        // Shelf prices end in .99
+        return Math.min(maxPrice, Math.max(1, Math.round(price))) - 0.01;
+    }
+
+    private static int rating(Random random) {
+        double u = random.nextDouble();
+        for (int i = 0; i < RATING_WEIGHTS.length; i++) {
+            u -= RATING_WEIGHTS[i];
+            if (u < 0) {
+                return i + 1;
+            }
+        }
+        return RATING_WEIGHTS.length;
+    }
+
+    private static Date after(Date start, Instant end, Random random) {
+        long span = Math.max(1, end.toEpochMilli() - start.getTime());
+        return new Date(start.getTime() + (long) (random.nextDouble() * span));
+    }
+
+    private static int[] shuffledRanks(int n, Random random) {
+        int[] ranks = new int[n];
+        for (int i = 0; i < n; i++) {
+            ranks[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = ranks[i];
+            ranks[i] = ranks[j];
+            ranks[j] = swap;
+        }
+        return ranks;
+    }
+
+    /** Older orders have mostly been delivered; recent ones are still pending or on their way. */
+    private static void history(Order order, Instant placedAt, Instant now, Random random) {
+        List<Order.UpdateHistory> history = order.getHistoryUpdates();
+        history.add(new Order.UpdateHistory("Order placed", placedAt));
+        long ageDays = Duration.between(placedAt, now).toDays();
+        if (random.nextInt(20) == 0) {
+            order.setStatus(Order.Status.CANCELLED);
+            history.add(new Order.UpdateHistory("Order cancelled", placedAt.plus(Duration.ofHours(1 + random.nextInt(24)))));
+            return;
+        }
+        if (ageDays < 1 && random.nextBoolean()) {
+            order.setStatus(Order.Status.PENDING);
+            return;
+        }
+        Instant shippedAt = placedAt.plus(Duration.ofHours(12 + random.nextInt(48)));
+        if (shippedAt.isAfter(now)) {
+            order.setStatus(Order.Status.PENDING);
+            return;
+        }
+        history.add(new Order.UpdateHistory("Order shipped", shippedAt));
+        Instant deliveredAt = shippedAt.plus(Duration.ofHours(24 + random.nextInt(120)));
+        if (deliveredAt.isAfter(now) || ageDays < 7 && random.nextBoolean()) {
+            order.setStatus(Order.Status.SHIPPED);
+            return;
+        }
+        history.add(new Order.UpdateHistory("Order delivered", deliveredAt));
+        order.setStatus(Order.Status.DELIVERED);
+    }
+
+    // ==================== Writes ====================
+
+    private <T> void insert(List<T> batch, Class<T> type) {
+        if (!batch.isEmpty()) {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type).insert(batch).execute();
+            batch.clear();
+        }
+    }
+
+    private void insertDocuments(List<Document> batch, String collection) {
+        if (!batch.isEmpty()) {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection).insert(batch).execute();
+            batch.clear();
+        }
+    }
+}
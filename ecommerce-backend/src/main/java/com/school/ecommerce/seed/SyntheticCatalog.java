@@ -0,0 +1,106 @@
+package com.school.ecommerce.seed;
+
+import com.school.ecommerce.model.ExternalLink;
+import com.school.ecommerce.model.Product;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Deterministic product catalog: the same size and seed always produce the
+ * same products, so results are comparable between runs and commits.
+ */
+public final class SyntheticCatalog {
+
+    public static final long DEFAULT_SEED = 42L;
+
+    private static final String[] ADJECTIVES = { "wireless", "portable", "smart", "compact", "premium", "ergonomic",
+            "waterproof", "rechargeable", "ultra", "classic", "digital", "foldable", "mechanical", "noise",
+            "cancelling", "vintage", "lightweight", "heavy", "duty", "professional" };
+    private static final String[] NOUNS = { "headphones", "speaker", "keyboard", "mouse", "monitor", "charger",
+            "backpack", "watch", "camera", "lamp", "stand", "blender", "kettle", "jacket", "sneakers", "bottle",
+            "router", "tablet", "drone", "microphone" };
+    private static final String[] BRANDS = { "Acme", "Nimbus", "Vertex", "Orion", "Zenith", "Pulse", "Nova",
+            "Atlas", "Echo", "Summit" };
+    private static final String[] FILLER = { "with", "for", "and", "the", "all", "day", "use", "home", "office",
+            "travel", "battery", "life", "fast", "charging", "warranty", "included", "durable", "design", "sound",
+            "quality", "fits", "most", "devices", "easy", "setup", "includes", "cable", "case", "colour", "options" };
+    private static final String[] PLATFORMS = { "Amazon", "Flipkart", "Myntra", "Meesho", "Ajio" };
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private SyntheticCatalog() {
+    }
+
+    public static List<Product> products(int count) {
+        return products(count, DEFAULT_SEED);
+    }
+
+    public static List<Product> products(int count, long seed) {
+        return stream(count, seed).collect(Collectors.toList());
+    }
+
+    /**
+     * Generates products lazily, for catalogs too large to hold as a list.
+     * Must be consumed in order, on one thread.
+     */
+    public static Stream<Product> stream(int count, long seed) {
+        Random random = new Random(seed);
+        return IntStream.range(0, count).mapToObj(i -> product(i, random));
+    }
+
+    private static Product product(int i, Random random) {
+        Product product = new Product();
+        product.setId(String.format("%024x", i));
+        // Model numbers give the vocabulary a long tail like a real catalog
+        product.setName(pick(random, BRANDS) + " " + pick(random, ADJECTIVES) + " " + pick(random, NOUNS)
+                + " " + (char) ('A' + random.nextInt(26)) + (100 + random.nextInt(9900)));
+        product.setDescription(description(random));
+        product.setPrice(Math.round((5 + random.nextDouble() * 995) * 100) / 100.0);
+        product.setCategoryId("category-" + random.nextInt(25));
+        product.setHits(random.nextInt(10_000));
+        product.setLastViewed(EPOCH.minusMinutes(random.nextInt(60 * 24 * 30)));
+
+        List<String> images = new ArrayList<>();
+        int imageCount = 1 + random.nextInt(5);
+        for (int n = 0; n < imageCount; n++) {
+            images.add("https://cdn.example.com/products/" + product.getId() + "/" + n + ".jpg");
+        }
+        product.setImages(images);
+
+        List<ExternalLink> links = new ArrayList<>();
+        List<String> platforms = new ArrayList<>();
+        for (String platform : PLATFORMS) {
+            if (random.nextInt(3) == 0) {
+                platforms.add(platform);
+                links.add(new ExternalLink(platform,
+                        "https://www." + platform.toLowerCase() + ".example/p/" + product.getId()));
+            }
+        }
+        product.setAvailablePlatforms(platforms);
+        product.setExternalLinks(links);
+        return product;
+    }
+
+    private static String description(Random random) {
+        int words = 12 + random.nextInt(24);
+        StringBuilder description = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                description.append(' ');
+            }
+            String[] source = random.nextInt(4) == 0 ? (random.nextBoolean() ? ADJECTIVES : NOUNS) : FILLER;
+            description.append(pick(random, source));
+        }
+        return description.append('.').toString();
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -7,7 +7,9 @@ import java.util.List;
 public interface CategoryService {
     CategoryDTO create(CategoryDTO dto);
     CategoryDTO getById(String id);
+    EntityVersion getVersion(String id);
     List<CategoryDTO> getAll();
+    EntityVersion getAllVersion();
     CategoryDTO update(String id, CategoryDTO dto);
     void delete(String id);
 }
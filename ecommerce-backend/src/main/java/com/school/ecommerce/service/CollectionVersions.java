@@ -0,0 +1,56 @@
+package com.school.ecommerce.service;
+
+import com.school.ecommerce.event.CategoryChangedEvent;
+import com.school.ecommerce.event.ProductChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change counters for the product and category collections, bumped on every change
+ * event, so list endpoints can answer conditional requests without a query. The
+ * counters live in memory: each tag carries the startup time so tags from before a
+ * restart never match, and like the other in-process caches this assumes writes go
+ * through this instance. Read a version before loading the list it describes.
+ */
+@Component
+public class CollectionVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Counter products = new Counter();
+    private final Counter categories = new Counter();
+
+    private static final class Counter {
+        private final AtomicLong changes = new AtomicLong();
+        private volatile long changedAt = System.currentTimeMillis();
+
+        void bump() {
+            changes.incrementAndGet();
+            changedAt = System.currentTimeMillis();
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        products.bump();
+    }
+
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        categories.bump();
+    }
+
+    // suffix covers state the counter does not see, such as generated image variants
+    public EntityVersion products(String suffix) {
+        return version("p", products, suffix);
+    }
+
+    public EntityVersion categories() {
+        return version("c", categories, "");
+    }
+
+    private EntityVersion version(String prefix, Counter counter, String suffix) {
+        return EntityVersion.of(prefix + epoch + "." + counter.changes.get() + suffix, counter.changedAt);
+    }
+}
@@ -0,0 +1,97 @@
+package com.school.ecommerce.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.school.ecommerce.event.CategoryChangedEvent;
+import com.school.ecommerce.event.ProductChangedEvent;
+import com.school.ecommerce.model.Category;
+import com.school.ecommerce.model.Product;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Read-through cache of products and categories by id, for the read paths only;
+ * read-modify-write paths load straight from Mongo. Caffeine bounds each cache by
+ * entry count with W-TinyLFU eviction, so one-off lookups do not push out hot
+ * entries. Entries are dropped on every change event and expire after
+ * {@code cache.entities.ttl-seconds}, which also bounds how stale the view
+ * counts are (they are written without events). Cached entities are shared:
+ * callers must not modify them.
+ */
+@Component
+public class EntityCache {
+
+    private final MongoTemplate mongoTemplate;
+    private final Cache<String, Product> products;
+    private final Cache<String, Category> categories;
+
+    public EntityCache(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+            @Value("${cache.entities.products.max-size:10000}") long maxProducts,
+            @Value("${cache.entities.categories.max-size:1000}") long maxCategories,
+            @Value("${cache.entities.ttl-seconds:60}") long ttlSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.products = build(maxProducts, ttlSeconds);
+        this.categories = build(maxCategories, ttlSeconds);
+
+        monitor(meterRegistry, products, "products");
+        monitor(meterRegistry, categories, "categories");
+    }
+
+    private static <V> Cache<String, V> build(long maxSize, long ttlSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    // cache.gets{result=hit|miss}, cache.evictions, cache.size and friends, plus the ratio
+    private static void monitor(MeterRegistry meterRegistry, Cache<String, ?> cache, String name) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of lookups served from the cache since startup")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    public Optional<Product> product(String id) {
+        // A missing product is not cached, so a create shows up on the next lookup
+        return Optional.ofNullable(products.get(id, key -> mongoTemplate.findById(key, Product.class)));
+    }
+
+    // Never loads; for callers that fetch through another client on a miss
+    public Product cachedProduct(String id) {
+        return products.getIfPresent(id);
+    }
+
+    public Optional<Category> category(String id) {
+        return Optional.ofNullable(categories.get(id, key -> mongoTemplate.findById(key, Category.class)));
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductId() != null) {
+            products.invalidate(event.getProductId());
+        } else {
+            // Multi-document delete: we cannot tell which ids went away
+            products.invalidateAll();
+        }
+    }
+
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.getCategoryId() != null) {
+            categories.invalidate(event.getCategoryId());
+        } else {
+            categories.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.school.ecommerce.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * HTTP validators for one representation: a weak ETag and, when known, the
+ * Last-Modified time. Controllers hand both to {@code WebRequest.checkNotModified}
+ * before building the response body. The tag is weak because the same version
+ * is served as JSON, Smile or CBOR, gzipped or not; Tomcat also refuses to
+ * compress a response carrying a strong one.
+ */
+public class EntityVersion {
+
+    private final String etag;
+    private final long lastModified;
+
+    private EntityVersion(String etag, long lastModified) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    public static EntityVersion of(String tag, LocalDateTime updatedAt) {
+        return of(tag, updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1);
+    }
+
+    /**
+     * {@code tag} must change whenever the representation does. The modification
+     * time is folded in as well, so two writes that raced to the same revision
+     * number still get different tags.
+     */
+    public static EntityVersion of(String tag, long lastModified) {
+        String etag = "W/\"" + tag + '.' + Long.toString(Math.max(lastModified, 0), 36) + '"';
+        return new EntityVersion(etag, lastModified);
+    }
+
+    public String getEtag() { return etag; }
+    public long getLastModified() { return lastModified; }
+}
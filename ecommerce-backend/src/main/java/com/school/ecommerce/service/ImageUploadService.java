@@ -0,0 +1,174 @@
+package com.school.ecommerce.service;
+
+import com.school.ecommerce.dto.ImageUploadResultDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes uploaded product images to {@code uploads.images.dir} in parallel on a
+ * bounded pool, or on virtual threads when {@code spring.threads.virtual.enabled}
+ * is set on Java 21. Each part is streamed to disk while its SHA-256 is computed,
+ * and every image gets its own result instead of failing the whole request.
+ */
+@Service
+public class ImageUploadService {
+
+    public static final String URL_PREFIX = "/uploads/products/";
+
+    private static final Logger log = LoggerFactory.getLogger(ImageUploadService.class);
+
+    private final Path uploadDir;
+    private final long maxImageBytes;
+    private final Executor executor;
+
+    private final Counter uploadedBytes;
+    private final Timer uploadTimer;
+
+    public ImageUploadService(MeterRegistry meterRegistry, Environment environment,
+            @Value("${uploads.images.dir:uploads/products/}") String uploadDir,
+            @Value("${uploads.images.max-size-bytes:10485760}") long maxImageBytes,
+            @Value("${uploads.images.parallelism:4}") int parallelism) {
+        this.uploadDir = Paths.get(uploadDir);
+        this.maxImageBytes = maxImageBytes;
+
+        try {
+            Files.createDirectories(this.uploadDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create upload directory " + uploadDir, e);
+        }
+
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // A virtual thread per image; past the limit the (virtual) request thread waits its turn
+            SimpleAsyncTaskExecutor virtualThreads = new SimpleAsyncTaskExecutor("image-upload-");
+            virtualThreads.setVirtualThreads(true);
+            virtualThreads.setConcurrencyLimit(parallelism);
+            this.executor = virtualThreads;
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            // When the queue is full the request thread copies the image itself
+            this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(parallelism * 16),
+                    r -> {
+                        Thread thread = new Thread(r, "image-upload-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+
+        this.uploadedBytes = Counter.builder("product.images.upload.bytes")
+                .description("Bytes of product images written to disk")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.uploadTimer = Timer.builder("product.images.upload")
+                .description("Time to stream one product image to disk")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stores the given images and returns one result per image, in the same order.
+     * Null and empty parts are skipped.
+     */
+    public List<ImageUploadResultDTO> storeAll(List<MultipartFile> images) {
+        List<CompletableFuture<ImageUploadResultDTO>> pending = new ArrayList<>();
+        for (MultipartFile image : images) {
+            if (image != null && !image.isEmpty()) {
+                pending.add(CompletableFuture.supplyAsync(() -> store(image), executor));
+            }
+        }
+
+        List<ImageUploadResultDTO> results = new ArrayList<>(pending.size());
+        for (CompletableFuture<ImageUploadResultDTO> future : pending) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    public Path resolve(String url) {
+        return uploadDir.resolve(url.substring(url.lastIndexOf('/') + 1));
+    }
+
+    private ImageUploadResultDTO store(MultipartFile image) {
+        ImageUploadResultDTO result = new ImageUploadResultDTO();
+        result.setOriginalFilename(image.getOriginalFilename());
+        result.setSize(image.getSize());
+
+        if (image.getSize() > maxImageBytes) {
+            result.setStatus(ImageUploadResultDTO.Status.REJECTED);
+            result.setError("Image exceeds " + maxImageBytes + " bytes");
+            return result;
+        }
+
+        String filename = UUID.randomUUID() + extensionOf(image.getOriginalFilename());
+        Path target = uploadDir.resolve(filename);
+        long start = System.nanoTime();
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(image.getInputStream(), digest)) {
+                Files.copy(in, target);
+            }
+            result.setStatus(ImageUploadResultDTO.Status.STORED);
+            result.setUrl(URL_PREFIX + filename);
+            result.setSha256(HexFormat.of().formatHex(digest.digest()));
+
+            uploadedBytes.increment(image.getSize());
+            uploadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.warn("Failed to store image {}", image.getOriginalFilename(), e);
+            result.setStatus(ImageUploadResultDTO.Status.FAILED);
+            result.setError(e.getMessage());
+            try {
+                Files.deleteIfExists(target);
+            } catch (IOException ignored) {
+                // Nothing else to clean up
+            }
+        }
+        return result;
+    }
+
+    private String extensionOf(String originalFilename) {
+        if (originalFilename != null && originalFilename.contains(".")) {
+            return originalFilename.substring(originalFilename.lastIndexOf("."));
+        }
+        return "";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService pool) {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.school.ecommerce.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.school.ecommerce.storage.BlobStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates fixed-width JPEG variants of product images in the background.
+ * Variants sit next to their original (the {@code _thumb}/{@code _medium}
+ * suffix), so generating one twice is a no-op. Until a variant exists its URL
+ * falls back to the original image.
+ */
+@Service
+public class ImageVariantService {
+
+    public enum Variant {
+        THUMB("thumb", 240),
+        MEDIUM("medium", 640);
+
+        private final String suffix;
+        private final int width;
+
+        Variant(String suffix, int width) {
+            this.suffix = suffix;
+            this.width = width;
+        }
+
+        public String getSuffix() {
+            return suffix;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+
+    private final ImageUploadService imageUploadService;
+    private final BlobStore blobStore;
+    private final MeterRegistry meterRegistry;
+    private final float jpegQuality;
+    private final long maxPixels;
+    private final ExecutorService executor;
+    private final Timer generateTimer;
+
+    // Originals with all variants on disk, and originals that cannot be decoded. Bounded:
+    // an evicted original is looked up on disk again the next time it is listed
+    private final Set<String> ready;
+    private final Set<String> unsupported;
+    // Originals found without their variants; not looked up on disk again until they expire
+    private final Set<String> missing;
+    // At most parallelism + queue-capacity entries, since rejected tasks are removed at once
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    // Bumped whenever an original gets its variants; part of the listing validators
+    private final AtomicLong readyGeneration = new AtomicLong();
+
+    public ImageVariantService(ImageUploadService imageUploadService, BlobStore blobStore,
+            MeterRegistry meterRegistry,
+            @Value("${images.variants.jpeg-quality:0.8}") float jpegQuality,
+            @Value("${images.variants.max-pixels:40000000}") long maxPixels,
+            @Value("${images.variants.parallelism:2}") int parallelism,
+            @Value("${images.variants.queue-capacity:1000}") int queueCapacity,
+            @Value("${images.variants.known-max-entries:100000}") long knownMaxEntries,
+            @Value("${images.variants.missing-recheck-seconds:30}") long missingRecheckSeconds) {
+        this.imageUploadService = imageUploadService;
+        this.blobStore = blobStore;
+        this.meterRegistry = meterRegistry;
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+        this.ready = boundedSet(Caffeine.newBuilder().maximumSize(knownMaxEntries));
+        this.unsupported = boundedSet(Caffeine.newBuilder().maximumSize(knownMaxEntries));
+        this.missing = boundedSet(Caffeine.newBuilder().maximumSize(knownMaxEntries)
+                .expireAfterWrite(Duration.ofSeconds(missingRecheckSeconds)));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        // A full queue rejects the task; the image is queued again when it is next listed after its recheck
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "image-variants-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+
+        this.generateTimer = Timer.builder("product.images.variants.generate")
+                .description("Time to decode an original and write all of its variants")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues variant generation for the given image URLs.
+     */
+    public void generateAsync(List<String> imageUrls) {
+        if (imageUrls != null) {
+            imageUrls.forEach(this::schedule);
+        }
+    }
+
+    /**
+     * Maps each image URL to its variant URL, or to the original while the variant is missing.
+     */
+    public List<String> variantUrls(List<String> imageUrls, Variant variant) {
+        if (imageUrls == null) {
+            return null;
+        }
+        List<String> urls = new ArrayList<>(imageUrls.size());
+        for (String url : imageUrls) {
+            urls.add(variantUrl(url, variant));
+        }
+        return urls;
+    }
+
+    /**
+     * How many of the given images are known to have their variants; part of the
+     * HTTP validators, since variantUrls switches to the variants as they appear.
+     */
+    public int readyCount(List<String> imageUrls) {
+        if (imageUrls == null) {
+            return 0;
+        }
+        return (int) imageUrls.stream().filter(ready::contains).count();
+    }
+
+    // Changes whenever any image gets its variants, so it can stand in for all of them
+    public long readyGeneration() {
+        return readyGeneration.get();
+    }
+
+    public String variantUrl(String imageUrl, Variant variant) {
+        String variantUrl = toVariantUrl(imageUrl, variant);
+        if (variantUrl == null || unsupported.contains(imageUrl)) {
+            return imageUrl;
+        }
+        if (ready.contains(imageUrl)) {
+            return variantUrl;
+        }
+        // Listings repeat the same images, so a miss is remembered rather than checked on every call
+        if (missing.contains(imageUrl)) {
+            return imageUrl;
+        }
+        if (allVariantsExist(imageUrl)) {
+            markReady(imageUrl);
+            return variantUrl;
+        }
+        missing.add(imageUrl);
+        // Images uploaded before variants existed are backfilled as they are listed
+        schedule(imageUrl);
+        return imageUrl;
+    }
+
+    /**
+     * Removes the variants of a file in the uploads directory. Blob variants are kept,
+     * because other products may share the same blob.
+     */
+    public void deleteVariants(String imageUrl) throws IOException {
+        if (imageUrl == null || !imageUrl.startsWith(ImageUploadService.URL_PREFIX)) {
+            return;
+        }
+        for (Variant variant : Variant.values()) {
+            Files.deleteIfExists(variantPath(imageUrl, variant));
+        }
+        if (ready.remove(imageUrl)) {
+            readyGeneration.incrementAndGet();
+        }
+    }
+
+    private void schedule(String imageUrl) {
+        if (toVariantUrl(imageUrl, Variant.THUMB) == null || unsupported.contains(imageUrl)
+                || ready.contains(imageUrl) || !inFlight.add(imageUrl)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(imageUrl);
+                } finally {
+                    inFlight.remove(imageUrl);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(imageUrl);
+            count("rejected");
+        }
+    }
+
+    private void generate(String imageUrl) {
+        Path original = originalPath(imageUrl);
+        if (original == null || !Files.isRegularFile(original)) {
+            count("missing");
+            return;
+        }
+        if (allVariantsExist(imageUrl)) {
+            markReady(imageUrl);
+            count("skipped");
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            BufferedImage source = read(original);
+            if (source == null) {
+                unsupported.add(imageUrl);
+                count("unsupported");
+                return;
+            }
+            for (Variant variant : Variant.values()) {
+                Path target = variantPath(imageUrl, variant);
+                if (!Files.exists(target)) {
+                    write(resize(source, variant.getWidth()), target);
+                }
+            }
+            markReady(imageUrl);
+            count("generated");
+            generateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to generate variants for {}", imageUrl, e);
+            count("failed");
+        }
+    }
+
+    // Checks the dimensions before decoding so a tiny file cannot expand into a huge bitmap
+    private BufferedImage read(Path original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Never upscales; transparent areas are flattened onto white because JPEG has no alpha
+    private BufferedImage resize(BufferedImage source, int maxWidth) {
+        int width = Math.min(maxWidth, source.getWidth());
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    // Written to a temp file first so readers never see a half-written variant
+    private void write(BufferedImage image, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), "variant-", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void markReady(String imageUrl) {
+        missing.remove(imageUrl);
+        if (ready.add(imageUrl)) {
+            readyGeneration.incrementAndGet();
+        }
+    }
+
+    private static Set<String> boundedSet(Caffeine<Object, Object> builder) {
+        return Collections.newSetFromMap(builder.<String, Boolean>build().asMap());
+    }
+
+    private boolean allVariantsExist(String imageUrl) {
+        for (Variant variant : Variant.values()) {
+            if (!Files.exists(variantPath(imageUrl, variant))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* Uploads: /uploads/products/<name>.<ext> -> /uploads/products/<name>_thumb.jpg
+       Blobs:   /api/blobs/<hash>              -> /api/blobs/<hash>_thumb             */
+
+    private String toVariantUrl(String imageUrl, Variant variant) {
+        if (imageUrl == null) {
+            return null;
+        }
+        if (imageUrl.startsWith(ImageUploadService.URL_PREFIX)) {
+            return ImageUploadService.URL_PREFIX + variantFilename(imageUrl, variant);
+        }
+        String hash = blobHash(imageUrl);
+        return hash != null ? blobStore.urlFor(blobStore.variantName(hash, variant.getSuffix())) : null;
+    }
+
+    private Path originalPath(String imageUrl) {
+        if (imageUrl.startsWith(ImageUploadService.URL_PREFIX)) {
+            return imageUploadService.resolve(imageUrl);
+        }
+        String hash = blobHash(imageUrl);
+        return hash != null ? blobStore.resolve(hash) : null;
+    }
+
+    private Path variantPath(String imageUrl, Variant variant) {
+        if (imageUrl.startsWith(ImageUploadService.URL_PREFIX)) {
+            return imageUploadService.resolve(variantFilename(imageUrl, variant));
+        }
+        return blobStore.resolve(blobStore.variantName(blobHash(imageUrl), variant.getSuffix()));
+    }
+
+    private String variantFilename(String imageUrl, Variant variant) {
+        String filename = imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+        int dot = filename.lastIndexOf('.');
+        String base = dot > 0 ? filename.substring(0, dot) : filename;
+        return base + "_" + variant.getSuffix() + ".jpg";
+    }
+
+    private String blobHash(String imageUrl) {
+        if (!imageUrl.startsWith(BlobStore.URL_PREFIX)) {
+            return null;
+        }
+        String hash = imageUrl.substring(BlobStore.URL_PREFIX.length());
+        return blobStore.isBlobName(hash) ? hash : null;
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("product.images.variants", "result", result).increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,13 +1,34 @@
 package com.school.ecommerce.service;
 
 import java.util.List;
+import com.school.ecommerce.dto.BulkStockUpdateResultDTO;
+import com.school.ecommerce.dto.StockUpdateDTO;
 import com.school.ecommerce.model.Inventory;
 
 public interface InventoryService {
 
+    /**
+     * Applies a count of the units of a product on hand, creating its
+     * inventory record if needed. Units held by open reservations are still on
+     * hand, so the sellable stock becomes {@code quantity} minus the reserved
+     * units (never below zero), computed in the same atomic update.
+     */
     Inventory updateStock(String productId, int quantity);
 
+    /**
+     * Applies on-hand counts to many products with unordered bulk upserts, as
+     * {@link #updateStock} does, reporting the outcome of every item. A failed
+     * item does not stop the others.
+     */
+    BulkStockUpdateResultDTO bulkUpdateStock(List<StockUpdateDTO> updates);
+
     Inventory getByProduct(String productId);
 
+    /**
+     * Inventory of several products in one query, in the order asked for;
+     * products without inventory are left out.
+     */
+    List<Inventory> getByProducts(List<String> productIds);
+
     List<Inventory> getAll();
 }
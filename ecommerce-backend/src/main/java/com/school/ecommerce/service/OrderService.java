@@ -1,15 +1,19 @@
 package com.school.ecommerce.service;
 
+import com.school.ecommerce.dto.CheckoutRequestDTO;
 import com.school.ecommerce.dto.OrderDTO;
-
-import java.util.List;
+import com.school.ecommerce.dto.OrderFilterDTO;
+import com.school.ecommerce.dto.OrderSummaryDTO;
+import com.school.ecommerce.dto.PaginatedResponseDTO;
+import com.school.ecommerce.event.OrderStatusChangedEvent;
 
 public interface OrderService {
     OrderDTO create(OrderDTO dto);
+    OrderDTO checkout(CheckoutRequestDTO request);
     OrderDTO getById(String id);
-    List<OrderDTO> getAll();
-    List<OrderDTO> getByUser(String userId);
+    PaginatedResponseDTO<OrderSummaryDTO> search(OrderFilterDTO filter);
     OrderDTO updateStatus(String id, String status, String updateNote);
+    OrderStatusChangedEvent currentStatus(String id);
     void delete(String id);
 }
 
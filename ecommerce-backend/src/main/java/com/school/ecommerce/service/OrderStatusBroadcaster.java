@@ -0,0 +1,250 @@
+package com.school.ecommerce.service;
+
+import com.school.ecommerce.event.OrderStatusChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fans order status changes out to Server-Sent Events subscribers, so clients
+ * receive one message per change instead of polling. Each subscriber has its
+ * own bounded buffer, drained by a small pool of sender threads, so a publish
+ * never waits on a client. A subscriber whose buffer fills up is not keeping
+ * up and is disconnected; on reconnecting it receives the current status first.
+ *
+ * <p>A send to a client that stopped reading blocks until the container's
+ * socket write timeout, and interrupting it does not help. A send still
+ * running after {@code orders.stream.write-timeout-ms} disconnects that
+ * subscriber, and the pool gets an extra sender thread until the stuck send
+ * returns, so a stalled client never holds up the others.
+ *
+ * <p>Events come from an {@code event} package feed: this node's own updates,
+ * or a change stream on orders when several nodes share the database.
+ */
+@Component
+public class OrderStatusBroadcaster {
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor senders;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long writeTimeoutNanos;
+
+    private final Counter sent;
+    private final Counter evicted;
+    private final Counter stalled;
+
+    public OrderStatusBroadcaster(MeterRegistry meterRegistry,
+            @Value("${orders.stream.buffer-size:64}") int bufferSize,
+            @Value("${orders.stream.sender-threads:4}") int senderThreads,
+            @Value("${orders.stream.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${orders.stream.write-timeout-ms:5000}") long writeTimeoutMillis) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "order-stream-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("orders.stream.subscribers", subscribers, Set::size)
+                .description("Open order status streams")
+                .register(meterRegistry);
+        this.sent = meterRegistry.counter("orders.stream.sent");
+        this.evicted = meterRegistry.counter("orders.stream.evicted");
+        this.stalled = meterRegistry.counter("orders.stream.stalled");
+    }
+
+    /**
+     * Opens a stream of the changes to one order, to one user's orders, or to
+     * every order when both are null. {@code current}, when not null, reads
+     * the state to send first. It runs after the subscriber is registered, so a
+     * change written meanwhile is sent rather than lost. If it throws, the
+     * stream is not opened.
+     */
+    public SseEmitter subscribe(String orderId, String userId, Supplier<OrderStatusChangedEvent> current) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, orderId, userId, bufferSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        if (current != null) {
+            try {
+                offer(subscriber, status(current.get()));
+            } catch (RuntimeException e) {
+                subscribers.remove(subscriber);
+                throw e;
+            }
+        }
+        return emitter;
+    }
+
+    public void publish(OrderStatusChangedEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.wants(event)) {
+                offer(subscriber, status(event));
+            }
+        }
+    }
+
+    // Keeps idle streams open through proxies and notices clients that went away
+    @Scheduled(fixedDelayString = "${orders.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.queue.isEmpty()) {
+                offer(subscriber, SseEmitter.event().comment("keep-alive"));
+            }
+        }
+    }
+
+    // Disconnects subscribers stuck in a send and replaces their sender thread meanwhile
+    @Scheduled(fixedDelayString = "${orders.stream.write-check-ms:1000}")
+    public void expireStalledSends() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.sendState.get() == Subscriber.SENDING
+                    && now - subscriber.sendStartedNanos > writeTimeoutNanos
+                    && subscriber.sendState.compareAndSet(Subscriber.SENDING, Subscriber.STALLED)) {
+                stalled.increment();
+                resizeSenders(1);
+                evict(subscriber);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    private static SseEventBuilder status(OrderStatusChangedEvent event) {
+        return SseEmitter.event().name("status").data(event);
+    }
+
+    private void offer(Subscriber subscriber, SseEventBuilder message) {
+        if (!subscriber.queue.offer(message)) {
+            evict(subscriber);
+            return;
+        }
+        schedule(subscriber);
+    }
+
+    /**
+     * Completes the stream from its sender, never from the caller: completing
+     * waits for a send in progress, and that send may be stuck on the client.
+     */
+    private void evict(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            evicted.increment();
+            subscriber.closed = true;
+            subscriber.queue.clear();
+            schedule(subscriber);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            SseEventBuilder message;
+            while (!subscriber.closed && (message = subscriber.queue.poll()) != null) {
+                send(subscriber, message);
+                sent.increment();
+            }
+            if (subscriber.closed) {
+                subscriber.emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client is gone or the stream was completed; the container finishes the request
+            subscribers.remove(subscriber);
+            subscriber.queue.clear();
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // A message offered after the last poll found the flag still set and left it to us
+        if (!subscriber.closed && !subscriber.queue.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEventBuilder message) throws IOException {
+        subscriber.sendStartedNanos = System.nanoTime();
+        subscriber.sendState.set(Subscriber.SENDING);
+        try {
+            subscriber.emitter.send(message);
+        } finally {
+            if (!subscriber.sendState.compareAndSet(Subscriber.SENDING, Subscriber.IDLE)) {
+                // Stalled: the watchdog lent the pool a thread for this one, give it back
+                subscriber.sendState.set(Subscriber.IDLE);
+                resizeSenders(-1);
+            }
+        }
+    }
+
+    // Grow the maximum before the core size and shrink it after, or the executor rejects the change
+    private synchronized void resizeSenders(int delta) {
+        if (delta > 0) {
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+        } else {
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+        }
+    }
+
+    private static final class Subscriber {
+        static final int IDLE = 0;
+        static final int SENDING = 1;
+        static final int STALLED = 2;
+
+        final SseEmitter emitter;
+        final String orderId;
+        final String userId;
+        final Queue<SseEventBuilder> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicInteger sendState = new AtomicInteger(IDLE);
+        volatile long sendStartedNanos;
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, String orderId, String userId, int bufferSize) {
+            this.emitter = emitter;
+            this.orderId = orderId;
+            this.userId = userId;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        boolean wants(OrderStatusChangedEvent event) {
+            return (orderId == null || orderId.equals(event.getOrderId()))
+                    && (userId == null || userId.equals(event.getUserId()));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.school.ecommerce.service;
+
+import com.school.ecommerce.dto.ProductDTO;
+import com.school.ecommerce.event.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+
+/**
+ * Precomputed homepage collections (featured, trending, new, sale).
+ * Each list is loaded at {@code collections.cache.max-limit} entries and
+ * refreshed in the background on a schedule and shortly after product writes;
+ * reads are served as slices of the last snapshot.
+ */
+@Component
+public class ProductCollectionCache {
+
+    public enum ProductCollection { FEATURED, TRENDING, NEW_ARRIVALS, ON_SALE }
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCollectionCache.class);
+
+    private final int maxLimit;
+    private final Map<ProductCollection, IntFunction<List<ProductDTO>>> loaders = new ConcurrentHashMap<>();
+    private final Map<ProductCollection, List<ProductDTO>> snapshots = new ConcurrentHashMap<>();
+    private final AtomicBoolean stale = new AtomicBoolean(false);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer refreshTimer;
+
+    public ProductCollectionCache(MeterRegistry meterRegistry,
+            @Value("${collections.cache.max-limit:50}") int maxLimit) {
+        this.maxLimit = maxLimit;
+        this.hits = meterRegistry.counter("product.collections.cache", "result", "hit");
+        this.misses = meterRegistry.counter("product.collections.cache", "result", "miss");
+        this.refreshTimer = Timer.builder("product.collections.refresh")
+                .description("Time spent reloading a product collection")
+                .register(meterRegistry);
+    }
+
+    public void register(ProductCollection collection, IntFunction<List<ProductDTO>> loader) {
+        loaders.put(collection, loader);
+    }
+
+    public List<ProductDTO> get(ProductCollection collection, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        if (limit > maxLimit) {
+            // Larger than what we precompute: go to the database
+            misses.increment();
+            return loaders.get(collection).apply(limit);
+        }
+
+        List<ProductDTO> snapshot = snapshots.get(collection);
+        if (snapshot == null) {
+            misses.increment();
+            snapshot = refresh(collection);
+        } else {
+            hits.increment();
+        }
+        return snapshot.subList(0, Math.min(limit, snapshot.size()));
+    }
+
+    @Scheduled(fixedDelayString = "${collections.cache.refresh-interval-ms:60000}")
+    public void refreshAll() {
+        stale.set(false);
+        loaders.keySet().forEach(this::refreshQuietly);
+    }
+
+    @Scheduled(fixedDelayString = "${collections.cache.write-debounce-ms:2000}")
+    public void refreshIfStale() {
+        if (stale.get()) {
+            refreshAll();
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        stale.set(true);
+    }
+
+    private List<ProductDTO> refresh(ProductCollection collection) {
+        List<ProductDTO> snapshot = refreshTimer.record(
+                () -> List.copyOf(loaders.get(collection).apply(maxLimit)));
+        snapshots.put(collection, snapshot);
+        return snapshot;
+    }
+
+    private void refreshQuietly(ProductCollection collection) {
+        try {
+            refresh(collection);
+        } catch (RuntimeException e) {
+            // Keep serving the previous snapshot
+            log.warn("Failed to refresh product collection {}", collection, e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.school.ecommerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.school.ecommerce.exception.BadRequestException;
+import com.school.ecommerce.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole product catalog straight from a Mongo cursor to the
+ * response, one object at a time, so memory use does not grow with the
+ * catalog size.
+ */
+@Service
+public class ProductExportService {
+
+    public enum Format {
+        NDJSON(MediaType.APPLICATION_NDJSON),
+        JSON(MediaType.APPLICATION_JSON);
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public static Format from(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new BadRequestException("Unsupported stream format: " + value);
+        }
+    }
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public ProductExportService(MongoTemplate mongoTemplate, ObjectMapper objectMapper,
+            @Value("${products.export.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Streams every product through {@code mapper}. When {@code fields} is given,
+     * only those fields (plus id) are read from Mongo and written out.
+     */
+    public <T> void export(OutputStream out, Format format, List<String> fields, Function<Product, T> mapper)
+            throws IOException {
+        Query query = new Query();
+        query.cursorBatchSize(batchSize);
+
+        Set<String> projection = null;
+        if (fields != null && !fields.isEmpty()) {
+            query.fields().include(fields.toArray(new String[0]));
+            projection = new HashSet<>(fields);
+            projection.add("id");
+        }
+
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class);
+                SequenceWriter sequence = format == Format.JSON
+                        ? writer.writeValuesAsArray(out)
+                        : writer.withRootValueSeparator("\n").writeValues(out)) {
+
+            Iterator<Product> iterator = products.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                Object value = mapper.apply(iterator.next());
+                if (projection != null) {
+                    // Drop the defaults of fields that were not read
+                    ObjectNode node = objectMapper.valueToTree(value);
+                    node.retain(projection);
+                    value = node;
+                }
+                sequence.write(value);
+                if (++written % FLUSH_EVERY == 0) {
+                    sequence.flush();
+                }
+            }
+        }
+    }
+}
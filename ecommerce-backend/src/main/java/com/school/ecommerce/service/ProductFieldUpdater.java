@@ -0,0 +1,44 @@
+package com.school.ecommerce.service;
+
+import com.school.ecommerce.event.ProductChangedEvent;
+import com.school.ecommerce.model.Product;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Edits of product fields written as a single {@code $set} of just those
+ * fields. Saving a whole product read earlier would write back the review
+ * summary, hits and revision as they were at the read, undoing any atomic
+ * update that landed in between. Like every partial update, this bumps
+ * revision and updatedAt and publishes the {@link ProductChangedEvent} itself.
+ */
+@Component
+public class ProductFieldUpdater {
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductFieldUpdater(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /** Applies {@code update} and returns the product as it is afterwards. */
+    public Product update(String id, Update update) {
+        update.inc("revision", 1).set("updatedAt", LocalDateTime.now());
+        Product product = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (product == null) {
+            throw new RuntimeException("Product not found");
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+        return product;
+    }
+}
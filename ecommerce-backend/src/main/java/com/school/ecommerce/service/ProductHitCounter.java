@@ -0,0 +1,169 @@
+package com.school.ecommerce.service;
+
+import com.school.ecommerce.model.Product;
+import com.school.ecommerce.model.ProductAnalytics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects product views in memory and writes them to Mongo in batches:
+ * one unordered bulk on products and one on product_analytics per flush.
+ * When too many distinct products are pending, the recording thread runs
+ * the flush itself, which throttles callers instead of growing the buffer.
+ * Threads that must not block, such as the reactive driver's, use
+ * {@link #recordDeferred} and hand that flush to a background thread.
+ */
+@Component
+public class ProductHitCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductHitCounter.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final int maxPendingProducts;
+    private final ConcurrentHashMap<String, LongAdder> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ExecutorService deferredFlusher;
+    private final AtomicBoolean deferredFlushQueued = new AtomicBoolean();
+
+    private final Timer flushTimer;
+    private final Counter flushedHits;
+    private final Counter droppedHits;
+
+    public ProductHitCounter(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+            @Value("${analytics.hits.max-pending-products:50000}") int maxPendingProducts) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxPendingProducts = maxPendingProducts;
+
+        Gauge.builder("product.hits.pending", pending, Map::size)
+                .description("Products with views waiting to be flushed")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("product.hits.flush")
+                .description("Time spent writing a batch of product views")
+                .register(meterRegistry);
+        this.flushedHits = meterRegistry.counter("product.hits.flushed");
+        this.droppedHits = meterRegistry.counter("product.hits.dropped");
+        this.deferredFlusher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "product-hits-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void record(String productId) {
+        LongAdder hits = pending.get(productId);
+        if (hits == null) {
+            if (pending.size() >= maxPendingProducts) {
+                flush();
+            }
+            hits = pending.computeIfAbsent(productId, id -> new LongAdder());
+        }
+        hits.increment();
+    }
+
+    /**
+     * Same as {@link #record} but never flushes on the calling thread: a full
+     * buffer queues one flush on a background thread and keeps counting until
+     * it has run.
+     */
+    public void recordDeferred(String productId) {
+        pending.computeIfAbsent(productId, id -> new LongAdder()).increment();
+        if (pending.size() >= maxPendingProducts && deferredFlushQueued.compareAndSet(false, true)) {
+            try {
+                deferredFlusher.execute(() -> {
+                    deferredFlushQueued.set(false);
+                    flush();
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the shutdown flush picks these views up
+                deferredFlushQueued.set(false);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.hits.flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        deferredFlusher.shutdown();
+        flush();
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<String, Long> batch = drain();
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            long total = batch.values().stream().mapToLong(Long::longValue).sum();
+            try {
+                flushTimer.record(() -> write(batch));
+                flushedHits.increment(total);
+            } catch (RuntimeException e) {
+                // Views are best effort; do not let a failed write pile up in memory
+                droppedHits.increment(total);
+                log.warn("Dropped {} product views after a failed flush", total, e);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private Map<String, Long> drain() {
+        Map<String, Long> batch = new HashMap<>();
+        for (Map.Entry<String, LongAdder> entry : pending.entrySet()) {
+            LongAdder hits = entry.getValue();
+            pending.remove(entry.getKey(), hits);
+            // A view can only be lost if it lands on this counter after the final reset below
+            long count = hits.sumThenReset();
+            if (count > 0) {
+                batch.merge(entry.getKey(), count, Long::sum);
+            }
+        }
+        return batch;
+    }
+
+    private void write(Map<String, Long> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations products = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        BulkOperations analytics = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductAnalytics.class);
+
+        batch.forEach((productId, count) -> {
+            products.updateOne(new Query(Criteria.where("id").is(productId)),
+                    new Update().inc("hits", count).set("lastViewed", now));
+            analytics.upsert(new Query(Criteria.where("productId").is(productId)),
+                    new Update().inc("views", count));
+        });
+
+        products.execute();
+        analytics.execute();
+    }
+}
@@ -0,0 +1,56 @@
+package com.school.ecommerce.service;
+
+import com.school.ecommerce.exception.BadRequestException;
+import org.bson.Document;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position in a cursor-paginated product search. Holds the sort key and
+ * _id of the last returned product, or the rank offset for relevance ordering.
+ */
+public class ProductSearchCursor {
+
+    private final String sortBy;
+    private final Object value;
+    private final Object id;
+    private final int offset;
+
+    public ProductSearchCursor(String sortBy, Object value, Object id, int offset) {
+        this.sortBy = sortBy;
+        this.value = value;
+        this.id = id;
+        this.offset = offset;
+    }
+
+    public static ProductSearchCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        ProductSearchCursor cursor;
+        try {
+            Document doc = Document.parse(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+            cursor = new ProductSearchCursor(doc.getString("s"), doc.get("v"), doc.get("id"), doc.getInteger("o", 0));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        // Never produced by encode(); a forged one would reach subList as a negative index
+        if (cursor.offset < 0) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        return cursor;
+    }
+
+    public String encode() {
+        // Extended JSON keeps the BSON types (dates, ObjectIds) of the sort key
+        Document doc = new Document("s", sortBy).append("v", value).append("id", id).append("o", offset);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(doc.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getSortBy() { return sortBy; }
+    public Object getValue() { return value; }
+    public Object getId() { return id; }
+    public int getOffset() { return offset; }
+}
@@ -4,6 +4,8 @@ import com.school.ecommerce.dto.ProductDTO;
 import com.school.ecommerce.model.ExternalLink;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface ProductService {
@@ -20,8 +22,16 @@ public interface ProductService {
 
     ProductDTO getById(String id);
 
+    // HTTP validators for getById and getAll, without mapping any DTO
+    EntityVersion getVersion(String id);
+
+    EntityVersion getAllVersion();
+
     List<ProductDTO> getAll();
 
+    // Stream every product to out without loading the catalog into memory
+    void exportAll(OutputStream out, ProductExportService.Format format, List<String> fields) throws IOException;
+
     List<ProductDTO> getByCategory(String categoryId);
 
     /* ===================== UPDATE (BASIC FIELDS) ===================== */
@@ -4,11 +4,15 @@ import com.school.ecommerce.dto.ProductDTO;
 import com.school.ecommerce.model.ExternalLink;
 import com.school.ecommerce.model.Product;
 import com.school.ecommerce.repository.ProductRepository;
+import com.school.ecommerce.storage.BlobStore;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -16,9 +20,23 @@ import java.util.stream.Collectors;
 public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
-
-    public ProductServiceImpl(ProductRepository productRepository) {
+    private final ProductExportService productExportService;
+    private final BlobStore blobStore;
+    private final ImageVariantService imageVariantService;
+    private final EntityCache entityCache;
+    private final CollectionVersions collectionVersions;
+    private final ProductFieldUpdater fieldUpdater;
+
+    public ProductServiceImpl(ProductRepository productRepository, ProductExportService productExportService,
+            BlobStore blobStore, ImageVariantService imageVariantService, EntityCache entityCache,
+            CollectionVersions collectionVersions, ProductFieldUpdater fieldUpdater) {
         this.productRepository = productRepository;
+        this.productExportService = productExportService;
+        this.blobStore = blobStore;
+        this.imageVariantService = imageVariantService;
+        this.entityCache = entityCache;
+        this.collectionVersions = collectionVersions;
+        this.fieldUpdater = fieldUpdater;
     }
 
     /* ===================== CREATE ===================== */
@@ -50,9 +68,10 @@ public class ProductServiceImpl implements ProductService {
 
         List<String> images = new ArrayList<>();
         if (dto.getImage() != null && !dto.getImage().isEmpty()) {
-            images.add(encodeImageToBase64(dto.getImage()));
+            images.add(storeImage(dto.getImage()));
         }
         product.setImages(images);
+        imageVariantService.generateAsync(images);
 
         return convertToDTO(productRepository.save(product));
     }
@@ -61,11 +80,24 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public ProductDTO getById(String id) {
-        Product product = productRepository.findById(id)
+        Product product = entityCache.product(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         return convertToDTO(product);
     }
 
+    @Override
+    public EntityVersion getVersion(String id) {
+        Product product = entityCache.product(id)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        return EntityVersion.of(product.getRevision() + "." + imageVariantService.readyCount(product.getImages()),
+                product.getUpdatedAt());
+    }
+
+    @Override
+    public EntityVersion getAllVersion() {
+        return collectionVersions.products("." + imageVariantService.readyGeneration());
+    }
+
     @Override
     public List<ProductDTO> getAll() {
         return productRepository.findAll()
@@ -74,6 +106,12 @@ public class ProductServiceImpl implements ProductService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public void exportAll(OutputStream out, ProductExportService.Format format, List<String> fields)
+            throws IOException {
+        productExportService.export(out, format, fields, this::convertToDTO);
+    }
+
     @Override
     public List<ProductDTO> getByCategory(String categoryId) {
         return productRepository.findByCategoryId(categoryId)
@@ -84,61 +122,55 @@ public class ProductServiceImpl implements ProductService {
 
     /* ===================== UPDATE (BASIC FIELDS) ===================== */
 
+    // Updates $set only the edited fields (see ProductFieldUpdater)
     @Override
     public ProductDTO update(String id, ProductDTO dto) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+        Update update = new Update();
 
         if (dto.getName() != null)
-            product.setName(dto.getName());
+            update.set("name", dto.getName());
 
         if (dto.getDescription() != null)
-            product.setDescription(dto.getDescription());
+            update.set("description", dto.getDescription());
 
         if (dto.getPrice() > 0)
-            product.setPrice(dto.getPrice());
+            update.set("price", dto.getPrice());
 
         if (dto.getCategoryId() != null)
-            product.setCategoryId(dto.getCategoryId());
+            update.set("categoryId", dto.getCategoryId());
 
-        return convertToDTO(productRepository.save(product));
+        return convertToDTO(fieldUpdater.update(id, update));
     }
 
     /* ===================== UPDATE (ADVANCED FIELDS) ===================== */
 
     @Override
     public ProductDTO updateExternalLinks(String productId, List<ExternalLink> externalLinks) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        product.setExternalLinks(externalLinks);
-        return convertToDTO(productRepository.save(product));
+        return convertToDTO(fieldUpdater.update(productId, new Update().set("externalLinks", externalLinks)));
     }
 
     @Override
     public ProductDTO updatePlatforms(String productId, List<String> platforms) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        product.setAvailablePlatforms(platforms);
-        return convertToDTO(productRepository.save(product));
+        return convertToDTO(fieldUpdater.update(productId, new Update().set("availablePlatforms", platforms)));
     }
 
     @Override
     public ProductDTO updateImages(String productId, List<MultipartFile> images) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+        if (!productRepository.existsById(productId)) {
+            throw new RuntimeException("Product not found");
+        }
 
         List<String> storedImages = new ArrayList<>();
 
         for (MultipartFile file : images) {
             if (file != null && !file.isEmpty()) {
-                storedImages.add(encodeImageToBase64(file));
+                storedImages.add(storeImage(file));
             }
         }
 
-        product.setImages(storedImages);
-        return convertToDTO(productRepository.save(product));
+        Product product = fieldUpdater.update(productId, new Update().set("images", storedImages));
+        imageVariantService.generateAsync(storedImages);
+        return convertToDTO(product);
     }
 
     /* ===================== DELETE ===================== */
@@ -150,11 +182,12 @@ public class ProductServiceImpl implements ProductService {
 
     /* ===================== HELPERS ===================== */
 
-    private String encodeImageToBase64(MultipartFile file) {
+    // Images live in the blob store; the product only keeps their URLs
+    private String storeImage(MultipartFile file) {
         try {
-            return Base64.getEncoder().encodeToString(file.getBytes());
-        } catch (Exception e) {
-            throw new RuntimeException("Error encoding image", e);
+            return blobStore.urlFor(blobStore.put(file.getInputStream()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error storing image", e);
         }
     }
 
@@ -167,6 +200,8 @@ public class ProductServiceImpl implements ProductService {
         dto.setPrice(product.getPrice());
         dto.setCategoryId(product.getCategoryId());
         dto.setImages(product.getImages());
+        dto.setThumbnails(imageVariantService.variantUrls(product.getImages(), ImageVariantService.Variant.THUMB));
+        dto.setMediumImages(imageVariantService.variantUrls(product.getImages(), ImageVariantService.Variant.MEDIUM));
         dto.setExternalLinks(product.getExternalLinks());
         dto.setAvailablePlatforms(product.getAvailablePlatforms());
 
@@ -1,11 +1,20 @@
 package com.school.ecommerce.service;
 
 import com.school.ecommerce.dto.*;
+import com.school.ecommerce.exception.BadRequestException;
 import com.school.ecommerce.model.*;
 import com.school.ecommerce.repository.*;
+import com.school.ecommerce.search.ProductSearchEngine;
+import com.school.ecommerce.search.SearchMatch;
+import com.school.ecommerce.search.SearchQueryLog;
+import com.school.ecommerce.search.SuggestionEngine;
+import com.school.ecommerce.service.ProductCollectionCache.ProductCollection;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.*;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
@@ -14,6 +23,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,18 +41,118 @@ public class ProductServiceV2 {
     @Autowired
     private MongoTemplate mongoTemplate;
 
+    @Autowired
+    private ProductSearchEngine searchEngine;
+
+    @Autowired
+    private SuggestionEngine suggestionEngine;
+
+    @Autowired
+    private SearchQueryLog queryLog;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private ProductHitCounter hitCounter;
+
+    @Autowired
+    private QueryCountCache countCache;
+
+    @Autowired
+    private ProductCollectionCache collectionCache;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private ProductFieldUpdater fieldUpdater;
+
+    // Fields read by ProductSummaryDTO; images are sliced to the first entry
+    private static final String[] SUMMARY_FIELDS = { "name", "price", "categoryId", "availablePlatforms" };
+
+    @PostConstruct
+    void registerCollections() {
+        collectionCache.register(ProductCollection.FEATURED, this::loadFeaturedProducts);
+        collectionCache.register(ProductCollection.TRENDING, this::loadTrendingProducts);
+        collectionCache.register(ProductCollection.NEW_ARRIVALS, this::loadNewArrivals);
+        collectionCache.register(ProductCollection.ON_SALE, this::loadProductsOnSale);
+    }
+
     // ==================== SEARCH & FILTER METHODS ====================
 
-    public PaginatedResponseDTO<ProductDTO> searchProducts(ProductFilterDTO filter) {
-        // Build query
-        Query query = new Query();
+    public PaginatedResponseDTO<ProductSummaryDTO> searchProducts(ProductFilterDTO filter) {
+        PaginatedResponseDTO<ProductSummaryDTO> response = findProducts(filter);
+        recordSearch(filter, response);
+        return response;
+    }
+
+    private PaginatedResponseDTO<ProductSummaryDTO> findProducts(ProductFilterDTO filter) {
+        boolean full = isFullView(filter.getView());
 
         // Search by name/description
+        SearchMatch searchMatch = searchMatch(filter);
+        Query query = filterQuery(filter, searchMatch);
+
+        // Keyset pagination: no skip and no exact count
+        if ("cursor".equals(filter.getPagination())) {
+            return searchWithCursor(query, searchMatch, filter);
+        }
+
+        // Relevance order comes from the search engine, not from a Mongo sort
+        if (isRanked(filter, searchMatch)) {
+            List<String> rankedIds = rankedMatches(query, searchMatch);
+            int from = rankedFrom((long) (filter.getPage() - 1) * filter.getLimit(), rankedIds.size());
+            int to = rankedTo(from, filter.getLimit(), rankedIds.size());
+            return buildPaginatedResponse(findInOrder(rankedIds.subList(from, to), full), rankedIds.size(),
+                    searchMatch.isTruncated(), filter);
+        }
+
+        // Count total results
+        long total = mongoTemplate.count(query, Product.class);
+
+        // Apply sorting, pagination and projection, then execute
+        List<Product> products = mongoTemplate.find(pageQuery(query, filter), Product.class);
+
+        // Convert to DTOs
+        List<ProductSummaryDTO> productDTOs = products.stream()
+                .map(product -> convert(product, full))
+                .collect(Collectors.toList());
+
+        return buildPaginatedResponse(productDTOs, total, isTruncated(searchMatch), filter);
+    }
+
+    // Feeds popular-query suggestions: first pages only, so paging through results is
+    // not counted again, and only searches that found something
+    void recordSearch(ProductFilterDTO filter, PaginatedResponseDTO<ProductSummaryDTO> response) {
+        boolean firstPage = filter.getCursor() == null && filter.getPage() <= 1;
+        if (firstPage && filter.getSearch() != null && !response.getData().isEmpty()) {
+            queryLog.record(filter.getSearch());
+        }
+    }
+
+    // The query helpers below are shared with ReactiveProductServiceV2, which runs the
+    // same queries on ReactiveMongoTemplate
+
+    SearchMatch searchMatch(ProductFilterDTO filter) {
         if (filter.getSearch() != null && !filter.getSearch().isEmpty()) {
-            Criteria searchCriteria = new Criteria().orOperator(
-                    Criteria.where("name").regex(filter.getSearch(), "i"),
-                    Criteria.where("description").regex(filter.getSearch(), "i"));
-            query.addCriteria(searchCriteria);
+            // Only an unfiltered relevance search can stop at the best-ranked matches
+            boolean bestOnly = "relevance".equals(filter.getSortBy())
+                    && filterQuery(filter, null).getQueryObject().isEmpty();
+            return searchEngine.match(filter.getSearch(), bestOnly);
+        }
+        return null;
+    }
+
+    boolean isTruncated(SearchMatch searchMatch) {
+        return searchMatch != null && searchMatch.isTruncated();
+    }
+
+    Query filterQuery(ProductFilterDTO filter, SearchMatch searchMatch) {
+        Query query = new Query();
+
+        if (searchMatch != null) {
+            query.addCriteria(searchMatch.getCriteria());
         }
 
         // Filter by category
@@ -51,7 +161,6 @@ public class ProductServiceV2 {
         }
 
         // Filter by price range
-        Criteria priceCriteria = new Criteria();
         List<Criteria> priceConditions = new ArrayList<>();
 
         if (filter.getMinPrice() != null) {
@@ -95,24 +204,192 @@ public class ProductServiceV2 {
             query.addCriteria(Criteria.where("createdAt").gte(thirtyDaysAgo));
         }
 
-        // Count total results
-        long total = mongoTemplate.count(query, Product.class);
+        return query;
+    }
 
-        // Apply sorting
-        applySorting(query, filter.getSortBy());
+    boolean isRanked(ProductFilterDTO filter, SearchMatch searchMatch) {
+        return "relevance".equals(filter.getSortBy()) && searchMatch != null && searchMatch.isRanked();
+    }
 
-        // Apply pagination
-        Pageable pageable = PageRequest.of(filter.getPage() - 1, filter.getLimit());
-        query.with(pageable);
+    // Bounds of a page of ranked ids, in long arithmetic so a huge page, offset or limit cannot wrap around
+    static int rankedFrom(long offset, int size) {
+        return (int) Math.max(0, Math.min(offset, size));
+    }
 
-        // Execute query
-        List<Product> products = mongoTemplate.find(query, Product.class);
+    static int rankedTo(int from, int limit, int size) {
+        return (int) Math.max(from, Math.min((long) from + limit, size));
+    }
 
-        // Convert to DTOs
-        List<ProductDTO> productDTOs = products.stream()
-                .map(this::convertToDTO)
+    /** Sorted, paged and projected copy of a filter query, for page-number pagination. */
+    Query pageQuery(Query query, ProductFilterDTO filter) {
+        Query pageQuery = Query.of(query);
+        applySorting(pageQuery, filter.getSortBy());
+        pageQuery.with(PageRequest.of(filter.getPage() - 1, filter.getLimit()));
+        applyView(pageQuery, isFullView(filter.getView()));
+        return pageQuery;
+    }
+
+    private PaginatedResponseDTO<ProductSummaryDTO> searchWithCursor(Query query, SearchMatch searchMatch,
+            ProductFilterDTO filter) {
+        boolean full = isFullView(filter.getView());
+        ProductSearchCursor cursor = decodeCursor(filter);
+
+        if (isRanked(filter, searchMatch)) {
+            // Ranked ids are already in memory, so the cursor is just an offset into them
+            List<String> rankedIds = rankedMatches(query, searchMatch);
+            int from = rankedFrom(cursor != null ? cursor.getOffset() : 0, rankedIds.size());
+            int to = rankedTo(from, filter.getLimit(), rankedIds.size());
+            String nextCursor = to < rankedIds.size()
+                    ? new ProductSearchCursor(filter.getSortBy(), null, null, to).encode()
+                    : null;
+            return cursorResponse(findInOrder(rankedIds.subList(from, to), full), nextCursor,
+                    rankedIds.size(), searchMatch.isTruncated(), filter, cursor);
+        }
+
+        long total = countCache.estimate(query, Product.class);
+        // Raw documents, because the sort key is not always a mapped Product field
+        List<Document> documents = mongoTemplate.find(cursorPageQuery(query, filter, cursor), Document.class,
+                "products");
+        return cursorResponse(documents, total, filter, cursor);
+    }
+
+    ProductSearchCursor decodeCursor(ProductFilterDTO filter) {
+        ProductSearchCursor cursor = ProductSearchCursor.decode(filter.getCursor());
+        if (cursor != null && !filter.getSortBy().equals(cursor.getSortBy())) {
+            throw new BadRequestException("Cursor was issued for a different sortBy");
+        }
+        return cursor;
+    }
+
+    /**
+     * The query a listing without a search term runs, sort and limit included,
+     * so the plan check in the benchmarks explains exactly what is sent.
+     */
+    public Query listingQuery(ProductFilterDTO filter) {
+        Query query = filterQuery(filter, null);
+        return "cursor".equals(filter.getPagination())
+                ? cursorPageQuery(query, filter, decodeCursor(filter))
+                : pageQuery(query, filter);
+    }
+
+    /** One page past the cursor, plus one document to tell whether another page follows. */
+    Query cursorPageQuery(Query query, ProductFilterDTO filter, ProductSearchCursor cursor) {
+        Sort.Order order = sortFor(filter.getSortBy()).iterator().next();
+        Query pageQuery = cursor == null ? Query.of(query) : new BasicQuery(new Document("$and", Arrays.asList(
+                query.getQueryObject(), keysetCriteria(order, cursor).getCriteriaObject())));
+        pageQuery.with(Sort.by(order, new Sort.Order(order.getDirection(), "_id")));
+        pageQuery.limit(filter.getLimit() + 1);
+        // The cursor is built from the last document's sort key, so it must be projected
+        applyView(pageQuery, isFullView(filter.getView()), order.getProperty());
+        return pageQuery;
+    }
+
+    PaginatedResponseDTO<ProductSummaryDTO> cursorResponse(List<Document> documents, long total,
+            ProductFilterDTO filter, ProductSearchCursor cursor) {
+        boolean full = isFullView(filter.getView());
+        String nextCursor = null;
+        if (documents.size() > filter.getLimit()) {
+            String sortKey = sortFor(filter.getSortBy()).iterator().next().getProperty();
+            documents = documents.subList(0, filter.getLimit());
+            Document last = documents.get(documents.size() - 1);
+            nextCursor = new ProductSearchCursor(filter.getSortBy(), last.get(sortKey), last.get("_id"), 0).encode();
+        }
+        List<ProductSummaryDTO> productDTOs = documents.stream()
+                .map(doc -> mongoTemplate.getConverter().read(Product.class, doc))
+                .map(product -> convert(product, full))
                 .collect(Collectors.toList());
+        return cursorResponse(productDTOs, nextCursor, total, true, filter, cursor);
+    }
 
+    PaginatedResponseDTO<ProductSummaryDTO> cursorResponse(List<ProductSummaryDTO> productDTOs,
+            String nextCursor, long total, boolean totalEstimated, ProductFilterDTO filter,
+            ProductSearchCursor cursor) {
+        // page has no meaning in cursor mode and is left at 0
+        PaginationInfoDTO paginationInfo = new PaginationInfoDTO();
+        paginationInfo.setLimit(filter.getLimit());
+        paginationInfo.setTotal(total);
+        paginationInfo.setTotalEstimated(totalEstimated);
+        paginationInfo.setTotalPages((int) Math.ceil((double) total / filter.getLimit()));
+        paginationInfo.setHasNext(nextCursor != null);
+        paginationInfo.setHasPrev(cursor != null);
+        paginationInfo.setNextCursor(nextCursor);
+
+        PaginatedResponseDTO<ProductSummaryDTO> response = new PaginatedResponseDTO<>();
+        response.setData(productDTOs);
+        response.setPagination(paginationInfo);
+        response.setFilters(filter);
+
+        return response;
+    }
+
+    private Criteria keysetCriteria(Sort.Order order, ProductSearchCursor cursor) {
+        String field = order.getProperty();
+        Object value = cursor.getValue();
+        boolean asc = order.isAscending();
+        Criteria idAfter = asc ? Criteria.where("_id").gt(cursor.getId()) : Criteria.where("_id").lt(cursor.getId());
+
+        // Missing sort keys order lowest: first when ascending, last when descending
+        if (value == null) {
+            Criteria sameKey = new Criteria().andOperator(Criteria.where(field).is(null), idAfter);
+            return asc ? new Criteria().orOperator(Criteria.where(field).ne(null), sameKey) : sameKey;
+        }
+
+        Criteria beyond = asc ? Criteria.where(field).gt(value) : Criteria.where(field).lt(value);
+        Criteria sameKey = new Criteria().andOperator(Criteria.where(field).is(value), idAfter);
+        return asc
+                ? new Criteria().orOperator(beyond, sameKey)
+                : new Criteria().orOperator(beyond, sameKey, Criteria.where(field).is(null));
+    }
+
+    private List<String> rankedMatches(Query query, SearchMatch searchMatch) {
+        Set<String> matchingIds = mongoTemplate.find(idsOnly(query), Product.class).stream()
+                .map(Product::getId)
+                .collect(Collectors.toSet());
+        return rankedIds(searchMatch, matchingIds);
+    }
+
+    // Let Mongo apply the remaining filters, fetching ids only
+    Query idsOnly(Query query) {
+        query.fields().include("_id");
+        return query;
+    }
+
+    List<String> rankedIds(SearchMatch searchMatch, Set<String> matchingIds) {
+        return searchMatch.getRankedIds().stream()
+                .filter(matchingIds::contains)
+                .collect(Collectors.toList());
+    }
+
+    private List<ProductSummaryDTO> findInOrder(List<String> ids, boolean full) {
+        return inOrder(ids, mongoTemplate.find(idsQuery(ids, full), Product.class), full);
+    }
+
+    Query idsQuery(List<String> ids, boolean full) {
+        Query query = new Query(Criteria.where("id").in(ids));
+        applyView(query, full);
+        return query;
+    }
+
+    List<ProductSummaryDTO> inOrder(List<String> ids, List<Product> products, boolean full) {
+        Map<String, Product> productsById = products.stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
+
+        return ids.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .map(product -> convert(product, full))
+                .collect(Collectors.toList());
+    }
+
+    PaginatedResponseDTO<ProductSummaryDTO> buildPaginatedResponse(List<ProductSummaryDTO> productDTOs,
+            long total,
+            ProductFilterDTO filter) {
+        return buildPaginatedResponse(productDTOs, total, false, filter);
+    }
+
+    PaginatedResponseDTO<ProductSummaryDTO> buildPaginatedResponse(List<ProductSummaryDTO> productDTOs,
+            long total, boolean totalEstimated,
+            ProductFilterDTO filter) {
         // Calculate pagination info
         int totalPages = (int) Math.ceil((double) total / filter.getLimit());
         boolean hasNext = filter.getPage() < totalPages;
@@ -122,11 +399,12 @@ public class ProductServiceV2 {
         paginationInfo.setPage(filter.getPage());
         paginationInfo.setLimit(filter.getLimit());
         paginationInfo.setTotal(total);
+        paginationInfo.setTotalEstimated(totalEstimated);
         paginationInfo.setTotalPages(totalPages);
         paginationInfo.setHasNext(hasNext);
         paginationInfo.setHasPrev(hasPrev);
 
-        PaginatedResponseDTO<ProductDTO> response = new PaginatedResponseDTO<>();
+        PaginatedResponseDTO<ProductSummaryDTO> response = new PaginatedResponseDTO<>();
         response.setData(productDTOs);
         response.setPagination(paginationInfo);
         response.setFilters(filter);
@@ -135,62 +413,116 @@ public class ProductServiceV2 {
     }
 
     private void applySorting(Query query, String sortBy) {
+        query.with(sortFor(sortBy));
+    }
+
+    boolean isFullView(String view) {
+        return "full".equals(view);
+    }
+
+    void applyView(Query query, boolean full, String... extraFields) {
+        if (!full) {
+            query.fields().include(SUMMARY_FIELDS).include(extraFields).slice("images", 1);
+        }
+    }
+
+    Sort sortFor(String sortBy) {
         switch (sortBy) {
             case "price_asc":
-                query.with(Sort.by(Sort.Direction.ASC, "price"));
-                break;
+                return Sort.by(Sort.Direction.ASC, "price");
             case "price_desc":
-                query.with(Sort.by(Sort.Direction.DESC, "price"));
-                break;
+                return Sort.by(Sort.Direction.DESC, "price");
             case "rating":
-                query.with(Sort.by(Sort.Direction.DESC, "rating"));
-                break;
+                return Sort.by(Sort.Direction.DESC, "rating");
             case "popular":
-                query.with(Sort.by(Sort.Direction.DESC, "hits"));
-                break;
+                return Sort.by(Sort.Direction.DESC, "hits");
             case "name_asc":
-                query.with(Sort.by(Sort.Direction.ASC, "name"));
-                break;
+                return Sort.by(Sort.Direction.ASC, "name");
             case "name_desc":
-                query.with(Sort.by(Sort.Direction.DESC, "name"));
-                break;
+                return Sort.by(Sort.Direction.DESC, "name");
             case "newest":
+            // "relevance" without a ranked search match falls back to newest
+            case "relevance":
             default:
-                query.with(Sort.by(Sort.Direction.DESC, "createdAt"));
-                break;
+                return Sort.by(Sort.Direction.DESC, "createdAt");
         }
     }
 
     // ==================== SPECIAL COLLECTIONS ====================
 
-    public List<ProductDTO> getFeaturedProducts(int limit) {
-        // Featured products: high rating, good reviews, and popular
+    // Served from ProductCollectionCache; the load* methods below build the snapshots.
+    // Snapshots hold full DTOs and are trimmed per request for the summary view.
+
+    public List<ProductSummaryDTO> getFeaturedProducts(int limit, String view) {
+        return withView(collectionCache.get(ProductCollection.FEATURED, limit), view);
+    }
+
+    public List<ProductSummaryDTO> getTrendingProducts(int limit, String view) {
+        return withView(collectionCache.get(ProductCollection.TRENDING, limit), view);
+    }
+
+    public List<ProductSummaryDTO> getNewArrivals(int limit, String view) {
+        return withView(collectionCache.get(ProductCollection.NEW_ARRIVALS, limit), view);
+    }
+
+    public List<ProductSummaryDTO> getProductsOnSale(int limit, String view) {
+        return withView(collectionCache.get(ProductCollection.ON_SALE, limit), view);
+    }
+
+    List<ProductSummaryDTO> withView(List<ProductDTO> products, String view) {
+        if (isFullView(view)) {
+            return new ArrayList<>(products);
+        }
+        return products.stream()
+                .map(this::toSummary)
+                .collect(Collectors.toList());
+    }
+
+    /** The query behind one of the special collections; the trending backfill is separate. */
+    public Query collectionQuery(ProductCollection collection, int limit) {
         Query query = new Query();
-        query.addCriteria(Criteria.where("rating").gte(4.0));
-        query.with(Sort.by(Sort.Direction.DESC, "rating", "reviewCount", "hits"));
+        switch (collection) {
+            case FEATURED:
+                // Featured products: high rating, good reviews, and popular
+                query.addCriteria(Criteria.where("rating").gte(4.0));
+                query.with(Sort.by(Sort.Direction.DESC, "rating", "reviewCount", "hits"));
+                break;
+            case TRENDING:
+                // Trending: products with most hits in last 7 days
+                query.addCriteria(Criteria.where("lastViewed").gte(LocalDateTime.now().minusDays(7)));
+                query.with(Sort.by(Sort.Direction.DESC, "hits"));
+                break;
+            case NEW_ARRIVALS:
+                query.addCriteria(Criteria.where("createdAt").gte(LocalDateTime.now().minusDays(30)));
+                query.with(Sort.by(Sort.Direction.DESC, "createdAt"));
+                break;
+            case ON_SALE:
+                // Products with discount or local sale
+                query.addCriteria(new Criteria().orOperator(
+                        Criteria.where("discount").gt(0)));
+                query.with(Sort.by(Sort.Direction.DESC, "discount"));
+                break;
+        }
         query.limit(limit);
+        return query;
+    }
 
-        List<Product> products = mongoTemplate.find(query, Product.class);
+    private List<ProductDTO> loadFeaturedProducts(int limit) {
+        List<Product> products = mongoTemplate.find(collectionQuery(ProductCollection.FEATURED, limit), Product.class);
         return products.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
-    public List<ProductDTO> getTrendingProducts(int limit) {
-        // Trending: products with most hits in last 7 days
-        LocalDateTime weekAgo = LocalDateTime.now().minusDays(7);
-
+    private List<ProductDTO> loadTrendingProducts(int limit) {
         // First get top products by hits
-        Query query = new Query();
-        query.addCriteria(Criteria.where("lastViewed").gte(weekAgo));
-        query.with(Sort.by(Sort.Direction.DESC, "hits"));
-        query.limit(limit);
-
-        List<Product> products = mongoTemplate.find(query, Product.class);
+        List<Product> products = mongoTemplate.find(collectionQuery(ProductCollection.TRENDING, limit), Product.class);
 
         // If not enough recent products, get overall popular products
         if (products.size() < limit) {
             Query backupQuery = new Query();
+            backupQuery.addCriteria(Criteria.where("id").nin(
+                    products.stream().map(Product::getId).collect(Collectors.toList())));
             backupQuery.with(Sort.by(Sort.Direction.DESC, "hits"));
             backupQuery.limit(limit - products.size());
 
@@ -203,29 +535,16 @@ public class ProductServiceV2 {
                 .collect(Collectors.toList());
     }
 
-    public List<ProductDTO> getNewArrivals(int limit) {
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-
-        Query query = new Query();
-        query.addCriteria(Criteria.where("createdAt").gte(thirtyDaysAgo));
-        query.with(Sort.by(Sort.Direction.DESC, "createdAt"));
-        query.limit(limit);
-
-        List<Product> products = mongoTemplate.find(query, Product.class);
+    private List<ProductDTO> loadNewArrivals(int limit) {
+        List<Product> products = mongoTemplate.find(collectionQuery(ProductCollection.NEW_ARRIVALS, limit),
+                Product.class);
         return products.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
-    public List<ProductDTO> getProductsOnSale(int limit) {
-        // Products with discount or local sale
-        Query query = new Query();
-        query.addCriteria(new Criteria().orOperator(
-                Criteria.where("discount").gt(0)));
-        query.with(Sort.by(Sort.Direction.DESC, "discount"));
-        query.limit(limit);
-
-        List<Product> products = mongoTemplate.find(query, Product.class);
+    private List<ProductDTO> loadProductsOnSale(int limit) {
+        List<Product> products = mongoTemplate.find(collectionQuery(ProductCollection.ON_SALE, limit), Product.class);
         return products.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
@@ -234,34 +553,30 @@ public class ProductServiceV2 {
     // ==================== PRODUCT DETAILS ====================
 
     public ProductDTO getProductById(String id) {
-        Product product = productRepository.findById(id)
+        Product product = entityCache.product(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
-        // Increment view count asynchronously
-        incrementProductHitsAsync(id);
+        // Counted in memory and flushed in batches
+        hitCounter.record(id);
 
         return convertToDTO(product);
     }
 
-    public void incrementProductHits(String id) {
-        // Update product hits
-        Query query = new Query(Criteria.where("id").is(id));
-        Update update = new Update().inc("hits", 1).set("lastViewed", LocalDateTime.now());
-        mongoTemplate.updateFirst(query, update, Product.class);
-
-        // Update analytics
-        incrementAnalyticsField(id, "views");
+    // Validators for getProductById; reads the cached entity and maps nothing
+    public EntityVersion getProductVersion(String id) {
+        Product product = entityCache.product(id)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        return EntityVersion.of(product.getRevision() + "." + imageVariantService.readyCount(product.getImages()),
+                product.getUpdatedAt());
     }
 
-    private void incrementProductHitsAsync(String id) {
-        // This could be done asynchronously for better performance
-        new Thread(() -> {
-            incrementProductHits(id);
-        }).start();
+    public void incrementProductHits(String id) {
+        hitCounter.record(id);
     }
 
-    public List<ProductDTO> getSimilarProducts(String productId, int limit) {
-        Product currentProduct = productRepository.findById(productId)
+    public List<ProductSummaryDTO> getSimilarProducts(String productId, int limit, String view) {
+        boolean full = isFullView(view);
+        Product currentProduct = entityCache.product(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
         // Find products in same category with similar price range
@@ -277,10 +592,11 @@ public class ProductServiceV2 {
 
         query.with(Sort.by(Sort.Direction.DESC, "rating", "hits"));
         query.limit(limit);
+        applyView(query, full);
 
         List<Product> products = mongoTemplate.find(query, Product.class);
         return products.stream()
-                .map(this::convertToDTO)
+                .map(product -> convert(product, full))
                 .collect(Collectors.toList());
     }
 
@@ -290,7 +606,7 @@ public class ProductServiceV2 {
                 .orElseGet(() -> {
                     ProductAnalytics newAnalytics = new ProductAnalytics();
                     newAnalytics.setProductId(productId);
-                    newAnalytics.setProductName(productRepository.findById(productId)
+                    newAnalytics.setProductName(entityCache.product(productId)
                             .map(Product::getName)
                             .orElse("Unknown Product"));
                     return analyticsRepository.save(newAnalytics);
@@ -317,46 +633,58 @@ public class ProductServiceV2 {
     // ==================== SEARCH SUGGESTIONS ====================
 
     public SearchSuggestionsDTO getSearchSuggestions(String query, int limit) {
-        SearchSuggestionsDTO suggestions = new SearchSuggestionsDTO();
+        if (suggestionEngine.isReady()) {
+            return suggestionEngine.suggest(query, limit);
+        }
 
-        // Product suggestions
+        // Until the first suggestion index build has finished
+        List<Product> products = mongoTemplate.find(productSuggestionQuery(query, limit), Product.class);
+        List<Category> categories = mongoTemplate.find(categorySuggestionQuery(query, limit), Category.class);
+        return buildSuggestions(query, limit, products, categories);
+    }
+
+    Query productSuggestionQuery(String query, int limit) {
         Query productQuery = new Query(
-                Criteria.where("name").regex(query, "i"));
+                Criteria.where("name").regex(Pattern.quote(query), "i"));
         productQuery.limit(limit);
-        productQuery.fields().include("id", "name", "image");
+        productQuery.fields().include("id", "name").slice("images", 1);
+        return productQuery;
+    }
+
+    Query categorySuggestionQuery(String query, int limit) {
+        Query categoryQuery = new Query(
+                Criteria.where("name").regex(Pattern.quote(query), "i"));
+        categoryQuery.limit(limit);
+        categoryQuery.fields().include("id", "name");
+        return categoryQuery;
+    }
 
-        List<Product> products = mongoTemplate.find(productQuery, Product.class);
+    SearchSuggestionsDTO buildSuggestions(String query, int limit, List<Product> products, List<Category> categories) {
+        SearchSuggestionsDTO suggestions = new SearchSuggestionsDTO();
+
+        // Product suggestions
         suggestions.setProducts(products.stream()
                 .map(p -> new ProductSuggestionDTO(p.getId(), p.getName(), p.getImage()))
                 .collect(Collectors.toList()));
 
         // Category suggestions
-        Query categoryQuery = new Query(
-                Criteria.where("name").regex(query, "i"));
-        categoryQuery.limit(limit);
-        categoryQuery.fields().include("id", "name");
-
-        List<Category> categories = mongoTemplate.find(categoryQuery, Category.class);
         suggestions.setCategories(categories.stream()
                 .map(c -> new CategorySuggestionDTO(c.getId(), c.getName()))
                 .collect(Collectors.toList()));
 
-        // Popular search terms (you might want to store these separately)
-        suggestions.setSuggestions(Arrays.asList(
-                query + " best price",
-                query + " online",
-                "buy " + query,
-                query + " deals"));
+        // Popular search terms, from the search query log
+        suggestions.setSuggestions(suggestionEngine.popularQueries(query, limit));
 
         return suggestions;
     }
 
     // ==================== BATCH OPERATIONS ====================
 
-    public List<ProductDTO> getProductsByIds(List<String> ids) {
-        List<Product> products = productRepository.findAllById(ids);
+    public List<ProductSummaryDTO> getProductsByIds(List<String> ids, String view) {
+        boolean full = isFullView(view);
+        List<Product> products = mongoTemplate.find(idsQuery(ids, full), Product.class);
         return products.stream()
-                .map(this::convertToDTO)
+                .map(product -> convert(product, full))
                 .collect(Collectors.toList());
     }
 
@@ -388,20 +716,17 @@ public class ProductServiceV2 {
     }
 
     public ProductDTO update(String id, ProductDTO dto) {
-        Product existing = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        // Update fields
-        existing.setName(dto.getName());
-        existing.setDescription(dto.getDescription());
-        existing.setPrice(dto.getPrice());
-        existing.setCategoryId(dto.getCategoryId());
-        existing.setImages(dto.getImages());
-        existing.setAvailablePlatforms(dto.getAvailablePlatforms());
-        existing.setExternalLinks(dto.getExternalLinks());
-        // existing.setUpdatedAt(LocalDateTime.now());
-
-        Product updated = productRepository.save(existing);
+        // Only the edited fields are written (see ProductFieldUpdater)
+        Update update = new Update()
+                .set("name", dto.getName())
+                .set("description", dto.getDescription())
+                .set("price", dto.getPrice())
+                .set("categoryId", dto.getCategoryId())
+                .set("images", dto.getImages())
+                .set("availablePlatforms", dto.getAvailablePlatforms())
+                .set("externalLinks", dto.getExternalLinks());
+
+        Product updated = fieldUpdater.update(id, update);
         return convertToDTO(updated);
     }
 
@@ -414,24 +739,12 @@ public class ProductServiceV2 {
     // ==================== EXTERNAL LINKS & PLATFORMS ====================
 
     public ProductDTO updateExternalLinks(String id, List<ExternalLink> externalLinks) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        product.setExternalLinks(externalLinks);
-        // product.setUpdatedAt(LocalDateTime.now());
-
-        Product updated = productRepository.save(product);
+        Product updated = fieldUpdater.update(id, new Update().set("externalLinks", externalLinks));
         return convertToDTO(updated);
     }
 
     public ProductDTO updatePlatforms(String id, List<String> platforms) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        product.setAvailablePlatforms(platforms);
-        // product.setUpdatedAt(LocalDateTime.now());
-
-        Product updated = productRepository.save(product);
+        Product updated = fieldUpdater.update(id, new Update().set("availablePlatforms", platforms));
         return convertToDTO(updated);
     }
 
@@ -439,28 +752,46 @@ public class ProductServiceV2 {
         // Handle image uploads
         // This would typically upload to cloud storage and get URLs
 
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
         // For now, just update the product
-        // product.setUpdatedAt(LocalDateTime.now());
-
-        Product updated = productRepository.save(product);
+        Product updated = fieldUpdater.update(id, new Update());
         return convertToDTO(updated);
     }
 
-    // ==================== ANALYTICS HELPERS ====================
+    // ==================== CONVERSION METHODS ====================
 
-    private void incrementAnalyticsField(String productId, String field) {
-        Query query = new Query(Criteria.where("productId").is(productId));
-        Update update = new Update().inc(field, 1);
+    ProductSummaryDTO convert(Product product, boolean full) {
+        return full ? convertToDTO(product) : convertToSummaryDTO(product);
+    }
 
-        mongoTemplate.upsert(query, update, ProductAnalytics.class);
+    private ProductSummaryDTO convertToSummaryDTO(Product product) {
+        ProductSummaryDTO dto = new ProductSummaryDTO();
+        dto.setId(product.getId());
+        dto.setName(product.getName());
+        dto.setPrice(product.getPrice());
+        dto.setCategoryId(product.getCategoryId());
+        dto.setImages(firstImage(product.getImages()));
+        dto.setThumbnails(imageVariantService.variantUrls(dto.getImages(), ImageVariantService.Variant.THUMB));
+        dto.setAvailablePlatforms(product.getAvailablePlatforms());
+        return dto;
     }
 
-    // ==================== CONVERSION METHODS ====================
+    private ProductSummaryDTO toSummary(ProductDTO full) {
+        ProductSummaryDTO dto = new ProductSummaryDTO();
+        dto.setId(full.getId());
+        dto.setName(full.getName());
+        dto.setPrice(full.getPrice());
+        dto.setCategoryId(full.getCategoryId());
+        dto.setImages(firstImage(full.getImages()));
+        dto.setThumbnails(firstImage(full.getThumbnails()));
+        dto.setAvailablePlatforms(full.getAvailablePlatforms());
+        return dto;
+    }
+
+    private List<String> firstImage(List<String> images) {
+        return images == null || images.size() <= 1 ? images : Collections.singletonList(images.get(0));
+    }
 
-    private ProductDTO convertToDTO(Product product) {
+    ProductDTO convertToDTO(Product product) {
         ProductDTO dto = new ProductDTO();
         dto.setId(product.getId());
         dto.setName(product.getName());
@@ -468,11 +799,13 @@ public class ProductServiceV2 {
         dto.setPrice(product.getPrice());
         dto.setCategoryId(product.getCategoryId());
         dto.setImages(product.getImages());
+        dto.setThumbnails(imageVariantService.variantUrls(product.getImages(), ImageVariantService.Variant.THUMB));
+        dto.setMediumImages(imageVariantService.variantUrls(product.getImages(), ImageVariantService.Variant.MEDIUM));
         dto.setAvailablePlatforms(product.getAvailablePlatforms());
         dto.setExternalLinks(product.getExternalLinks());
         // dto.setHits(product.getHits());
         // dto.setCreatedAt(product.getCreatedAt());
-        // dto.setUpdatedAt(product.getUpdatedAt());
+        dto.setUpdatedAt(product.getUpdatedAt());
 
         // Add category name if available
         // if (product.getCategoryId() != null) {
@@ -0,0 +1,62 @@
+package com.school.ecommerce.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of query counts for callers that can live with an
+ * estimate. Unfiltered counts come from collection metadata.
+ */
+@Component
+public class QueryCountCache {
+
+    private final MongoTemplate mongoTemplate;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    public QueryCountCache(MongoTemplate mongoTemplate,
+            @Value("${search.count-cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${search.count-cache.max-entries:1000}") int maxEntries) {
+        this.mongoTemplate = mongoTemplate;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+    }
+
+    public long estimate(Query query, Class<?> entityClass) {
+        if (query.getQueryObject().isEmpty()) {
+            return mongoTemplate.estimatedCount(entityClass);
+        }
+
+        String key = entityClass.getName() + ':' + query.getQueryObject();
+        long now = System.currentTimeMillis();
+        CachedCount cached = counts.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.count;
+        }
+
+        long count = mongoTemplate.count(query, entityClass);
+        if (counts.size() >= maxEntries) {
+            counts.values().removeIf(c -> c.expiresAt <= now);
+            if (counts.size() >= maxEntries) {
+                counts.clear();
+            }
+        }
+        counts.put(key, new CachedCount(count, now + ttlMillis));
+        return count;
+    }
+
+    private static class CachedCount {
+        private final long count;
+        private final long expiresAt;
+
+        private CachedCount(long count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.school.ecommerce.service;
+
+import com.school.ecommerce.dto.PaginatedResponseDTO;
+import com.school.ecommerce.dto.ProductDTO;
+import com.school.ecommerce.dto.ProductFilterDTO;
+import com.school.ecommerce.dto.ProductSummaryDTO;
+import com.school.ecommerce.dto.SearchSuggestionsDTO;
+import com.school.ecommerce.exception.ResourceNotFoundException;
+import com.school.ecommerce.model.Category;
+import com.school.ecommerce.model.Product;
+import com.school.ecommerce.search.SearchMatch;
+import com.school.ecommerce.search.SuggestionEngine;
+import com.school.ecommerce.service.ProductCollectionCache.ProductCollection;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of the read side of {@link ProductServiceV2}. Queries are
+ * built by ProductServiceV2 so both stacks return the same results; only execution
+ * moves to {@link ReactiveMongoTemplate}. The in-memory caches shared with the servlet
+ * stack can load through the blocking template on a miss, so those calls run on the
+ * bounded elastic scheduler. So does DTO conversion, which may look for image
+ * variants on disk.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveProductServiceV2 {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ProductServiceV2 productService;
+    private final ProductHitCounter hitCounter;
+    private final EntityCache entityCache;
+    private final SuggestionEngine suggestionEngine;
+    private final ProductCollectionCache collectionCache;
+    private final QueryCountCache countCache;
+    private final int maxStreamLimit;
+
+    public ReactiveProductServiceV2(ReactiveMongoTemplate reactiveMongoTemplate, ProductServiceV2 productService,
+            ProductHitCounter hitCounter, EntityCache entityCache, SuggestionEngine suggestionEngine, ProductCollectionCache collectionCache,
+            QueryCountCache countCache, @Value("${reactive.products.max-stream-limit:10000}") int maxStreamLimit) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.productService = productService;
+        this.hitCounter = hitCounter;
+        this.entityCache = entityCache;
+        this.suggestionEngine = suggestionEngine;
+        this.collectionCache = collectionCache;
+        this.countCache = countCache;
+        this.maxStreamLimit = maxStreamLimit;
+    }
+
+    // ==================== SEARCH ====================
+
+    public Mono<PaginatedResponseDTO<ProductSummaryDTO>> searchProducts(ProductFilterDTO filter) {
+        return Mono.defer(() -> {
+            boolean full = productService.isFullView(filter.getView());
+            SearchMatch searchMatch = productService.searchMatch(filter);
+            Query query = productService.filterQuery(filter, searchMatch);
+
+            if ("cursor".equals(filter.getPagination())) {
+                return searchWithCursor(query, searchMatch, filter);
+            }
+
+            if (productService.isRanked(filter, searchMatch)) {
+                return rankedMatches(query, searchMatch).flatMap(rankedIds -> {
+                    int from = ProductServiceV2.rankedFrom((long) (filter.getPage() - 1) * filter.getLimit(),
+                            rankedIds.size());
+                    int to = ProductServiceV2.rankedTo(from, filter.getLimit(), rankedIds.size());
+                    return findInOrder(rankedIds.subList(from, to), full)
+                            .map(products -> productService.buildPaginatedResponse(products, rankedIds.size(),
+                                    searchMatch.isTruncated(), filter));
+                });
+            }
+
+            // The count and the page are independent, so they run concurrently
+            Mono<List<ProductSummaryDTO>> page = reactiveMongoTemplate
+                    .find(productService.pageQuery(query, filter), Product.class)
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(product -> productService.convert(product, full))
+                    .collectList();
+            Mono<Long> total = reactiveMongoTemplate.count(query, Product.class);
+            return Mono.zip(page, total)
+                    .map(result -> productService.buildPaginatedResponse(result.getT1(), result.getT2(),
+                            productService.isTruncated(searchMatch), filter));
+        }).doOnNext(response -> productService.recordSearch(filter, response));
+    }
+
+    private Mono<PaginatedResponseDTO<ProductSummaryDTO>> searchWithCursor(Query query, SearchMatch searchMatch,
+            ProductFilterDTO filter) {
+        boolean full = productService.isFullView(filter.getView());
+        ProductSearchCursor cursor = productService.decodeCursor(filter);
+
+        if (productService.isRanked(filter, searchMatch)) {
+            return rankedMatches(query, searchMatch).flatMap(rankedIds -> {
+                int from = ProductServiceV2.rankedFrom(cursor != null ? cursor.getOffset() : 0, rankedIds.size());
+                int to = ProductServiceV2.rankedTo(from, filter.getLimit(), rankedIds.size());
+                String nextCursor = to < rankedIds.size()
+                        ? new ProductSearchCursor(filter.getSortBy(), null, null, to).encode()
+                        : null;
+                return findInOrder(rankedIds.subList(from, to), full)
+                        .map(products -> productService.cursorResponse(products, nextCursor, rankedIds.size(),
+                                searchMatch.isTruncated(), filter, cursor));
+            });
+        }
+
+        Mono<List<Document>> documents = reactiveMongoTemplate
+                .find(productService.cursorPageQuery(query, filter, cursor), Document.class, "products")
+                .collectList();
+        Mono<Long> total = Mono.fromCallable(() -> countCache.estimate(query, Product.class))
+                .subscribeOn(Schedulers.boundedElastic());
+        return Mono.zip(documents, total)
+                .publishOn(Schedulers.boundedElastic())
+                .map(result -> productService.cursorResponse(result.getT1(), result.getT2(), filter, cursor));
+    }
+
+    /**
+     * Every product matching the filter, in {@code sortBy} order, emitted as Mongo
+     * returns them. Relevance is not available here and falls back to newest.
+     */
+    public Flux<ProductSummaryDTO> streamProducts(ProductFilterDTO filter, int limit) {
+        return Flux.defer(() -> {
+            boolean full = productService.isFullView(filter.getView());
+            Query query = productService.filterQuery(filter, productService.searchMatch(filter));
+            query.with(productService.sortFor(filter.getSortBy()));
+            query.limit(Math.max(1, Math.min(limit, maxStreamLimit)));
+            productService.applyView(query, full);
+            return reactiveMongoTemplate.find(query, Product.class)
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(product -> productService.convert(product, full));
+        });
+    }
+
+    private Mono<List<String>> rankedMatches(Query query, SearchMatch searchMatch) {
+        return reactiveMongoTemplate.find(productService.idsOnly(query), Product.class)
+                .map(Product::getId)
+                .collect(Collectors.toSet())
+                .map(matchingIds -> productService.rankedIds(searchMatch, matchingIds));
+    }
+
+    private Mono<List<ProductSummaryDTO>> findInOrder(List<String> ids, boolean full) {
+        return reactiveMongoTemplate.find(productService.idsQuery(ids, full), Product.class)
+                .collectList()
+                .publishOn(Schedulers.boundedElastic())
+                .map(products -> productService.inOrder(ids, products, full));
+    }
+
+    public Mono<SearchSuggestionsDTO> getSearchSuggestions(String query, int limit) {
+        // An in-memory lookup once the suggestion index is built
+        if (suggestionEngine.isReady()) {
+            return Mono.fromSupplier(() -> suggestionEngine.suggest(query, limit));
+        }
+
+        Mono<List<Product>> products = reactiveMongoTemplate
+                .find(productService.productSuggestionQuery(query, limit), Product.class)
+                .collectList();
+        Mono<List<Category>> categories = reactiveMongoTemplate
+                .find(productService.categorySuggestionQuery(query, limit), Category.class)
+                .collectList();
+        return Mono.zip(products, categories)
+                .map(result -> productService.buildSuggestions(query, limit, result.getT1(), result.getT2()));
+    }
+
+    // ==================== SPECIAL COLLECTIONS ====================
+
+    public Flux<ProductSummaryDTO> getFeaturedProducts(int limit, String view) {
+        return collection(ProductCollection.FEATURED, limit, view);
+    }
+
+    public Flux<ProductSummaryDTO> getTrendingProducts(int limit, String view) {
+        return collection(ProductCollection.TRENDING, limit, view);
+    }
+
+    private Flux<ProductSummaryDTO> collection(ProductCollection collection, int limit, String view) {
+        return Mono.fromCallable(() -> productService.withView(collectionCache.get(collection, limit), view))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapIterable(products -> products);
+    }
+
+    // ==================== PRODUCT DETAILS ====================
+
+    public Mono<ProductDTO> getProductById(String id) {
+        // Served from the entity cache when the servlet stack already holds the product. A miss is
+        // not stored: a write landing during the fetch could otherwise leave a stale entry behind
+        return Mono.justOrEmpty(entityCache.cachedProduct(id))
+                .switchIfEmpty(reactiveMongoTemplate.findById(id, Product.class))
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Product not found")))
+                // An in-memory add that never flushes on this thread
+                .doOnNext(product -> hitCounter.recordDeferred(id))
+                .publishOn(Schedulers.boundedElastic())
+                .map(productService::convertToDTO);
+    }
+
+    // ==================== BATCH OPERATIONS ====================
+
+    public Flux<ProductSummaryDTO> getProductsByIds(List<String> ids, String view) {
+        boolean full = productService.isFullView(view);
+        return reactiveMongoTemplate.find(productService.idsQuery(ids, full), Product.class)
+                .publishOn(Schedulers.boundedElastic())
+                .map(product -> productService.convert(product, full));
+    }
+}
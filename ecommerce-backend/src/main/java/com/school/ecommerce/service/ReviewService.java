@@ -1,6 +1,8 @@
 package com.school.ecommerce.service;
 
 import java.util.List;
+
+import com.school.ecommerce.dto.ProductReviewsDTO;
 import com.school.ecommerce.model.Review;
 
 public interface ReviewService {
@@ -8,5 +10,5 @@ public interface ReviewService {
 
     List<Review> getReviewsByProductId(String productId);
 
-    Object getByProduct(String productId);
+    ProductReviewsDTO getByProduct(String productId, String cursor, int limit);
 }
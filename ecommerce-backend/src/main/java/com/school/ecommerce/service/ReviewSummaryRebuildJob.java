@@ -0,0 +1,217 @@
+package com.school.ecommerce.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.school.ecommerce.dto.ReviewSummaryRebuildResultDTO;
+import com.school.ecommerce.event.ProductChangedEvent;
+import com.school.ecommerce.model.Product;
+import com.school.ecommerce.model.Review;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.GroupOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Recomputes every product's review summary (ratingSum, reviewCount,
+ * ratingHistogram, rating) from the reviews, to backfill products reviewed
+ * before the summaries existed or repair drift. One aggregation groups the
+ * reviews, one pass over the products compares, and only products that
+ * differ are written, in unordered bulks. Each write is conditional on the
+ * count and sum it was compared against, so a review added meanwhile is not
+ * overwritten; that product is reported and left to the next run.
+ */
+@Component
+public class ReviewSummaryRebuildJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewSummaryRebuildJob.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final boolean rebuildOnStartup;
+
+    public ReviewSummaryRebuildJob(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+            @Value("${reviews.summaries.rebuild-chunk-size:1000}") int chunkSize,
+            @Value("${reviews.summaries.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            Thread worker = new Thread(this::run, "review-summary-rebuild");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    public synchronized ReviewSummaryRebuildResultDTO run() {
+        long started = System.nanoTime();
+        ReviewSummaryRebuildResultDTO result = new ReviewSummaryRebuildResultDTO();
+        Map<String, Summary> expected = summarizeReviews(result);
+
+        List<Stale> stale = new ArrayList<>(chunkSize);
+        Query products = new Query();
+        products.fields().include("ratingSum", "reviewCount", "ratingHistogram");
+        try (Stream<Product> stream = mongoTemplate.stream(products, Product.class)) {
+            stream.forEach(product -> {
+                result.setProductsScanned(result.getProductsScanned() + 1);
+                Summary summary = expected.remove(product.getId());
+                if (summary == null) {
+                    summary = new Summary();
+                }
+                if (!summary.matches(product)) {
+                    stale.add(new Stale(product, summary));
+                    if (stale.size() == chunkSize) {
+                        write(stale, result);
+                    }
+                }
+            });
+        }
+        write(stale, result);
+        result.setMissingProducts(expected.size());
+        result.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+
+        log.info("Review summary rebuild finished: {}", result);
+        return result;
+    }
+
+    private Map<String, Summary> summarizeReviews(ReviewSummaryRebuildResultDTO result) {
+        GroupOperation group = Aggregation.group("productId").count().as("count").sum("rating").as("sum");
+        for (int stars = 1; stars <= 5; stars++) {
+            group = group.sum(ConditionalOperators.when(ComparisonOperators.Eq.valueOf("rating").equalToValue(stars)).then(1).otherwise(0))
+                    .as("stars" + stars);
+        }
+        Aggregation aggregation = Aggregation.newAggregation(group)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        Map<String, Summary> summaries = new HashMap<>();
+        try (Stream<Document> groups = mongoTemplate.aggregateStream(aggregation,
+                mongoTemplate.getCollectionName(Review.class), Document.class)) {
+            groups.forEach(doc -> {
+                Summary summary = new Summary();
+                summary.count = ((Number) doc.get("count")).intValue();
+                summary.sum = ((Number) doc.get("sum")).longValue();
+                for (int stars = 1; stars <= 5; stars++) {
+                    summary.histogram[stars - 1] = ((Number) doc.get("stars" + stars)).intValue();
+                }
+                result.setReviewsScanned(result.getReviewsScanned() + summary.count);
+                summaries.put(doc.getString("_id"), summary);
+            });
+        }
+        return summaries;
+    }
+
+    private void write(List<Stale> stale, ReviewSummaryRebuildResultDTO result) {
+        if (stale.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (Stale product : stale) {
+            Query unchanged = new Query(Criteria.where("_id").is(product.id)
+                    .and("reviewCount").in(storedValues(product.storedCount))
+                    .and("ratingSum").in(storedValues(product.storedSum)));
+            Summary summary = product.summary;
+            Update update = new Update()
+                    .set("ratingSum", summary.sum)
+                    .set("reviewCount", summary.count)
+                    .set("ratingHistogram", summary.histogramDocument())
+                    .set("rating", summary.average())
+                    .inc("revision", 1)
+                    .set("updatedAt", now);
+            bulk.updateOne(unchanged, update);
+        }
+        BulkWriteResult written = bulk.execute();
+        result.setProductsUpdated(result.getProductsUpdated() + written.getModifiedCount());
+        result.setProductsChangedMeanwhile(result.getProductsChangedMeanwhile()
+                + stale.size() - written.getMatchedCount());
+
+        // Bulk updates skip ProductEventBridge; announce the new summaries to the read models
+        List<String> ids = stale.stream().map(product -> product.id).collect(Collectors.toList());
+        mongoTemplate.find(new Query(Criteria.where("_id").in(ids)), Product.class)
+                .forEach(product -> eventPublisher.publishEvent(ProductChangedEvent.saved(product)));
+        stale.clear();
+    }
+
+    // A zero read from the product may also be a field the document does not have yet
+    private static List<Object> storedValues(long value) {
+        return value == 0 ? Arrays.asList(0, null) : List.of(value);
+    }
+
+    private static final class Summary {
+        long sum;
+        int count;
+        final int[] histogram = new int[5];
+
+        boolean matches(Product product) {
+            if (product.getRatingSum() != sum || product.getReviewCount() != count) {
+                return false;
+            }
+            Map<String, Integer> stored = product.getRatingHistogram();
+            for (int stars = 1; stars <= 5; stars++) {
+                int storedCount = stored != null ? stored.getOrDefault(String.valueOf(stars), 0) : 0;
+                if (storedCount != histogram[stars - 1]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Map<String, Integer> histogramDocument() {
+            Map<String, Integer> document = new LinkedHashMap<>();
+            for (int stars = 1; stars <= 5; stars++) {
+                document.put(String.valueOf(stars), histogram[stars - 1]);
+            }
+            return document;
+        }
+
+        // Rounded half to even, as $round does in ReviewServiceImpl
+        double average() {
+            return count == 0 ? 0 : BigDecimal.valueOf(sum)
+                    .divide(BigDecimal.valueOf(count), 1, RoundingMode.HALF_EVEN).doubleValue();
+        }
+    }
+
+    private static final class Stale {
+        final String id;
+        final long storedSum;
+        final int storedCount;
+        final Summary summary;
+
+        Stale(Product product, Summary summary) {
+            this.id = product.getId();
+            this.storedSum = product.getRatingSum();
+            this.storedCount = product.getReviewCount();
+            this.summary = summary;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.school.ecommerce.service;
+
+import com.school.ecommerce.exception.BadRequestException;
+import com.school.ecommerce.exception.ConflictException;
+import com.school.ecommerce.exception.ResourceNotFoundException;
+import com.school.ecommerce.model.Inventory;
+import com.school.ecommerce.model.Reservation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reserves inventory with a conditional decrement ({@code stock >= quantity}),
+ * so concurrent buyers can never take the stock below zero, on this instance
+ * or across several. Each reservation is recorded and either committed by an
+ * order, released (order cancelled, checkout abandoned) or expired by the
+ * sweeper, which gives its units back.
+ * <p>
+ * Reservations of one SKU are also serialized by an in-process striped lock.
+ * That does not make them safer; it queues buyers of a hot SKU here instead of
+ * having them all write the same document, which Mongo resolves with internal
+ * write-conflict retries.
+ * <p>
+ * Stock is taken before the reservation is written and given back after it is
+ * closed, so a crash in between loses units (under-selling) rather than
+ * creating them.
+ * <p>
+ * Every unit taken off {@code stock} is added to the inventory's
+ * {@code reserved} in the same update, and leaves it again when the
+ * reservation is released, expires or its order ships. An absolute stock
+ * count can then be applied as on-hand units minus {@code reserved}.
+ */
+@Service
+public class StockReservations {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservations.class);
+
+    private static final List<Reservation.Status> OPEN =
+            List.of(Reservation.Status.ACTIVE, Reservation.Status.COMMITTED);
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration ttl;
+    private final int sweepBatchSize;
+    private final ReentrantLock[] stripes;
+
+    private final Timer lockWait;
+    private final Counter reserved;
+    private final Counter insufficient;
+    private final Counter released;
+    private final Counter expired;
+
+    public StockReservations(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+            @Value("${inventory.reservations.ttl-seconds:900}") long ttlSeconds,
+            @Value("${inventory.reservations.sweep-batch-size:500}") int sweepBatchSize,
+            @Value("${inventory.lock-stripes:256}") int lockStripes) {
+        this.mongoTemplate = mongoTemplate;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.sweepBatchSize = sweepBatchSize;
+        this.stripes = new ReentrantLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+
+        this.lockWait = Timer.builder("inventory.reservations.lock.wait")
+                .description("Time a reservation waited for its SKU's stripe lock")
+                .register(meterRegistry);
+        this.reserved = meterRegistry.counter("inventory.reservations", "outcome", "reserved");
+        this.insufficient = meterRegistry.counter("inventory.reservations", "outcome", "insufficient");
+        this.released = meterRegistry.counter("inventory.reservations", "outcome", "released");
+        this.expired = meterRegistry.counter("inventory.reservations", "outcome", "expired");
+    }
+
+    /**
+     * Takes {@code quantity} units of a product, or throws
+     * {@link ConflictException} when fewer are in stock.
+     */
+    public Reservation reserve(String productId, int quantity, String orderId) {
+        if (quantity <= 0) {
+            throw new BadRequestException("Quantity must be positive");
+        }
+        if (!take(productId, quantity)) {
+            insufficient.increment();
+            throw shortage(productId);
+        }
+
+        Instant now = Instant.now();
+        Reservation reservation = new Reservation();
+        reservation.setProductId(productId);
+        reservation.setOrderId(orderId);
+        reservation.setQuantity(quantity);
+        reservation.setStatus(Reservation.Status.ACTIVE);
+        reservation.setCreatedAt(now);
+        reservation.setExpiresAt(now.plus(ttl));
+        try {
+            reservation = mongoTemplate.insert(reservation);
+        } catch (RuntimeException e) {
+            giveBack(productId, quantity);
+            throw e;
+        }
+        reserved.increment();
+        return reservation;
+    }
+
+    /**
+     * Takes stock for every product of an order, all or nothing, and records
+     * the reservations as committed. All products are taken in one unordered
+     * bulk of conditional decrements. Each decrement also adds the order to the
+     * inventory's {@code holds}, so when some products are short, exactly the
+     * decrements that matched can be undone before the {@link ConflictException},
+     * or before rethrowing when the bulk or the clean-up of the holds fails.
+     * A successful checkout costs two stock round trips, whatever the cart size.
+     */
+    public List<Reservation> reserveAll(Map<String, Integer> quantities, String orderId) {
+        if (quantities.values().stream().anyMatch(quantity -> quantity == null || quantity <= 0)) {
+            throw new BadRequestException("Quantity must be positive");
+        }
+        List<String> productIds = new ArrayList<>(quantities.keySet());
+        Collections.sort(productIds);
+
+        List<ReentrantLock> locks = lockAll(productIds);
+        try {
+            BulkOperations take = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Inventory.class);
+            for (String productId : productIds) {
+                int quantity = quantities.get(productId);
+                take.updateOne(new Query(Criteria.where("productId").is(productId).and("stock").gte(quantity)),
+                        new Update().inc("stock", -quantity).inc("reserved", quantity).push("holds", orderId));
+            }
+            boolean shortOfStock;
+            try {
+                shortOfStock = take.execute().getModifiedCount() < productIds.size();
+                if (!shortOfStock) {
+                    mongoTemplate.updateMulti(new Query(Criteria.where("productId").in(productIds)),
+                            new Update().pull("holds", orderId), Inventory.class);
+                }
+            } catch (RuntimeException e) {
+                // A failed or partly applied bulk leaves no count to trust; the holds say what was taken
+                try {
+                    giveBackHeld(heldBy(productIds, orderId), quantities, orderId);
+                } catch (RuntimeException undoFailure) {
+                    e.addSuppressed(undoFailure);
+                }
+                throw e;
+            }
+            if (shortOfStock) {
+                List<String> held = heldBy(productIds, orderId);
+                giveBackHeld(held, quantities, orderId);
+                insufficient.increment();
+                throw shortage(productIds.stream().filter(id -> !held.contains(id)).findFirst().orElseThrow());
+            }
+        } finally {
+            locks.forEach(ReentrantLock::unlock);
+        }
+
+        Instant now = Instant.now();
+        List<Reservation> reservations = new ArrayList<>(productIds.size());
+        for (String productId : productIds) {
+            Reservation reservation = new Reservation();
+            reservation.setProductId(productId);
+            reservation.setOrderId(orderId);
+            reservation.setQuantity(quantities.get(productId));
+            reservation.setStatus(Reservation.Status.COMMITTED);
+            reservation.setCreatedAt(now);
+            reservations.add(reservation);
+        }
+        try {
+            reservations = new ArrayList<>(mongoTemplate.insertAll(reservations));
+        } catch (RuntimeException e) {
+            productIds.forEach(id -> giveBack(id, quantities.get(id)));
+            throw e;
+        }
+        reserved.increment(reservations.size());
+        return reservations;
+    }
+
+    public Reservation get(String id) {
+        Reservation reservation = mongoTemplate.findById(id, Reservation.class);
+        if (reservation == null) {
+            throw new ResourceNotFoundException("Reservation not found");
+        }
+        return reservation;
+    }
+
+    /**
+     * Makes an active reservation permanent; it no longer expires and its
+     * units come back only when it is released. Committing twice is a no-op.
+     */
+    public Reservation commit(String id) {
+        Query active = new Query(Criteria.where("_id").is(id)
+                .and("status").is(Reservation.Status.ACTIVE)
+                .and("expiresAt").gt(Instant.now()));
+        Reservation committed = mongoTemplate.findAndModify(active,
+                new Update().set("status", Reservation.Status.COMMITTED),
+                FindAndModifyOptions.options().returnNew(true), Reservation.class);
+        if (committed != null) {
+            return committed;
+        }
+
+        Reservation current = get(id);
+        if (current.getStatus() == Reservation.Status.COMMITTED) {
+            return current;
+        }
+        throw new ConflictException("Reservation is " + (current.getStatus() == Reservation.Status.ACTIVE
+                ? "expired" : current.getStatus().name().toLowerCase()));
+    }
+
+    /**
+     * Gives the reserved units back, whether or not the reservation was
+     * committed. Releasing twice is a no-op.
+     */
+    public Reservation release(String id) {
+        Reservation closed = close(id, OPEN, Reservation.Status.RELEASED);
+        if (closed == null) {
+            return get(id);
+        }
+        released.increment();
+        return closed;
+    }
+
+    /**
+     * Releases every open reservation of an order, as when it is cancelled.
+     */
+    public int releaseForOrder(String orderId) {
+        int count = 0;
+        for (Reservation reservation : mongoTemplate.find(byOrder(orderId, OPEN), Reservation.class)) {
+            if (close(reservation.getId(), OPEN, Reservation.Status.RELEASED) != null) {
+                released.increment();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Marks the committed reservations of a shipped order fulfilled: their
+     * units left the warehouse, so they no longer count as reserved and can
+     * no longer be released.
+     */
+    public int fulfillForOrder(String orderId) {
+        int count = 0;
+        for (Reservation reservation : mongoTemplate.find(byOrder(orderId, List.of(Reservation.Status.COMMITTED)),
+                Reservation.class)) {
+            if (close(reservation.getId(), List.of(Reservation.Status.COMMITTED),
+                    Reservation.Status.FULFILLED) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservations.sweep-interval-ms:30000}")
+    public void expireStale() {
+        int count = 0;
+        List<Reservation> batch;
+        do {
+            batch = mongoTemplate.find(staleQuery(Instant.now(), sweepBatchSize), Reservation.class);
+            for (Reservation reservation : batch) {
+                // A commit or release may win the race; then this one closes nothing
+                if (close(reservation.getId(), List.of(Reservation.Status.ACTIVE),
+                        Reservation.Status.EXPIRED) != null) {
+                    expired.increment();
+                    count++;
+                }
+            }
+        } while (batch.size() == sweepBatchSize);
+
+        if (count > 0) {
+            log.info("Expired {} stock reservations", count);
+        }
+    }
+
+    /** Ids of the reservations of an order in one of the given states. */
+    public static Query byOrder(String orderId, List<Reservation.Status> statuses) {
+        Query query = new Query(Criteria.where("orderId").is(orderId).and("status").in(statuses));
+        query.fields().include("_id");
+        return query;
+    }
+
+    /** Ids of one sweep batch of active reservations past their expiry. */
+    public static Query staleQuery(Instant now, int batchSize) {
+        Query query = new Query(Criteria.where("status").is(Reservation.Status.ACTIVE)
+                .and("expiresAt").lte(now))
+                .limit(batchSize);
+        query.fields().include("_id");
+        return query;
+    }
+
+    // ==================== STOCK ====================
+
+    private boolean take(String productId, int quantity) {
+        ReentrantLock lock = stripe(productId);
+        long waitStarted = System.nanoTime();
+        lock.lock();
+        try {
+            lockWait.record(System.nanoTime() - waitStarted, TimeUnit.NANOSECONDS);
+            Query inStock = new Query(Criteria.where("productId").is(productId).and("stock").gte(quantity));
+            return mongoTemplate.updateFirst(inStock,
+                    new Update().inc("stock", -quantity).inc("reserved", quantity), Inventory.class)
+                    .getModifiedCount() == 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripe(String productId) {
+        return stripes[Math.floorMod(productId.hashCode(), stripes.length)];
+    }
+
+    // Stripes are always locked in index order, so two carts cannot deadlock
+    private List<ReentrantLock> lockAll(List<String> productIds) {
+        List<ReentrantLock> locks = productIds.stream()
+                .map(id -> Math.floorMod(id.hashCode(), stripes.length))
+                .distinct()
+                .sorted()
+                .map(index -> stripes[index])
+                .toList();
+        long waitStarted = System.nanoTime();
+        locks.forEach(ReentrantLock::lock);
+        lockWait.record(System.nanoTime() - waitStarted, TimeUnit.NANOSECONDS);
+        return locks;
+    }
+
+    private List<String> heldBy(List<String> productIds, String holder) {
+        Query heldQuery = new Query(Criteria.where("productId").in(productIds).and("holds").is(holder));
+        heldQuery.fields().include("productId");
+        return mongoTemplate.find(heldQuery, Inventory.class).stream()
+                .map(Inventory::getProductId)
+                .toList();
+    }
+
+    private void giveBackHeld(List<String> productIds, Map<String, Integer> quantities, String holder) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        BulkOperations undo = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Inventory.class);
+        for (String productId : productIds) {
+            undo.updateOne(new Query(Criteria.where("productId").is(productId).and("holds").is(holder)),
+                    new Update().inc("stock", quantities.get(productId)).inc("reserved", -quantities.get(productId))
+                            .pull("holds", holder));
+        }
+        undo.execute();
+    }
+
+    private void giveBack(String productId, int quantity) {
+        mongoTemplate.updateFirst(byProduct(productId),
+                new Update().inc("stock", quantity).inc("reserved", -quantity), Inventory.class);
+    }
+
+    // Moves the reservation out of one of the given states and returns its units, or drops them once shipped
+    private Reservation close(String id, List<Reservation.Status> from, Reservation.Status to) {
+        Query query = new Query(Criteria.where("_id").is(id).and("status").in(from));
+        Reservation closed = mongoTemplate.findAndModify(query,
+                new Update().set("status", to).set("closedAt", Instant.now()),
+                FindAndModifyOptions.options().returnNew(true), Reservation.class);
+        if (closed != null && to == Reservation.Status.FULFILLED) {
+            mongoTemplate.updateFirst(byProduct(closed.getProductId()),
+                    new Update().inc("reserved", -closed.getQuantity()), Inventory.class);
+        } else if (closed != null) {
+            giveBack(closed.getProductId(), closed.getQuantity());
+        }
+        return closed;
+    }
+
+    private RuntimeException shortage(String productId) {
+        if (!mongoTemplate.exists(byProduct(productId), Inventory.class)) {
+            return new ResourceNotFoundException("Inventory not found for product " + productId);
+        }
+        return new ConflictException("Insufficient stock for product " + productId);
+    }
+
+    private static Query byProduct(String productId) {
+        return new Query(Criteria.where("productId").is(productId));
+    }
+}
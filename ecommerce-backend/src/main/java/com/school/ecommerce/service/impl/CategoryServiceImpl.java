@@ -5,6 +5,9 @@ import com.school.ecommerce.exception.ResourceNotFoundException;
 import com.school.ecommerce.model.Category;
 import com.school.ecommerce.repository.CategoryRepository;
 import com.school.ecommerce.service.CategoryService;
+import com.school.ecommerce.service.CollectionVersions;
+import com.school.ecommerce.service.EntityCache;
+import com.school.ecommerce.service.EntityVersion;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -14,7 +17,14 @@ import java.util.stream.Collectors;
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
-    public CategoryServiceImpl(CategoryRepository categoryRepository) { this.categoryRepository = categoryRepository; }
+    private final EntityCache entityCache;
+    private final CollectionVersions collectionVersions;
+    public CategoryServiceImpl(CategoryRepository categoryRepository, EntityCache entityCache,
+            CollectionVersions collectionVersions) {
+        this.categoryRepository = categoryRepository;
+        this.entityCache = entityCache;
+        this.collectionVersions = collectionVersions;
+    }
 
     private CategoryDTO toDTO(Category c) {
         CategoryDTO dto = new CategoryDTO();
@@ -40,11 +50,23 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Override
     public CategoryDTO getById(String id) {
-        Category c = categoryRepository.findById(id)
+        Category c = entityCache.category(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
         return toDTO(c);
     }
 
+    @Override
+    public EntityVersion getVersion(String id) {
+        Category c = entityCache.category(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
+        return EntityVersion.of(String.valueOf(c.getRevision()), c.getUpdatedAt());
+    }
+
+    @Override
+    public EntityVersion getAllVersion() {
+        return collectionVersions.categories();
+    }
+
     @Override
     public List<CategoryDTO> getAll() {
         return categoryRepository.findAll().stream().map(this::toDTO).collect(Collectors.toList());
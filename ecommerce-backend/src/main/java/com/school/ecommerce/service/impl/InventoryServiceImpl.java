@@ -1,32 +1,188 @@
 package com.school.ecommerce.service.impl;
 
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.school.ecommerce.dto.BulkStockUpdateResultDTO;
+import com.school.ecommerce.dto.BulkStockUpdateResultDTO.ItemResult;
+import com.school.ecommerce.dto.BulkStockUpdateResultDTO.Status;
+import com.school.ecommerce.dto.StockUpdateDTO;
+import com.school.ecommerce.exception.BadRequestException;
 import com.school.ecommerce.model.Inventory;
 import com.school.ecommerce.repository.InventoryRepository;
 import com.school.ecommerce.service.InventoryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Service
 public class InventoryServiceImpl implements InventoryService {
 
     private final InventoryRepository inventoryRepository;
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxBatchIds;
+    private final int maxBulkItems;
+    private final int bulkChunkSize;
+    private final Timer bulkTimer;
 
-    public InventoryServiceImpl(InventoryRepository inventoryRepository) {
+    public InventoryServiceImpl(InventoryRepository inventoryRepository, MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${inventory.batch.max-ids:1000}") int maxBatchIds,
+            @Value("${inventory.bulk.max-items:50000}") int maxBulkItems,
+            @Value("${inventory.bulk.chunk-size:1000}") int bulkChunkSize) {
         this.inventoryRepository = inventoryRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.maxBatchIds = maxBatchIds;
+        this.maxBulkItems = maxBulkItems;
+        this.bulkChunkSize = bulkChunkSize;
+        this.bulkTimer = Timer.builder("inventory.bulk.update")
+                .description("Time spent applying one bulk stock update request")
+                .register(meterRegistry);
     }
 
+    // One atomic upsert, so a concurrent reservation is never overwritten by a stale read
     @Override
     public Inventory updateStock(String productId, int quantity) {
-        Inventory inventory = inventoryRepository.findByProductId(productId);
+        if (quantity < 0) {
+            throw new BadRequestException("Stock cannot be negative");
+        }
+        return mongoTemplate.findAndModify(new Query(Criteria.where("productId").is(productId)),
+                onHand(quantity), FindAndModifyOptions.options().upsert(true).returnNew(true), Inventory.class);
+    }
+
+    /**
+     * Sets stock to the units on hand less those reserved, read in the same
+     * pipeline update: subtracting a reserved count read beforehand would miss
+     * a reservation made in between.
+     */
+    static AggregationUpdate onHand(int units) {
+        AggregationExpression sellable = context -> new Document("$max", List.of(0,
+                new Document("$subtract", List.of(units, new Document("$ifNull", List.of("$reserved", 0))))));
+        return AggregationUpdate.update().set("stock").toValue(sellable);
+    }
 
-        if (inventory == null) {
-            inventory = new Inventory();
-            inventory.setProductId(productId);
+    @Override
+    public BulkStockUpdateResultDTO bulkUpdateStock(List<StockUpdateDTO> updates) {
+        if (updates.size() > maxBulkItems) {
+            throw new BadRequestException("At most " + maxBulkItems + " stock updates per request");
+        }
+        long started = System.nanoTime();
+
+        List<ItemResult> results = new ArrayList<>(updates.size());
+        // Unordered writes to one product could land in either order, so only its last update is applied
+        Map<String, Integer> lastIndex = new HashMap<>();
+        for (int i = 0; i < updates.size(); i++) {
+            StockUpdateDTO update = updates.get(i);
+            ItemResult result = new ItemResult();
+            result.setProductId(update.getProductId());
+            if (update.getProductId() == null || update.getProductId().isBlank()) {
+                reject(result, "Missing productId");
+            } else if (update.getStock() == null || update.getStock() < 0) {
+                reject(result, "Stock must be zero or more");
+            } else {
+                Integer previous = lastIndex.put(update.getProductId(), i);
+                if (previous != null) {
+                    reject(results.get(previous), "Superseded by a later update of the same product");
+                }
+            }
+            results.add(result);
         }
 
-        inventory.setQuantity(quantity);
-        return inventoryRepository.save(inventory);
+        List<Integer> valid = lastIndex.values().stream().sorted().collect(Collectors.toList());
+        for (int from = 0; from < valid.size(); from += bulkChunkSize) {
+            applyChunk(updates, results, valid.subList(from, Math.min(from + bulkChunkSize, valid.size())));
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        bulkTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        return summarize(results, elapsedNanos);
+    }
+
+    private void applyChunk(List<StockUpdateDTO> updates, List<ItemResult> results, List<Integer> chunk) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Inventory.class);
+        for (int index : chunk) {
+            StockUpdateDTO update = updates.get(index);
+            bulk.upsert(new Query(Criteria.where("productId").is(update.getProductId())),
+                    onHand(update.getStock()));
+        }
+
+        // Positions in the bulk result are positions within this chunk
+        Map<Integer, String> errors = new HashMap<>();
+        BulkWriteResult written;
+        try {
+            written = bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                errors.put(error.getIndex(), error.getMessage());
+            }
+            written = e.getResult();
+        } catch (RuntimeException e) {
+            chunk.forEach(index -> fail(results.get(index), e.getMessage()));
+            return;
+        }
+
+        Set<Integer> upserted = written.getUpserts().stream()
+                .map(BulkWriteUpsert::getIndex)
+                .collect(Collectors.toSet());
+        for (int position = 0; position < chunk.size(); position++) {
+            ItemResult result = results.get(chunk.get(position));
+            if (errors.containsKey(position)) {
+                fail(result, errors.get(position));
+            } else {
+                result.setStatus(upserted.contains(position) ? Status.CREATED : Status.UPDATED);
+            }
+        }
+    }
+
+    private BulkStockUpdateResultDTO summarize(List<ItemResult> results, long elapsedNanos) {
+        Map<Status, Integer> counts = new EnumMap<>(Status.class);
+        results.forEach(result -> counts.merge(result.getStatus(), 1, Integer::sum));
+        counts.forEach((status, count) ->
+                meterRegistry.counter("inventory.bulk.items", "status", status.name().toLowerCase()).increment(count));
+
+        BulkStockUpdateResultDTO summary = new BulkStockUpdateResultDTO();
+        summary.setRequested(results.size());
+        summary.setCreated(counts.getOrDefault(Status.CREATED, 0));
+        summary.setUpdated(counts.getOrDefault(Status.UPDATED, 0));
+        summary.setRejected(counts.getOrDefault(Status.REJECTED, 0));
+        summary.setFailed(counts.getOrDefault(Status.FAILED, 0));
+        summary.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        summary.setItemsPerSecond(elapsedNanos > 0 ? results.size() * 1e9 / elapsedNanos : 0);
+        summary.setResults(results);
+        return summary;
+    }
+
+    private static void reject(ItemResult result, String error) {
+        result.setStatus(Status.REJECTED);
+        result.setError(error);
+    }
+
+    private static void fail(ItemResult result, String error) {
+        result.setStatus(Status.FAILED);
+        result.setError(error);
     }
 
     @Override
@@ -34,6 +190,25 @@ public class InventoryServiceImpl implements InventoryService {
         return inventoryRepository.findByProductId(productId);
     }
 
+    @Override
+    public List<Inventory> getByProducts(List<String> productIds) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(productIds));
+        if (distinct.size() > maxBatchIds) {
+            throw new BadRequestException("At most " + maxBatchIds + " products per batch");
+        }
+        Map<String, Inventory> byProduct = mongoTemplate.find(batchQuery(distinct), Inventory.class).stream()
+                .collect(Collectors.toMap(Inventory::getProductId, inventory -> inventory));
+        return distinct.stream()
+                .map(byProduct::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /** The single query {@link #getByProducts} runs for the whole batch. */
+    public static Query batchQuery(List<String> productIds) {
+        return new Query(Criteria.where("productId").in(productIds));
+    }
+
     @Override
     public List<Inventory> getAll() {
         return inventoryRepository.findAll();
@@ -1,28 +1,85 @@
 package com.school.ecommerce.service.impl;
 
+import com.school.ecommerce.dto.CheckoutRequestDTO;
 import com.school.ecommerce.dto.OrderDTO;
+import com.school.ecommerce.dto.OrderDTO.LineItemDTO;
 import com.school.ecommerce.dto.OrderDTO.UpdateDTO;
+import com.school.ecommerce.dto.OrderFilterDTO;
+import com.school.ecommerce.dto.OrderSummaryDTO;
+import com.school.ecommerce.dto.PaginatedResponseDTO;
+import com.school.ecommerce.dto.PaginationInfoDTO;
+import com.school.ecommerce.event.OrderStatusChangedEvent;
+import com.school.ecommerce.exception.BadRequestException;
+import com.school.ecommerce.exception.ConflictException;
 import com.school.ecommerce.exception.ResourceNotFoundException;
 import com.school.ecommerce.model.Order;
+import com.school.ecommerce.model.Product;
 import com.school.ecommerce.repository.OrderRepository;
 import com.school.ecommerce.service.OrderService;
+import com.school.ecommerce.service.QueryCountCache;
+import com.school.ecommerce.service.StockReservations;
 import com.school.ecommerce.utils.DateUtils;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
-    public OrderServiceImpl(OrderRepository orderRepository) { this.orderRepository = orderRepository; }
+    private final StockReservations stockReservations;
+    private final MongoTemplate mongoTemplate;
+    private final QueryCountCache countCache;
+    private final ApplicationEventPublisher publisher;
+    private final int maxCheckoutItems;
+    private final int maxPageSize;
+
+    public OrderServiceImpl(OrderRepository orderRepository, StockReservations stockReservations,
+                            MongoTemplate mongoTemplate, QueryCountCache countCache,
+                            ApplicationEventPublisher publisher,
+                            @Value("${checkout.max-items:100}") int maxCheckoutItems,
+                            @Value("${orders.page.max-limit:100}") int maxPageSize) {
+        this.orderRepository = orderRepository;
+        this.stockReservations = stockReservations;
+        this.mongoTemplate = mongoTemplate;
+        this.countCache = countCache;
+        this.publisher = publisher;
+        this.maxCheckoutItems = maxCheckoutItems;
+        this.maxPageSize = maxPageSize;
+    }
 
     private OrderDTO toDTO(Order o) {
         OrderDTO dto = new OrderDTO();
         dto.setId(o.getId());
         dto.setUserId(o.getUserId());
         dto.setProductId(o.getProductId());
+        if (o.getItems() != null) {
+            dto.setItems(o.getItems().stream().map(item -> {
+                LineItemDTO line = new LineItemDTO();
+                line.setProductId(item.getProductId());
+                line.setName(item.getName());
+                line.setUnitPrice(item.getUnitPrice());
+                line.setQuantity(item.getQuantity());
+                line.setLineTotal(lineTotal(item).doubleValue());
+                return line;
+            }).collect(Collectors.toList()));
+            dto.setSubtotal(o.getSubtotal());
+        }
         dto.setStatus(o.getStatus().name());
         List<UpdateDTO> updates = o.getHistoryUpdates().stream().map(h -> {
             UpdateDTO u = new UpdateDTO();
@@ -34,6 +91,28 @@ public class OrderServiceImpl implements OrderService {
         return dto;
     }
 
+    private OrderSummaryDTO toSummary(Order o) {
+        OrderSummaryDTO dto = new OrderSummaryDTO();
+        dto.setId(o.getId());
+        dto.setUserId(o.getUserId());
+        dto.setProductId(o.getProductId());
+        dto.setStatus(o.getStatus().name());
+        if (o.getItems() != null) {
+            dto.setItemCount(o.getItems().size());
+            dto.setSubtotal(o.getSubtotal());
+        } else {
+            dto.setItemCount(o.getProductId() != null ? 1 : 0);
+        }
+        if (ObjectId.isValid(o.getId())) {
+            dto.setPlacedAt(new ObjectId(o.getId()).getDate().toInstant());
+        }
+        // Only the latest history entry is projected
+        if (!o.getHistoryUpdates().isEmpty()) {
+            dto.setUpdatedAt(o.getHistoryUpdates().get(o.getHistoryUpdates().size() - 1).getTimestamp());
+        }
+        return dto;
+    }
+
     private Order fromDTO(OrderDTO dto) {
         Order o = new Order();
         o.setId(dto.getId());
@@ -49,6 +128,73 @@ public class OrderServiceImpl implements OrderService {
         return toDTO(saved);
     }
 
+    /**
+     * Places a whole cart as one order: one query for the products, one bulk
+     * of conditional stock updates for the whole cart, one insert for the
+     * reservations and one for the order. Nothing is kept when a product is
+     * missing or short.
+     */
+    @Override
+    public OrderDTO checkout(CheckoutRequestDTO request) {
+        if (request.getUserId() == null || request.getUserId().isBlank()) {
+            throw new BadRequestException("userId is required");
+        }
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new BadRequestException("The cart is empty");
+        }
+        if (request.getItems().size() > maxCheckoutItems) {
+            throw new BadRequestException("At most " + maxCheckoutItems + " items per order");
+        }
+
+        // The same product on two cart lines becomes one line
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (CheckoutRequestDTO.ItemDTO item : request.getItems()) {
+            if (item.getProductId() == null || item.getQuantity() <= 0) {
+                throw new BadRequestException("Every item needs a productId and a positive quantity");
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        Query products = new Query(Criteria.where("_id").in(quantities.keySet()));
+        products.fields().include("name", "price");
+        Map<String, Product> productsById = mongoTemplate.find(products, Product.class).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+        List<String> missing = quantities.keySet().stream()
+                .filter(id -> !productsById.containsKey(id))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            throw new ResourceNotFoundException("Products not found: " + String.join(", ", missing));
+        }
+
+        Order order = new Order();
+        order.setId(new ObjectId().toHexString());
+        order.setUserId(request.getUserId());
+        order.setStatus(Order.Status.PENDING);
+        order.setItems(quantities.entrySet().stream().map(entry -> {
+            Product product = productsById.get(entry.getKey());
+            return new Order.LineItem(product.getId(), product.getName(), product.getPrice(), entry.getValue());
+        }).collect(Collectors.toList()));
+        order.setSubtotal(order.getItems().stream()
+                .map(OrderServiceImpl::lineTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add)
+                .doubleValue());
+        order.getHistoryUpdates().add(new Order.UpdateHistory("Order placed", DateUtils.now()));
+
+        stockReservations.reserveAll(quantities, order.getId());
+        try {
+            return toDTO(mongoTemplate.insert(order));
+        } catch (RuntimeException e) {
+            stockReservations.releaseForOrder(order.getId());
+            throw e;
+        }
+    }
+
+    // Summed in decimal so a cart of many cheap lines does not drift by fractions of a cent
+    private static BigDecimal lineTotal(Order.LineItem item) {
+        return BigDecimal.valueOf(item.getUnitPrice()).multiply(BigDecimal.valueOf(item.getQuantity()))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
     @Override
     public OrderDTO getById(String id) {
         Order o = orderRepository.findById(id)
@@ -56,24 +202,165 @@ public class OrderServiceImpl implements OrderService {
         return toDTO(o);
     }
 
+    /**
+     * One page of orders, newest first, as summaries without the history.
+     * Order ids are ObjectIds minted when the order is placed, so _id is both
+     * the page key and the placement time: the date range and the cursor are
+     * bounds on _id, and the userId_id and status_id indexes serve every
+     * filter without a sort stage. The total is an estimate.
+     */
     @Override
-    public List<OrderDTO> getAll() {
-        return orderRepository.findAll().stream().map(this::toDTO).collect(Collectors.toList());
+    public PaginatedResponseDTO<OrderSummaryDTO> search(OrderFilterDTO filter) {
+        if (filter.getLimit() < 1 || filter.getLimit() > maxPageSize) {
+            throw new BadRequestException("limit must be between 1 and " + maxPageSize);
+        }
+        Order.Status status = filter.getStatus() != null ? parseStatus(filter.getStatus()) : null;
+        // ObjectIds hold whole seconds, so from is rounded down to the second
+        ObjectId from = filter.getFrom() != null ? ObjectId.getSmallestWithDate(Date.from(filter.getFrom())) : null;
+        ObjectId to = filter.getTo() != null ? ObjectId.getSmallestWithDate(Date.from(filter.getTo())) : null;
+        ObjectId cursor = decodeCursor(filter.getCursor());
+
+        long total = countCache.estimate(new Query(orderCriteria(filter.getUserId(), status, from, to)), Order.class);
+        ObjectId before = cursor != null && (to == null || cursor.compareTo(to) < 0) ? cursor : to;
+        List<Order> orders = mongoTemplate.find(pageQuery(filter.getUserId(), status, from, before,
+                filter.getLimit()), Order.class);
+
+        String nextCursor = null;
+        if (orders.size() > filter.getLimit()) {
+            orders = orders.subList(0, filter.getLimit());
+            nextCursor = orders.get(orders.size() - 1).getId();
+        }
+
+        PaginationInfoDTO paginationInfo = new PaginationInfoDTO();
+        paginationInfo.setLimit(filter.getLimit());
+        paginationInfo.setTotal(total);
+        paginationInfo.setTotalEstimated(true);
+        paginationInfo.setTotalPages((int) Math.ceil((double) total / filter.getLimit()));
+        paginationInfo.setHasNext(nextCursor != null);
+        paginationInfo.setHasPrev(cursor != null);
+        paginationInfo.setNextCursor(nextCursor);
+
+        PaginatedResponseDTO<OrderSummaryDTO> response = new PaginatedResponseDTO<>();
+        response.setData(orders.stream().map(this::toSummary).collect(Collectors.toList()));
+        response.setPagination(paginationInfo);
+        response.setFilters(filter);
+        return response;
     }
 
-    @Override
-    public List<OrderDTO> getByUser(String userId) {
-        return orderRepository.findByUserId(userId).stream().map(this::toDTO).collect(Collectors.toList());
+    /** The page query {@link #search} runs, one order past the limit to tell whether another page follows. */
+    public static Query pageQuery(String userId, Order.Status status, ObjectId from, ObjectId before, int limit) {
+        Query page = new Query(orderCriteria(userId, status, from, before))
+                .with(Sort.by(Sort.Direction.DESC, "_id"))
+                .limit(limit + 1);
+        page.fields().include("userId", "productId", "status", "subtotal", "items.quantity")
+                .slice("historyUpdates", -1);
+        return page;
+    }
+
+    private static Criteria orderCriteria(String userId, Order.Status status, ObjectId from, ObjectId before) {
+        Criteria criteria = new Criteria();
+        if (userId != null) {
+            criteria.and("userId").is(userId);
+        }
+        if (status != null) {
+            criteria.and("status").is(status);
+        }
+        if (from != null || before != null) {
+            Criteria id = criteria.and("_id");
+            if (from != null) {
+                id.gte(from);
+            }
+            if (before != null) {
+                id.lt(before);
+            }
+        }
+        return criteria;
+    }
+
+    // The cursor is the id of the last order on the previous page
+    private static ObjectId decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        if (!ObjectId.isValid(cursor)) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        return new ObjectId(cursor);
     }
 
+    /**
+     * Moves an order to {@code status} with one conditional update that sets
+     * the status and pushes the note onto the history in place. The write costs
+     * the same however long the history is. Of two racing transitions to
+     * different statuses only one matches. Repeating the current status, even
+     * by two racing calls to the same status, matches too but only appends the
+     * note: just the call that changed the status releases or fulfils stock
+     * and publishes an {@link OrderStatusChangedEvent}.
+     */
     @Override
     public OrderDTO updateStatus(String id, String status, String updateNote) {
-        Order o = orderRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
-        o.setStatus(Order.Status.valueOf(status.toUpperCase()));
-        o.getHistoryUpdates().add(new Order.UpdateHistory(updateNote, DateUtils.now()));
-        Order saved = orderRepository.save(o);
-        return toDTO(saved);
+        Order.Status target = parseStatus(status);
+        Order.UpdateHistory entry = new Order.UpdateHistory(updateNote, DateUtils.now());
+        Query query = new Query(Criteria.where("_id").is(id).and("status").in(sources(target)));
+        Update update = new Update().set("status", target).push("historyUpdates", entry);
+        Order previous = mongoTemplate.findAndModify(query, update, Order.class);
+        if (previous == null) {
+            Query current = new Query(Criteria.where("_id").is(id));
+            current.fields().include("status");
+            Order order = mongoTemplate.findOne(current, Order.class);
+            if (order == null) {
+                throw new ResourceNotFoundException("Order not found");
+            }
+            throw new ConflictException("Order " + id + " cannot move from " + order.getStatus() + " to " + target);
+        }
+        if (previous.getStatus() != target) {
+            if (target == Order.Status.CANCELLED) {
+                stockReservations.releaseForOrder(id);
+            } else if (target == Order.Status.SHIPPED) {
+                stockReservations.fulfillForOrder(id);
+            }
+            publisher.publishEvent(new OrderStatusChangedEvent(id, previous.getUserId(), target, updateNote,
+                    entry.getTimestamp()));
+        }
+
+        // findAndModify returned the document as it was; apply the same change for the response
+        previous.setStatus(target);
+        previous.getHistoryUpdates().add(entry);
+        return toDTO(previous);
+    }
+
+    // Status, owner and latest history entry only, to open a status stream with
+    @Override
+    public OrderStatusChangedEvent currentStatus(String id) {
+        Query query = new Query(Criteria.where("_id").is(id));
+        query.fields().include("userId", "status").slice("historyUpdates", -1);
+        Order order = mongoTemplate.findOne(query, Order.class);
+        if (order == null) {
+            throw new ResourceNotFoundException("Order not found");
+        }
+        List<Order.UpdateHistory> history = order.getHistoryUpdates();
+        Order.UpdateHistory latest = history.isEmpty() ? null : history.get(history.size() - 1);
+        return new OrderStatusChangedEvent(order.getId(), order.getUserId(), order.getStatus(),
+                latest != null ? latest.getUpdate() : null, latest != null ? latest.getTimestamp() : null);
+    }
+
+    private static Order.Status parseStatus(String status) {
+        try {
+            return Order.Status.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown order status: " + status);
+        }
+    }
+
+    // The statuses an order may be in for an update to target to apply
+    private static EnumSet<Order.Status> sources(Order.Status target) {
+        EnumSet<Order.Status> sources = EnumSet.of(target);
+        for (Order.Status status : Order.Status.values()) {
+            if (status.canMoveTo(target)) {
+                sources.add(status);
+            }
+        }
+        return sources;
     }
 
     @Override
@@ -1,9 +1,30 @@
 package com.school.ecommerce.service.impl;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.SetOperation;
+import org.springframework.data.mongodb.core.aggregation.SystemVariable;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import com.school.ecommerce.dto.ProductReviewsDTO;
+import com.school.ecommerce.event.ProductChangedEvent;
+import com.school.ecommerce.exception.BadRequestException;
+import com.school.ecommerce.exception.ResourceNotFoundException;
+import com.school.ecommerce.model.Product;
 import com.school.ecommerce.model.Review;
 import com.school.ecommerce.repository.ReviewRepository;
 import com.school.ecommerce.service.ReviewService;
@@ -12,14 +33,71 @@ import com.school.ecommerce.service.ReviewService;
 public class ReviewServiceImpl implements ReviewService {
 
     private final ReviewRepository reviewRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxPageSize;
 
-    public ReviewServiceImpl(ReviewRepository reviewRepository) {
+    public ReviewServiceImpl(ReviewRepository reviewRepository, MongoTemplate mongoTemplate,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${reviews.page.max-limit:50}") int maxPageSize) {
         this.reviewRepository = reviewRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.maxPageSize = maxPageSize;
     }
 
+    /**
+     * Stores the review, then adds it to the product's review summary in the
+     * same request. The review is written first because the summary can always
+     * be rebuilt from the reviews ({@code ReviewSummaryRebuildJob}), not the
+     * other way round.
+     */
     @Override
     public Review addReview(Review review) {
-        return reviewRepository.save(review);
+        if (review.getProductId() == null || review.getProductId().isBlank()) {
+            throw new BadRequestException("productId is required");
+        }
+        if (review.getRating() < 1 || review.getRating() > 5) {
+            throw new BadRequestException("rating must be between 1 and 5");
+        }
+        // Always a new review, so an id in the request cannot replace one already counted
+        review.setId(null);
+        Review saved = reviewRepository.insert(review);
+
+        Product product = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(review.getProductId())),
+                addRating(review.getRating()), FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (product == null) {
+            reviewRepository.deleteById(saved.getId());
+            throw new ResourceNotFoundException("Product not found");
+        }
+        // A partial update skips ProductEventBridge, so the revision is stamped above and the change announced here
+        eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+        return saved;
+    }
+
+    /**
+     * Adds one review of the given stars to a product's summary in a single
+     * pipeline update, so concurrent reviews never lose an increment and the
+     * average always agrees with the sum and count stored beside it. Fields a
+     * never-reviewed product lacks count as zero. Every expression reads the
+     * values from before the update, so the average is computed from them.
+     */
+    static AggregationUpdate addRating(int stars) {
+        String bucket = "ratingHistogram." + stars;
+        AggregationExpression sum = plus("ratingSum", stars);
+        AggregationExpression count = plus("reviewCount", 1);
+        // One $set stage: chained AggregationUpdate.set calls would each be a stage of their own
+        return AggregationUpdate.update().set(SetOperation.set("ratingSum").toValue(sum)
+                .and().set("reviewCount").toValue(count)
+                .and().set(bucket).toValue(plus(bucket, 1))
+                .and().set("rating").toValue(ArithmeticOperators.Round.roundValueOf(
+                        ArithmeticOperators.Divide.valueOf(sum).divideBy(count)).place(1))
+                .and().set("revision").toValue(plus("revision", 1))
+                .and().set("updatedAt").toValue(SystemVariable.NOW));
+    }
+
+    private static AggregationExpression plus(String field, int amount) {
+        return ArithmeticOperators.Add.valueOf(ConditionalOperators.ifNull(field).then(0)).add(amount);
     }
 
     @Override
@@ -27,9 +105,59 @@ public class ReviewServiceImpl implements ReviewService {
         return reviewRepository.findByProductId(productId);
     }
 
+    /**
+     * The product's stored review summary and one page of its reviews, newest
+     * first. The summary is read from the product, not aggregated from the
+     * reviews, and the page is served by the productId_id index.
+     */
     @Override
-    public Object getByProduct(String productId) {
+    public ProductReviewsDTO getByProduct(String productId, String cursor, int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new BadRequestException("limit must be between 1 and " + maxPageSize);
+        }
+        Query productQuery = new Query(Criteria.where("_id").is(productId));
+        productQuery.fields().include("rating", "reviewCount", "ratingHistogram");
+        Product product = mongoTemplate.findOne(productQuery, Product.class);
+        if (product == null) {
+            throw new ResourceNotFoundException("Product not found");
+        }
+
+        // The cursor is the id of the last review on the previous page
+        ObjectId after = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            if (!ObjectId.isValid(cursor)) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            after = new ObjectId(cursor);
+        }
+        List<Review> reviews = mongoTemplate.find(pageQuery(productId, after, limit), Review.class);
+
+        ProductReviewsDTO dto = new ProductReviewsDTO();
+        dto.setProductId(productId);
+        dto.setRating(product.getRating());
+        dto.setReviewCount(product.getReviewCount());
+        Map<Integer, Integer> histogram = new LinkedHashMap<>();
+        for (int stars = 1; stars <= 5; stars++) {
+            Map<String, Integer> stored = product.getRatingHistogram();
+            histogram.put(stars, stored != null ? stored.getOrDefault(String.valueOf(stars), 0) : 0);
+        }
+        dto.setRatingHistogram(histogram);
+        if (reviews.size() > limit) {
+            reviews = reviews.subList(0, limit);
+            dto.setNextCursor(reviews.get(reviews.size() - 1).getId());
+        }
+        dto.setReviews(reviews);
+        return dto;
+    }
 
-        throw new UnsupportedOperationException("Unimplemented method 'getByProduct'");
+    /** One page of a product's reviews after the cursor, plus one to tell whether another page follows. */
+    public static Query pageQuery(String productId, ObjectId cursor, int limit) {
+        Criteria criteria = Criteria.where("productId").is(productId);
+        if (cursor != null) {
+            criteria.and("_id").lt(cursor);
+        }
+        return new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "_id"))
+                .limit(limit + 1);
     }
 }
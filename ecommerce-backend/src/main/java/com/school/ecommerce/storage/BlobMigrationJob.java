@@ -0,0 +1,146 @@
+package com.school.ecommerce.storage;
+
+import com.school.ecommerce.dto.BlobMigrationResultDTO;
+import com.school.ecommerce.event.ProductChangedEvent;
+import com.school.ecommerce.model.Product;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Moves Base64 images embedded in product documents into the {@link BlobStore}
+ * and replaces them with blob URLs. Safe to run repeatedly.
+ */
+@Component
+public class BlobMigrationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobMigrationJob.class);
+
+    // Paths and URLs are already references; everything else is a candidate for inline Base64
+    private static final Pattern IMAGE_REFERENCE = Pattern.compile("^(/|https?://)");
+    private static final Pattern DATA_URI = Pattern.compile("^data:[^,]*;base64,", Pattern.CASE_INSENSITIVE);
+    private static final Pattern BASE64 = Pattern.compile("[A-Za-z0-9+/]+={0,2}");
+    // A relative name such as "logo.png" is never this long and free of dots
+    private static final int MIN_BARE_BASE64_LENGTH = 64;
+
+    private final MongoTemplate mongoTemplate;
+    private final BlobStore blobStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean migrateOnStartup;
+
+    public BlobMigrationJob(MongoTemplate mongoTemplate, BlobStore blobStore,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${storage.blobs.migrate-on-startup:false}") boolean migrateOnStartup) {
+        this.mongoTemplate = mongoTemplate;
+        this.blobStore = blobStore;
+        this.eventPublisher = eventPublisher;
+        this.migrateOnStartup = migrateOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (migrateOnStartup) {
+            Thread worker = new Thread(this::run, "blob-migration");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    public synchronized BlobMigrationResultDTO run() {
+        BlobMigrationResultDTO result = new BlobMigrationResultDTO();
+        Query query = new BasicQuery(new Document("images",
+                new Document("$elemMatch", new Document("$not", IMAGE_REFERENCE))));
+
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            products.forEach(product -> migrate(product, result));
+        }
+
+        log.info("Blob migration finished: {}", result);
+        return result;
+    }
+
+    private void migrate(Product product, BlobMigrationResultDTO result) {
+        result.setProductsScanned(result.getProductsScanned() + 1);
+
+        List<String> original = product.getImages();
+        List<String> migrated = new ArrayList<>(original.size());
+        boolean changed = false;
+
+        for (String image : original) {
+            if (image == null || IMAGE_REFERENCE.matcher(image).find()) {
+                migrated.add(image);
+                continue;
+            }
+            byte[] bytes = decode(image);
+            if (bytes == null) {
+                migrated.add(image);
+                result.setImagesSkipped(result.getImagesSkipped() + 1);
+                continue;
+            }
+            try {
+                String hash = blobStore.put(new ByteArrayInputStream(bytes));
+                migrated.add(blobStore.urlFor(hash));
+                result.setImagesMigrated(result.getImagesMigrated() + 1);
+                changed = true;
+            } catch (IOException e) {
+                migrated.add(image);
+                result.setImagesFailed(result.getImagesFailed() + 1);
+                log.warn("Could not migrate an image of product {}", product.getId(), e);
+            }
+        }
+
+        if (!changed) {
+            return;
+        }
+
+        // Only replace the list we read, so a concurrent image update wins
+        Query query = new Query(Criteria.where("id").is(product.getId()).and("images").is(original));
+        // A partial update skips ProductEventBridge, so stamp the revision here; the image URLs changed
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update().set("images", migrated).inc("revision", 1).set("updatedAt", now);
+        if (mongoTemplate.updateFirst(query, update, Product.class).getModifiedCount() > 0) {
+            result.setProductsUpdated(result.getProductsUpdated() + 1);
+            product.setImages(migrated);
+            product.setRevision(product.getRevision() + 1);
+            product.setUpdatedAt(now);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+        }
+    }
+
+    /**
+     * The image bytes of a Base64 data URI or of a bare Base64 string, or null
+     * when the value is neither. The check is strict because the lenient MIME
+     * decoder turns any text, such as a relative file name, into a few bytes of
+     * garbage that would then replace the product's real reference for good.
+     */
+    static byte[] decode(String image) {
+        Matcher dataUri = DATA_URI.matcher(image);
+        boolean isDataUri = dataUri.find();
+        String payload = (isDataUri ? image.substring(dataUri.end()) : image).replaceAll("[\\r\\n]", "");
+        if (payload.isEmpty() || payload.length() % 4 != 0 || !BASE64.matcher(payload).matches()
+                || (!isDataUri && payload.length() < MIN_BARE_BASE64_LENGTH)) {
+            return null;
+        }
+        return Base64.getDecoder().decode(payload);
+    }
+}
@@ -0,0 +1,115 @@
+package com.school.ecommerce.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLConnection;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed file store. A blob is named by the SHA-256 of its bytes,
+ * so storing the same image twice keeps a single file. Files are sharded by
+ * the first two hex digits: {@code <root>/ab/abcdef...}. Files derived from a
+ * blob (image variants) live beside it as {@code <hash>_<suffix>}.
+ */
+@Component
+public class BlobStore {
+
+    public static final String URL_PREFIX = "/api/blobs/";
+
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern VARIANT_NAME = Pattern.compile("[0-9a-f]{64}_[a-z]+");
+
+    private final Path root;
+
+    public BlobStore(@Value("${storage.blobs.dir:uploads/blobs}") String dir) {
+        this.root = Paths.get(dir).toAbsolutePath();
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create blob directory " + root, e);
+        }
+    }
+
+    /**
+     * Copies the stream to disk, hashing it on the way, and returns the blob hash.
+     */
+    public String put(InputStream in) throws IOException {
+        Path temp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream hashing = new DigestInputStream(in, digest)) {
+                Files.copy(hashing, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Same content stored concurrently
+                }
+            }
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public boolean exists(String name) {
+        return isStoredName(name) && Files.isRegularFile(resolve(name));
+    }
+
+    public Path resolve(String name) {
+        if (!isStoredName(name)) {
+            throw new IllegalArgumentException("Not a blob name: " + name);
+        }
+        return root.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    public String contentType(String name) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(resolve(name)))) {
+            String type = URLConnection.guessContentTypeFromStream(in);
+            return type != null ? type : "application/octet-stream";
+        }
+    }
+
+    public String urlFor(String hash) {
+        return URL_PREFIX + hash;
+    }
+
+    public String variantName(String hash, String suffix) {
+        return hash + "_" + suffix;
+    }
+
+    public boolean isBlobName(String name) {
+        return name != null && BLOB_NAME.matcher(name).matches();
+    }
+
+    private boolean isStoredName(String name) {
+        return isBlobName(name) || (name != null && VARIANT_NAME.matcher(name).matches());
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
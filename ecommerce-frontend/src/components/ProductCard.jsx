@@ -22,6 +22,7 @@ const ProductCard = ({ product }) => {
   
   const getProductImage = () => {
     if (imageError) return 'https://via.placeholder.com/200';
+    if (safeProduct.thumbnails?.[0]) return safeProduct.thumbnails[0];
     if (safeProduct.image) return safeProduct.image;
     if (safeProduct.images?.[0]) return safeProduct.images[0];
     return 'https://via.placeholder.com/200';
@@ -14,6 +14,8 @@ export interface Product {
   category?: Category;
   image?: string;
   images?: string[];
+  thumbnails?: string[];
+  mediumImages?: string[];
   externalLinks?: ExternalLink[];
   externalLink?: string;
   availablePlatforms?: string[];